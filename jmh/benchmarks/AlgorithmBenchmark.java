@@ -0,0 +1,121 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A benchmark of the algorithms placing processes on a machine loaded to
+ * about their threshold, through <code>CPU.sendProcess</code> and
+ * <code>Algorithm.handleProcess</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(2)
+public class AlgorithmBenchmark {
+    /**
+     * The amount of processes placed by a single invocation.
+     */
+    private static final int PROCESS_COUNT = 10000;
+
+    /**
+     * <code>Machine.getCPU</code>.
+     */
+    private static final MethodHandle GET_CPU = Simulator.method("Machine", "getCPU", Integer.class);
+
+    /**
+     * <code>CPU.getUsage</code>.
+     */
+    private static final MethodHandle GET_USAGE = Simulator.method("CPU", "getUsage");
+
+    /**
+     * <code>CPU.addProcess</code>.
+     */
+    private static final MethodHandle ADD_PROCESS = Simulator.method("CPU", "addProcess",
+            Simulator.type("Process"));
+
+    /**
+     * <code>CPU.sendProcess</code>.
+     */
+    private static final MethodHandle SEND_PROCESS = Simulator.method("CPU", "sendProcess",
+            Simulator.type("Process"));
+
+    /**
+     * <code>Machine.getUsageRequestCount</code>.
+     */
+    private static final MethodHandle GET_USAGE_REQUEST_COUNT = Simulator.method("Machine",
+            "getUsageRequestCount");
+
+    /**
+     * The name of the algorithm.
+     */
+    @Param({"First", "Second", "Third", "IndexedThird", "PowerOfD:2", "JSQWithMemory:2", "JoinIdleQueue"})
+    String algorithm;
+
+    /**
+     * The amount of CPUs.
+     */
+    @Param({"100", "1000"})
+    int CPUCount;
+
+    /**
+     * The machine.
+     */
+    private Object machine;
+
+    /**
+     * The CPUs of the machine.
+     */
+    private Object[] CPUs;
+
+    /**
+     * The processes to be placed.
+     */
+    private Object[] processes;
+
+    /**
+     * Creates the machine, loads every CPU to a usage of 0.55 and creates the
+     * processes to be placed.
+     *
+     * @throws Throwable If the simulator throws
+     */
+    @Setup(Level.Iteration)
+    public void setUp() throws Throwable {
+        Random random = new Random(Simulator.SEED);
+        machine = Simulator.createMachine(CPUCount, algorithm, Simulator.generate(CPUCount, 1, 2, 1));
+        CPUs = new Object[CPUCount];
+        int PID = 0;
+        for(int i = 0; i < CPUCount; i++) {
+            CPUs[i] = (Object) GET_CPU.invokeExact(machine, (Object) i);
+            while((Double) (Object) GET_USAGE.invokeExact(CPUs[i]) < 0.55) {
+                Object ignored = (Object) ADD_PROCESS.invokeExact(CPUs[i], Simulator.createProcess(PID++, 0.05, 1000));
+            }
+        }
+        processes = new Object[PROCESS_COUNT];
+        for(int i = 0; i < PROCESS_COUNT; i++) {
+            processes[i] = Simulator.createProcess(PID++, 0.01 + random.nextDouble() * 0.02, 1000);
+        }
+    }
+
+    /**
+     * Places every process, arriving on the CPUs in turn. Every iteration
+     * starts from the same load, so it runs a single invocation.
+     *
+     * @param blackhole the sink of the amount of usage requests
+     * @throws Throwable If the simulator throws
+     */
+    @Benchmark
+    @OperationsPerInvocation(PROCESS_COUNT)
+    public void handleProcess(Blackhole blackhole) throws Throwable {
+        for(int i = 0; i < PROCESS_COUNT; i++) {
+            blackhole.consume((Object) SEND_PROCESS.invokeExact(CPUs[i % CPUCount], processes[i]));
+        }
+        blackhole.consume((Object) GET_USAGE_REQUEST_COUNT.invokeExact(machine));
+    }
+}
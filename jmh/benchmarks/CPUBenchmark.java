@@ -0,0 +1,147 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of <code>CPU.getUsage</code> and <code>CPU.addProcess</code>
+ * with the specified amount of processes on a CPU.
+ */
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class CPUBenchmark {
+    /**
+     * The amount of processes added by a single invocation of
+     * {@link #addProcess}.
+     */
+    private static final int ADDED_PROCESS_COUNT = 10000;
+
+    /**
+     * <code>Machine.getCPU</code>.
+     */
+    private static final MethodHandle GET_CPU = Simulator.method("Machine", "getCPU", Integer.class);
+
+    /**
+     * <code>CPU.getUsage</code>.
+     */
+    private static final MethodHandle GET_USAGE = Simulator.method("CPU", "getUsage");
+
+    /**
+     * <code>CPU.addProcess</code>.
+     */
+    private static final MethodHandle ADD_PROCESS = Simulator.method("CPU", "addProcess",
+            Simulator.type("Process"));
+
+    /**
+     * A CPU running the specified amount of processes, which use it fully.
+     */
+    @State(Scope.Thread)
+    public static class RunningState {
+        /**
+         * The amount of running processes.
+         */
+        @Param({"10", "100"})
+        int processCount;
+
+        /**
+         * The CPU.
+         */
+        Object cpu;
+
+        /**
+         * Creates the CPU and its processes.
+         *
+         * @throws Throwable If the simulator throws
+         */
+        @Setup(Level.Iteration)
+        public void setUp() throws Throwable {
+            Object machine = Simulator.createMachine(1, "First", Simulator.generate(1, 1, 2, 1));
+            cpu = (Object) GET_CPU.invokeExact(machine, (Object) 0);
+            for(int i = 0; i < processCount; i++) {
+                Object ignored = (Object) ADD_PROCESS.invokeExact(cpu,
+                        Simulator.createProcess(i, 1d / processCount, 1000));
+            }
+        }
+    }
+
+    /**
+     * Empty CPUs, to each of which the specified amount of processes is
+     * added, half of which end up in the ready queue.
+     */
+    @State(Scope.Thread)
+    public static class AddingState {
+        /**
+         * The amount of processes added to a single CPU.
+         */
+        @Param({"10", "100"})
+        int processCount;
+
+        /**
+         * The empty CPUs.
+         */
+        Object[] CPUs;
+
+        /**
+         * The processes added to every CPU.
+         */
+        Object[] processes;
+
+        /**
+         * Creates the CPUs and the processes.
+         *
+         * @throws Throwable If the simulator throws
+         */
+        @Setup(Level.Iteration)
+        public void setUp() throws Throwable {
+            int CPUCount = ADDED_PROCESS_COUNT / processCount;
+            Object machine = Simulator.createMachine(CPUCount, "First", Simulator.generate(CPUCount, 1, 2, 1));
+            CPUs = new Object[CPUCount];
+            for(int i = 0; i < CPUCount; i++) {
+                CPUs[i] = (Object) GET_CPU.invokeExact(machine, (Object) i);
+            }
+            processes = new Object[processCount];
+            for(int i = 0; i < processCount; i++) {
+                processes[i] = Simulator.createProcess(i, 2d / processCount, 1000);
+            }
+        }
+    }
+
+    /**
+     * Measures <code>CPU.getUsage</code>.
+     *
+     * @param state the CPU
+     * @param blackhole the sink of the usage
+     * @throws Throwable If the simulator throws
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void getUsage(RunningState state, Blackhole blackhole) throws Throwable {
+        blackhole.consume((Object) GET_USAGE.invokeExact(state.cpu));
+    }
+
+    /**
+     * Measures <code>CPU.addProcess</code> on CPUs filling up. Every
+     * iteration starts from empty CPUs, so it runs a single invocation.
+     *
+     * @param state the CPUs and the processes
+     * @param blackhole the sink of the usage of the first CPU
+     * @throws Throwable If the simulator throws
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @OperationsPerInvocation(ADDED_PROCESS_COUNT)
+    public void addProcess(AddingState state, Blackhole blackhole) throws Throwable {
+        for(Object cpu : state.CPUs) {
+            for(Object process : state.processes) {
+                Object ignored = (Object) ADD_PROCESS.invokeExact(cpu, process);
+            }
+        }
+        blackhole.consume((Object) GET_USAGE.invokeExact(state.CPUs[0]));
+    }
+}
@@ -0,0 +1,91 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A benchmark of a full <code>Machine.run</code> of a workload. An operation
+ * is the whole run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(2)
+public class MachineBenchmark {
+    /**
+     * <code>Machine.run</code>.
+     */
+    private static final MethodHandle RUN = Simulator.method("Machine", "run");
+
+    /**
+     * <code>Machine.getAverageUsage</code>.
+     */
+    private static final MethodHandle GET_AVERAGE_USAGE = Simulator.method("Machine", "getAverageUsage");
+
+    /**
+     * The name of the algorithm.
+     */
+    @Param({"First", "Second", "Third"})
+    String algorithm;
+
+    /**
+     * The amount of CPUs.
+     */
+    @Param({"10", "100"})
+    int CPUCount;
+
+    /**
+     * The average length of a schedule queue.
+     */
+    @Param({"100", "1000"})
+    int length;
+
+    /**
+     * The workload.
+     */
+    private Set<?> schedules;
+
+    /**
+     * The machine.
+     */
+    private Object machine;
+
+    /**
+     * Generates the workload.
+     *
+     * @throws Throwable If the simulator throws
+     */
+    @Setup(Level.Trial)
+    public void generate() throws Throwable {
+        schedules = Simulator.generate(CPUCount, length / 2, length * 3 / 2, 2);
+    }
+
+    /**
+     * Creates a machine running the workload.
+     *
+     * @throws Throwable If the simulator throws
+     */
+    @Setup(Level.Iteration)
+    public void setUp() throws Throwable {
+        machine = Simulator.createMachine(CPUCount, algorithm, schedules);
+    }
+
+    /**
+     * Runs the machine until the workload is done. Every iteration starts
+     * from a new machine, so it runs a single invocation.
+     *
+     * @param blackhole the sink of the average usage
+     * @throws Throwable If the simulator throws
+     */
+    @Benchmark
+    public void run(Blackhole blackhole) throws Throwable {
+        Object ignored = (Object) RUN.invokeExact(machine);
+        blackhole.consume((Object) GET_AVERAGE_USAGE.invokeExact(machine));
+    }
+}
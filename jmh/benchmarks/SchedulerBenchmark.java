@@ -0,0 +1,126 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A benchmark of <code>Scheduler.dispatchArrivals</code> assigning every
+ * schedule of a workload. An operation is the dispatch of the whole workload.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(2)
+public class SchedulerBenchmark {
+    /**
+     * The constructor <code>Scheduler(Machine, Set)</code>.
+     */
+    private static final MethodHandle NEW_SCHEDULER = Simulator.constructor("Scheduler",
+            Simulator.type("Machine"), Set.class);
+
+    /**
+     * <code>Scheduler.dispatchArrivals</code>.
+     */
+    private static final MethodHandle DISPATCH_ARRIVALS = Simulator.method("Scheduler", "dispatchArrivals",
+            Simulator.type("ArrivalHandler"));
+
+    /**
+     * <code>Scheduler.isDone</code>.
+     */
+    private static final MethodHandle IS_DONE = Simulator.method("Scheduler", "isDone");
+
+    /**
+     * The handler of the arrivals, counting them.
+     */
+    private static final Object HANDLER;
+
+    static {
+        try {
+            HANDLER = Simulator.implement(MethodHandles.lookup(), "ArrivalHandler",
+                    MethodHandles.lookup().findStatic(SchedulerBenchmark.class, "handleArrival",
+                            MethodType.methodType(void.class, int.class, Object.class)));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * The amount of arrivals handled by the current invocation.
+     */
+    private static int arrivalCount;
+
+    /**
+     * The amount of CPUs.
+     */
+    @Param({"100", "1000"})
+    int CPUCount;
+
+    /**
+     * The workload.
+     */
+    private Set<?> schedules;
+
+    /**
+     * The scheduler of the workload.
+     */
+    private Object scheduler;
+
+    /**
+     * Generates the workload.
+     *
+     * @throws Throwable If the simulator throws
+     */
+    @Setup(Level.Trial)
+    public void generate() throws Throwable {
+        schedules = Simulator.generate(CPUCount, 100, 200, 3);
+    }
+
+    /**
+     * Creates a scheduler of the workload.
+     *
+     * @throws Throwable If the simulator throws
+     */
+    @Setup(Level.Iteration)
+    public void setUp() throws Throwable {
+        Object machine = Simulator.createMachine(CPUCount, "First", schedules);
+        scheduler = (Object) NEW_SCHEDULER.invokeExact(machine, (Object) schedules);
+    }
+
+    /**
+     * Dispatches the arrivals of every cycle until the workload is done.
+     * Every iteration starts from a new scheduler, so it runs a single
+     * invocation.
+     *
+     * @param blackhole the sink of the amount of cycles and arrivals
+     * @throws Throwable If the simulator throws
+     */
+    @Benchmark
+    public void dispatchArrivals(Blackhole blackhole) throws Throwable {
+        int cycleCount = 0;
+        arrivalCount = 0;
+        while(!(Boolean) (Object) IS_DONE.invokeExact(scheduler)) {
+            blackhole.consume((Object) DISPATCH_ARRIVALS.invokeExact(scheduler, HANDLER));
+            cycleCount++;
+        }
+        blackhole.consume(cycleCount);
+        blackhole.consume(arrivalCount);
+    }
+
+    /**
+     * Handles an arrival by counting it.
+     *
+     * @param CPUIndex the index of the CPU of the arrival
+     * @param process the arriving process
+     */
+    private static void handleArrival(int CPUIndex, Object process) {
+        arrivalCount++;
+    }
+}
@@ -0,0 +1,200 @@
+package benchmarks;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Access to the classes of the simulator from the benchmarks.
+ * <p>The simulator lives in the unnamed package, which Java code in a named
+ * package can't refer to, while JMH requires benchmarks to be in a named
+ * package. The benchmarks therefore call the simulator through method
+ * handles adapted to take and return <code>Object</code>s. A handle held in
+ * a static final field and called with <code>invokeExact</code> is inlined
+ * by the JIT compiler like a direct call.
+ */
+final class Simulator {
+    /**
+     * The static <code>Generator.generate</code> taking a random number
+     * generator.
+     */
+    private static final MethodHandle GENERATE = method("Generator", "generate", Integer.class,
+            Integer.class, Integer.class, Double.class, Double.class, Integer.class, Integer.class,
+            Integer.class, Integer.class, Random.class);
+
+    /**
+     * The static <code>Sweep.createAlgorithm</code>.
+     */
+    private static final MethodHandle CREATE_ALGORITHM = method("Sweep", "createAlgorithm", String.class,
+            Double.class);
+
+    /**
+     * The constructor <code>Machine(Integer, Algorithm, Set, Long)</code>.
+     */
+    private static final MethodHandle NEW_MACHINE = constructor("Machine", Integer.class, type("Algorithm"),
+            Set.class, Long.class);
+
+    /**
+     * The constructor <code>Process(Integer, Double, Integer)</code>.
+     */
+    static final MethodHandle NEW_PROCESS = constructor("Process", Integer.class, Double.class, Integer.class);
+
+    /**
+     * The seed of every workload and machine.
+     */
+    static final long SEED = 2018L;
+
+    /**
+     * Class constructor.
+     */
+    private Simulator() {
+    }
+
+    /**
+     * A static method which loads a class of the simulator.
+     *
+     * @param name the name of the class
+     * @return the class
+     */
+    static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A static method which returns a public method of a class of the
+     * simulator, adapted to take and return <code>Object</code>s. The
+     * receiver of an instance method is its first parameter.
+     *
+     * @param className the name of the class
+     * @param name the name of the method
+     * @param parameterTypes the types of the parameters of the method
+     * @return the method handle
+     */
+    static MethodHandle method(String className, String name, Class<?>... parameterTypes) {
+        try {
+            Method method = type(className).getMethod(name, parameterTypes);
+            return generic(MethodHandles.publicLookup().unreflect(method));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A static method which returns a public constructor of a class of the
+     * simulator, adapted to take <code>Object</code>s and return the new
+     * instance as an <code>Object</code>.
+     *
+     * @param className the name of the class
+     * @param parameterTypes the types of the parameters of the constructor
+     * @return the method handle
+     */
+    static MethodHandle constructor(String className, Class<?>... parameterTypes) {
+        try {
+            Constructor<?> constructor = type(className).getConstructor(parameterTypes);
+            return generic(MethodHandles.publicLookup().unreflectConstructor(constructor));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A static method which implements a functional interface of the
+     * simulator with a static method, the same way a lambda expression does,
+     * so calls through the interface cost no more than in the simulator.
+     *
+     * @param lookup the lookup of the class declaring the method
+     * @param interfaceName the name of the functional interface
+     * @param implementation the static method, whose parameters may be
+     *                       <code>Object</code>s where the interface takes
+     *                       classes of the simulator
+     * @return an instance of the interface
+     */
+    static Object implement(MethodHandles.Lookup lookup, String interfaceName, MethodHandle implementation) {
+        Class<?> type = type(interfaceName);
+        Method abstractMethod = null;
+        for(Method method : type.getMethods()) {
+            if(java.lang.reflect.Modifier.isAbstract(method.getModifiers())) {
+                abstractMethod = method;
+            }
+        }
+        if(abstractMethod == null) {
+            throw new IllegalArgumentException("Not a functional interface: " + interfaceName);
+        }
+        MethodType methodType = MethodType.methodType(abstractMethod.getReturnType(),
+                abstractMethod.getParameterTypes());
+        try {
+            CallSite site = LambdaMetafactory.metafactory(lookup, abstractMethod.getName(),
+                    MethodType.methodType(type), methodType, implementation, methodType);
+            return site.getTarget().invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A static method which generates schedule queues of processes with a
+     * usage between 0.03 and 0.1 and a burst time between 10 and 20 cycles.
+     *
+     * @param CPUCount amount of schedule queues
+     * @param minLength the minimum length of a queue
+     * @param maxLength the maximum length of a queue
+     * @param maxDelay the maximum delay of a schedule
+     * @return the set of schedule queues
+     * @throws Throwable If the generator throws
+     */
+    static Set<?> generate(int CPUCount, int minLength, int maxLength, int maxDelay) throws Throwable {
+        Object schedules = (Object) GENERATE.invokeExact((Object) CPUCount, (Object) minLength,
+                (Object) maxLength, (Object) 0.03, (Object) 0.1, (Object) 0, (Object) maxDelay, (Object) 10,
+                (Object) 20, (Object) new Random(SEED));
+        return (Set<?>) schedules;
+    }
+
+    /**
+     * A static method which creates a machine running the schedules.
+     *
+     * @param CPUCount amount of CPUs
+     * @param algorithm the name of the algorithm, see
+     *                  <code>Sweep.createAlgorithm</code>
+     * @param schedules schedule queues generated by {@link #generate}
+     * @return a new machine
+     * @throws Throwable If the simulator throws
+     */
+    static Object createMachine(int CPUCount, String algorithm, Set<?> schedules) throws Throwable {
+        Object instance = (Object) CREATE_ALGORITHM.invokeExact((Object) algorithm, (Object) 0.6);
+        return (Object) NEW_MACHINE.invokeExact((Object) CPUCount, instance, (Object) schedules, (Object) SEED);
+    }
+
+    /**
+     * A static method which creates a process.
+     *
+     * @param PID the identifier of the process
+     * @param usage the usage of the process
+     * @param burstTime the burst time of the process
+     * @return a new process
+     * @throws Throwable If the simulator throws
+     */
+    static Object createProcess(int PID, double usage, int burstTime) throws Throwable {
+        return (Object) NEW_PROCESS.invokeExact((Object) PID, (Object) usage, (Object) burstTime);
+    }
+
+    /**
+     * A static method which adapts a method handle to take and return
+     * <code>Object</code>s.
+     *
+     * @param handle the method handle
+     * @return the adapted method handle
+     */
+    private static MethodHandle generic(MethodHandle handle) {
+        return handle.asType(MethodType.genericMethodType(handle.type().parameterCount()));
+    }
+}
@@ -1,3 +1,5 @@
+import java.util.Collection;
+
 /**
  * An abstract class used by {@link Machine}s for balancing the load on
  * {@link CPU}s installed in them.
@@ -16,4 +18,76 @@ public abstract class Algorithm {
         master.addProcess(process);
         return true;
     }
-}
\ No newline at end of file
+
+    /**
+     * Handles processes which arrived on the specified CPU together, in their
+     * order, until one of them can't be handled. The processes after it
+     * aren't handled either, so they keep waiting in their order. An
+     * algorithm probing other CPUs may share the probes among the processes.
+     * <p>By default the method handles every process with
+     * {@link #handleProcess(CPU, Process)}.
+     *
+     * @param master CPU on which we perform this action
+     * @param processes processes to handle, which mustn't be modified
+     * @return the amount of leading processes which have been handled
+     */
+    public int handleProcesses(CPU master, Collection<Process> processes) {
+        int handled = 0;
+        for(Process process : processes) {
+            if(!handleProcess(master, process)) {
+                return handled;
+            }
+            handled++;
+        }
+        return handled;
+    }
+
+    /**
+     * Notifies the algorithm that some processes running on the specified CPU
+     * have completed, before its ready queue is dispatched. Called in the
+     * sequential phase of a cycle, so it may touch other CPUs.
+     * <p>By default the method does nothing.
+     *
+     * @param master CPU whose processes have completed
+     */
+    public void handleCompletion(CPU master) {
+    }
+
+    /**
+     * Checks whether the algorithm has to run a step in every cycle, see
+     * {@link #handleCycle(Machine)}. If it does, the machine doesn't skip
+     * cycles in an event driven simulation.
+     * <p>By default the method returns <code>false</code>.
+     *
+     * @return <code>true</code> if the algorithm runs a step in every cycle;
+     *         <code>false</code> otherwise.
+     */
+    public boolean handlesCycles() {
+        return false;
+    }
+
+    /**
+     * Runs a step of the algorithm at the end of a cycle, after the ready
+     * queues have been dispatched. Called only if {@link #handlesCycles()}
+     * returns <code>true</code>.
+     * <p>By default the method does nothing.
+     *
+     * @param machine machine in which the cycle has been made
+     */
+    public void handleCycle(Machine machine) {
+    }
+
+    /**
+     * Checks whether the algorithm may handle processes of different CPUs at
+     * the same time, so the machine can be simulated concurrently, see
+     * {@link Machine#runConcurrent()}. A thread-safe algorithm keeps no
+     * mutable state of its own, uses no load index and doesn't handle cycles.
+     * <p>By default the method returns <code>false</code>.
+     *
+     * @return <code>true</code> if the algorithm is thread-safe;
+     *         <code>false</code> otherwise.
+     */
+    public boolean isThreadSafe() {
+        return false;
+    }
+}
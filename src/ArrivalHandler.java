@@ -0,0 +1,14 @@
+/**
+ * A receiver of the processes assigned by a {@link Scheduler}.
+ *
+ * @see Scheduler#dispatchArrivals(ArrivalHandler)
+ */
+public interface ArrivalHandler {
+    /**
+     * Receives a process assigned to a CPU in the current cycle.
+     *
+     * @param CPUIndex the identifier of the CPU the process is assigned to
+     * @param process the assigned process
+     */
+    void handleArrival(int CPUIndex, Process process);
+}
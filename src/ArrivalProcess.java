@@ -0,0 +1,114 @@
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * A model of the arrivals of new processes on a single {@link CPU}, producing
+ * the delays of consecutive {@link Schedule}s.
+ * <p>An arrival process may keep its own state, such as the current time or
+ * whether a source is on, so every CPU uses its own instance. The factories
+ * therefore return suppliers of new instances.
+ */
+public interface ArrivalProcess {
+    /**
+     * Returns the delay of the next arrival after the previous one.
+     *
+     * @param random a random number generator
+     * @return the delay in CPU cycles
+     */
+    int nextDelay(Random random);
+
+    /**
+     * Delays drawn uniformly from a range, the same as the ones of
+     * {@link Generator#generate}.
+     *
+     * @param minDelay the minimum delay, inclusive
+     * @param maxDelay the maximum delay, exclusive unless it equals the minimum
+     * @return a supplier of new arrival processes
+     */
+    static Supplier<ArrivalProcess> uniform(int minDelay, int maxDelay) {
+        if(maxDelay < minDelay) {
+            throw new IllegalArgumentException();
+        }
+        return () -> random -> minDelay + (maxDelay > minDelay ? random.nextInt(maxDelay - minDelay) : 0);
+    }
+
+    /**
+     * Poisson arrivals with a constant rate. More than one process may arrive
+     * in a single cycle.
+     *
+     * @param rate the mean amount of arrivals per cycle
+     * @return a supplier of new arrival processes
+     */
+    static Supplier<ArrivalProcess> poisson(double rate) {
+        return diurnal(rate, 0, 1);
+    }
+
+    /**
+     * Poisson arrivals with a rate following a daily curve, that is
+     * <i>rate</i> (1 + <i>amplitude</i> sin(2 pi <i>t</i> / <i>period</i>)).
+     * Generated by thinning arrivals of the peak rate.
+     *
+     * @param rate the mean amount of arrivals per cycle
+     * @param amplitude the relative amplitude of the curve, between 0 and 1
+     * @param period the length of a day in cycles
+     * @return a supplier of new arrival processes
+     */
+    static Supplier<ArrivalProcess> diurnal(double rate, double amplitude, int period) {
+        if(rate <= 0 || amplitude < 0 || amplitude > 1 || period <= 0) {
+            throw new IllegalArgumentException();
+        }
+        double peakRate = rate * (1 + amplitude);
+        return () -> new ArrivalProcess() {
+            private double time = 0;
+            private long cycle = 0;
+
+            @Override
+            public int nextDelay(Random random) {
+                do {
+                    time += -Math.log(1 - random.nextDouble()) / peakRate;
+                } while(random.nextDouble() * peakRate > rate * (1 + amplitude * Math.sin(2 * Math.PI * time / period)));
+                long previousCycle = cycle;
+                cycle = (long) time;
+                return (int) (cycle - previousCycle);
+            }
+        };
+    }
+
+    /**
+     * A bursty source, which alternates between exponentially long on and off
+     * periods. Processes arrive as a Poisson process while the source is on
+     * and don't arrive at all while it's off.
+     *
+     * @param rate the mean amount of arrivals per cycle while the source is on
+     * @param meanOn the mean length of an on period in cycles
+     * @param meanOff the mean length of an off period in cycles
+     * @return a supplier of new arrival processes
+     */
+    static Supplier<ArrivalProcess> onOff(double rate, double meanOn, double meanOff) {
+        if(rate <= 0 || meanOn <= 0 || meanOff <= 0) {
+            throw new IllegalArgumentException();
+        }
+        return () -> new ArrivalProcess() {
+            private double time = 0;
+            private double onEnd = Double.NaN;
+            private long cycle = 0;
+
+            @Override
+            public int nextDelay(Random random) {
+                if(Double.isNaN(onEnd)) {
+                    onEnd = -meanOn * Math.log(1 - random.nextDouble());
+                }
+                time += -Math.log(1 - random.nextDouble()) / rate;
+                while(time > onEnd) {
+                    // the arrival falls after the on period, it is moved past the following off period
+                    double offLength = -meanOff * Math.log(1 - random.nextDouble());
+                    time = onEnd + offLength - Math.log(1 - random.nextDouble()) / rate;
+                    onEnd += offLength - meanOn * Math.log(1 - random.nextDouble());
+                }
+                long previousCycle = cycle;
+                cycle = (long) time;
+                return (int) (cycle - previousCycle);
+            }
+        };
+    }
+}
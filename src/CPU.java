@@ -1,6 +1,10 @@
 
 
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.IntConsumer;
 
 /**
  * Representation of a central processing unit, which executes processes
@@ -23,24 +27,81 @@ public class CPU {
     private Integer ID;
 
     /**
-     * The set of currently running processes.
+     * The storage of the running processes and the ready processes waiting
+     * to be dispatched.
      */
-    private Set<Process> processSet;
+    private ProcessStorage storage;
 
     /**
-     * The set of ready processes waiting to be dispatched.
+     * The number of fixed-point usage units equal to a usage of 1. Usage is
+     * accounted in whole units so that adding and removing the same process
+     * always cancels out exactly, no matter how many cycles have passed.
      */
-    private Queue<Process> awaitingProcesses;
+    static final long USAGE_UNIT = 1L << 32;
 
     /**
-     * The sum of every CPU usage calculated every cycle.
+     * The current usage of all running processes in fixed-point units. In the
+     * concurrent simulation it's a budget which other CPUs' threads reserve
+     * with a compare-and-set before a process is handed over.
+     *
+     * @see #USAGE_UNIT
+     * @see Machine#runConcurrent()
+     */
+    private volatile long usage;
+
+    /**
+     * The updater of {@link #usage}.
+     */
+    private static final AtomicLongFieldUpdater<CPU> USAGE = AtomicLongFieldUpdater.newUpdater(CPU.class, "usage");
+
+    /**
+     * The processes admitted by any thread whose usage has been reserved but
+     * which haven't been moved to the storage by this CPU's thread yet, or
+     * <code>null</code> if the simulation isn't concurrent.
+     */
+    private Queue<Process> admitted;
+
+    /**
+     * The processes which didn't fit when they were added by any thread and
+     * haven't been moved to the ready queue by this CPU's thread yet, or
+     * <code>null</code> if the simulation isn't concurrent.
      */
-    private Double totalUsage;
+    private Queue<Process> rejected;
+
+    /**
+     * The whole part of the sum of the usages of every cycle. The sum is
+     * split into a whole and a fractional part, so it stays exact without
+     * overflowing however many cycles pass.
+     */
+    private long totalUsage;
+
+    /**
+     * The fractional part of the sum of the usages of every cycle, in
+     * fixed-point units below {@link #USAGE_UNIT}.
+     */
+    private long totalUsageFraction;
+
+    /**
+     * The usage in fixed-point units with which the last cycle has been
+     * executed, which has been added to the total usage.
+     */
+    private long executedUsage;
 
     /**
      * The amount of cycles passed.
      */
-    private Integer cycleCount;
+    private long cycleCount;
+
+    /**
+     * The latencies of the processes completed on this CPU.
+     */
+    private LatencyRecorder latencies;
+
+    /**
+     * Whether a process has finished in the last cycle, so the ready queue
+     * has to be dispatched.
+     */
+    private boolean freedSpace;
 
     /**
      * Class constructor.
@@ -51,15 +112,31 @@ public class CPU {
      * @param ID CPU's identifier.
      */
     public CPU(Machine master, Algorithm algorithm, Integer ID) {
-        if(master == null || algorithm == null || ID == null) {
+        this(master, algorithm, ID, new ObjectProcessStorage());
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param master The {@link Machine} in which this CPU is located.
+     * @param algorithm The {@link Algorithm} being used by this CPU to
+     *                  balance the load.
+     * @param ID CPU's identifier.
+     * @param storage An empty storage for this CPU's processes.
+     */
+    public CPU(Machine master, Algorithm algorithm, Integer ID, ProcessStorage storage) {
+        if(master == null || algorithm == null || ID == null || storage == null) {
             throw new IllegalArgumentException();
         }
         this.master = master;
         this.algorithm = algorithm;
         this.ID = ID;
-        processSet = new HashSet<>();
-        awaitingProcesses = new LinkedList<>();
-        totalUsage = 0d;
+        this.storage = storage;
+        latencies = new LatencyRecorder();
+        usage = 0;
+        totalUsage = 0;
+        totalUsageFraction = 0;
+        executedUsage = 0;
         cycleCount = 0;
     }
 
@@ -70,11 +147,128 @@ public class CPU {
      * @param process the process to be added
      */
     public void addProcess(Process process) {
-        if(getUsage() + process.getUsage() <= 1) {
-            processSet.add(process);
+        if(admitted != null) {
+            admitConcurrently(process);
+            return;
+        }
+        if(fits(process)) {
+            dispatch(process);
             return;
         }
-        awaitingProcesses.add(process);
+        storage.addAwaiting(process);
+    }
+
+    /**
+     * Reserves the usage of the process with a compare-and-set, retried until
+     * it succeeds or the process doesn't fit anymore, and hands the process
+     * over to this CPU's thread. May be called by any thread.
+     *
+     * @param process the process to be added
+     */
+    private void admitConcurrently(Process process) {
+        long processUsage = toUnits(process.getUsage());
+        int retries = 0;
+        long current = usage;
+        while(processUsage >= 0 && current + processUsage <= USAGE_UNIT) {
+            if(USAGE.compareAndSet(this, current, current + processUsage)) {
+                admitted.add(process);
+                master.countAdmission(retries, true);
+                return;
+            }
+            retries++;
+            current = usage;
+        }
+        rejected.add(process);
+        master.countAdmission(retries, false);
+    }
+
+    /**
+     * Moves the processes handed over by other threads to the storage. The
+     * admitted processes are dispatched in the current cycle, their usage is
+     * already accounted.
+     */
+    private void takeHandedOverProcesses() {
+        Process process;
+        while((process = admitted.poll()) != null) {
+            process.markDispatched(cycleCount);
+            storage.addRunning(process, cycleCount);
+        }
+        while((process = rejected.poll()) != null) {
+            storage.addAwaiting(process);
+        }
+    }
+
+    /**
+     * Switches this CPU to the concurrent simulation, in which processes may
+     * be added by any thread, or back.
+     *
+     * @param concurrent whether the simulation is concurrent
+     * @see Machine#runConcurrent()
+     */
+    void setConcurrent(boolean concurrent) {
+        if(concurrent) {
+            admitted = new ConcurrentLinkedQueue<>();
+            rejected = new ConcurrentLinkedQueue<>();
+        }
+        else {
+            takeHandedOverProcesses();
+            admitted = null;
+            rejected = null;
+        }
+    }
+
+    /**
+     * Changes the usage of the running processes. Atomic in the concurrent
+     * simulation, where other threads reserve usage at the same time.
+     *
+     * @param delta the change in fixed-point units
+     */
+    private void addUsage(long delta) {
+        if(admitted != null) {
+            USAGE.getAndAdd(this, delta);
+        }
+        else {
+            // only this thread writes the usage, an ordered store is enough
+            USAGE.lazySet(this, usage + delta);
+        }
+    }
+
+    /**
+     * Checks whether there's enough resources available to run the process.
+     *
+     * @param process the process to be checked
+     * @return <code>true</code> if the process fits on this CPU;
+     *         <code>false</code> otherwise.
+     */
+    private boolean fits(Process process) {
+        return fits(toUnits(process.getUsage()));
+    }
+
+    /**
+     * Checks whether there's enough resources available to run a process with
+     * the specified usage.
+     *
+     * @param processUsage the usage of a process in fixed-point units
+     * @return <code>true</code> if the process fits on this CPU;
+     *         <code>false</code> otherwise.
+     */
+    private boolean fits(long processUsage) {
+        return processUsage >= 0 && usage + processUsage <= USAGE_UNIT;
+    }
+
+    /**
+     * Moves the process to the set of running processes and accounts for its
+     * usage.
+     *
+     * @param process the process to be run
+     */
+    private void dispatch(Process process) {
+        process.markDispatched(cycleCount);
+        storage.addRunning(process, cycleCount);
+        addUsage(toUnits(process.getUsage()));
+        master.scheduleCompletion(cycleCount + process.getBurstTime() - 1);
+        master.updateLoad(this);
+        assert usageConsistent();
     }
 
     /**
@@ -92,11 +286,17 @@ public class CPU {
     /**
      * Dispatches all processes in the ready queue for which there are enough
      * resources available.
+     *
+     * @return the amount of processes handed to the algorithm
      */
-    private void addAwaitingProcesses() {
-        while(awaitingProcesses.peek() != null && getUsage() + awaitingProcesses.peek().getUsage() <= 1) {
-            algorithm.handleProcess(this, awaitingProcesses.poll());
+    private int addAwaitingProcesses() {
+        int dispatched = 0;
+        Process process;
+        while((process = storage.pollAwaiting(USAGE_UNIT - usage, cycleCount)) != null) {
+            algorithm.handleProcess(this, process);
+            dispatched++;
         }
+        return dispatched;
     }
 
     /**
@@ -105,11 +305,50 @@ public class CPU {
      * @return this CPU's usage
      */
     public Double getUsage() {
-        Double totalUsage = 0d;
-        for(Process process : processSet) {
-            totalUsage += process.getUsage();
-        }
-        return totalUsage;
+        return (double) usage / USAGE_UNIT;
+    }
+
+    /**
+     * Returns this CPU's usage in fixed-point units.
+     *
+     * @return this CPU's usage in fixed-point units
+     * @see #USAGE_UNIT
+     */
+    long getUsageUnits() {
+        return usage;
+    }
+
+    /**
+     * Returns the length of this CPU's ready queue.
+     *
+     * @return the amount of processes awaiting admission
+     */
+    int getAwaitingCount() {
+        return storage.getAwaitingCount();
+    }
+
+    /**
+     * Converts a usage to fixed-point usage units.
+     *
+     * @param usage a number between 0 and 1 specifying the usage
+     * @return the usage in fixed-point units
+     * @see #USAGE_UNIT
+     */
+    static long toUnits(Double usage) {
+        return Math.round(usage * USAGE_UNIT);
+    }
+
+    /**
+     * A debug check comparing the running usage total against a full
+     * recomputation over all running processes. Used in assertions, so it only
+     * runs when the JVM is started with <code>-ea</code>.
+     *
+     * @return <code>true</code> if the running total is exact;
+     *         <code>false</code> otherwise.
+     */
+    private boolean usageConsistent() {
+        // in the concurrent simulation other threads reserve usage ahead of the storage
+        return admitted != null || storage.getRunningUsage() == usage;
     }
 
     /**
@@ -123,37 +362,149 @@ public class CPU {
         return algorithm.handleProcess(this, process);
     }
 
+    /**
+     * Sends processes which arrived on this CPU together through the
+     * algorithm, in their order, until one of them can't be sent.
+     *
+     * @param processes the processes to be sent
+     * @return the amount of leading processes which have been sent
+     * @see Algorithm#handleProcesses(CPU, Collection)
+     */
+    public int sendProcesses(Collection<Process> processes) {
+        return algorithm.handleProcesses(this, processes);
+    }
+
     /**
      * Makes one CPU cycle. Calculated the usage and executes all running
      * processes once.
      *
-     * @see #burstProcesses()
+     * @see #executeCycle()
+     * @see #admitAwaitingProcesses()
      */
     public void makeCycle() {
+        executeCycle();
+        master.updateLoad(this);
+        admitAwaitingProcesses();
+    }
+
+    /**
+     * The first part of a CPU cycle. Calculates the usage and executes all
+     * running processes once. Touches only this CPU, so it's safe to call
+     * it for different CPUs in parallel. The usage freed by completed
+     * processes isn't reported to the machine's {@link LoadIndex}, the
+     * machine updates it after the phase.
+     *
+     * @see #burstProcesses()
+     */
+    void executeCycle() {
+        if(admitted != null) {
+            takeHandedOverProcesses();
+        }
         cycleCount++;
-        totalUsage += getUsage();
+        addTotalUsage(1);
         burstProcesses();
     }
 
     /**
-     * Attempts to burst all running processes by executing them once. Uses this
-     * CPU's algorithm's step method if it's defined. Dispatches processes in the
-     * ready queue.
+     * Checks whether a process has finished or been taken away since the
+     * ready queue was last dispatched, which is the only way the usage
+     * drops.
+     *
+     * @return <code>true</code> if space has been freed;
+     *         <code>false</code> otherwise.
+     */
+    boolean hasFreedSpace() {
+        return freedSpace;
+    }
+
+    /**
+     * The second part of a CPU cycle. Notifies the algorithm and dispatches
+     * the processes in the ready queue if any process has finished in the last
+     * cycle. Uses this CPU's algorithm, which may touch other CPUs.
      *
+     * @return the amount of processes from the ready queue handed to the
+     *         algorithm, which are placed again
      * @see #addAwaitingProcesses()
      */
-    private void burstProcesses() {
-        boolean freedSpace = false;
-        Iterator<Process> iter = processSet.iterator();
-        while(iter.hasNext()) {
-            if(iter.next().execute()) {
-                iter.remove();
-                freedSpace = true;
-            }
-        }
+    int admitAwaitingProcesses() {
         if(freedSpace) {
-            addAwaitingProcesses();
+            freedSpace = false;
+            algorithm.handleCompletion(this);
+            return addAwaitingProcesses();
+        }
+        return 0;
+    }
+
+    /**
+     * Skips the specified amount of cycles in which no process completes.
+     * Calculates the usage of every skipped cycle.
+     *
+     * @param cycles the amount of cycles to skip
+     * @see Machine#runEventDriven()
+     */
+    void skipCycles(Integer cycles) {
+        cycleCount += cycles;
+        addTotalUsage(cycles);
+        storage.skip(cycles);
+    }
+
+    /**
+     * Adds the current usage of the specified amount of cycles to the total
+     * usage. The whole and the fractional part of the usage are multiplied
+     * separately, so no product overflows.
+     *
+     * @param cycles the amount of cycles
+     */
+    private void addTotalUsage(int cycles) {
+        // read once, other threads reserve usage in the concurrent simulation
+        long usage = this.usage;
+        long fraction = totalUsageFraction + (usage & (USAGE_UNIT - 1)) * cycles;
+        totalUsage += (usage / USAGE_UNIT) * cycles + fraction / USAGE_UNIT;
+        totalUsageFraction = fraction & (USAGE_UNIT - 1);
+        executedUsage = usage;
+    }
+
+    /**
+     * Returns the usage with which this CPU has executed its last cycle, the
+     * one added to its average usage. It differs from the current usage once
+     * processes have completed or been admitted.
+     *
+     * @return the usage of the last executed cycle in fixed-point units
+     * @see #getAverageUsage()
+     */
+    long getExecutedUsageUnits() {
+        return executedUsage;
+    }
+
+    /**
+     * Executes all running processes once and removes the ones completing
+     * in the current cycle.
+     */
+    private void burstProcesses() {
+        int runningCount = storage.getRunningCount();
+        addUsage(-storage.expire(cycleCount - 1, latencies));
+        if(storage.getRunningCount() < runningCount) {
+            freedSpace = true;
         }
+        assert usageConsistent();
+    }
+
+    /**
+     * Returns the latencies of the processes completed on this CPU.
+     *
+     * @return the latency recorder of this CPU
+     */
+    public LatencyRecorder getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Returns this CPU's identifier, which is also its index in the machine.
+     *
+     * @return this CPU's identifier
+     */
+    public Integer getID() {
+        return ID;
     }
 
     /**
@@ -171,17 +522,19 @@ public class CPU {
      * @return average usage
      */
     public Double getAverageUsage() {
-        return totalUsage / cycleCount;
+        return (totalUsage + (double) totalUsageFraction / USAGE_UNIT) / cycleCount;
     }
 
     /**
      * A static method which selects a random CPU in the specified set.
+     * <p>This walks the set linearly, {@link Machine#sampleCPUs(CPU)} should
+     * be used for drawing CPUs of a machine.
      *
      * @param set a set from which the random CPU is selected
      * @return a random CPU in the {@code set}
      */
     public static CPU randomCPU(Set<CPU> set) {
-        int item = new Random().nextInt(set.size());
+        int item = ThreadLocalRandom.current().nextInt(set.size());
         int i = 0;
         for(CPU cpu : set) {
             if (i == item) {
@@ -193,22 +546,42 @@ public class CPU {
     }
 
     /**
-     * Shares a specified portion of all processes in this CPU.
+     * Shares a specified portion of all processes in this CPU. The shared
+     * processes are drawn in a single pass over the processes' identifiers,
+     * keeping the <i>k</i> processes with the lowest random keys, and removed
+     * from this CPU. A key is a hash of the identifier and a seed drawn for
+     * the call, so the drawn processes don't depend on the order in which the
+     * storage keeps them. The shared running processes keep their remaining
+     * burst time.
      *
      * @param portion a number between 0 and 1 specifying the portion of all
      *                processes in this CPU to be shared
-     * @return set of all shared processes
+     * @return the removed processes in the order of their identifiers
      */
-    public Set<Process> getProcessPortion(Double portion) {
-        Set<Process> set = new HashSet<>();
-        set.addAll(Collections.unmodifiableSet(processSet));
-        set.addAll(Collections.unmodifiableSet(new HashSet<>(awaitingProcesses)));
-        List<Process> list = new LinkedList<>(set);
-        Collections.shuffle(list);
-        Set<Process> randomSet = new HashSet<>(list.subList(0, Double.valueOf(list.size() * portion).intValue()));
-        processSet.removeAll(randomSet);
-        awaitingProcesses.removeAll(randomSet);
-        return set;
+    public List<Process> getProcessPortion(Double portion) {
+        if(portion == null || portion < 0 || portion > 1) {
+            throw new IllegalArgumentException();
+        }
+        int count = (int) ((storage.getRunningCount() + storage.getAwaitingCount()) * portion);
+        if(count == 0) {
+            return new ArrayList<>();
+        }
+
+        PortionSampler sampler = new PortionSampler(count, master.getRandom().nextLong());
+        storage.forEachPID(sampler);
+        int[] PIDs = sampler.PIDs;
+        Arrays.sort(PIDs);
+
+        List<Process> removed = new ArrayList<>(count);
+        int runningCount = storage.getRunningCount();
+        addUsage(-storage.removeAll(PIDs, count, removed));
+        removed.sort(Comparator.comparingInt(Process::getPID));
+        if(storage.getRunningCount() < runningCount) {
+            freedSpace = true;
+        }
+        master.updateLoad(this);
+        assert usageConsistent();
+        return removed;
     }
 
     /**
@@ -233,4 +606,98 @@ public class CPU {
     public int hashCode() {
         return ID.hashCode();
     }
+
+    /**
+     * Keeps the identifiers of the processes with the lowest keys among the
+     * ones passed to it, in a max-heap of the keys.
+     *
+     * @see #getProcessPortion(Double)
+     */
+    private static final class PortionSampler implements IntConsumer {
+        /**
+         * The seed of the keys.
+         */
+        private final long seed;
+
+        /**
+         * The keys of the kept processes, a max-heap.
+         */
+        private final long[] keys;
+
+        /**
+         * The identifiers of the kept processes, in the order of their keys.
+         */
+        final int[] PIDs;
+
+        /**
+         * The amount of kept processes.
+         */
+        private int size;
+
+        /**
+         * Class constructor.
+         *
+         * @param count the amount of processes to be kept
+         * @param seed the seed of the keys
+         */
+        PortionSampler(int count, long seed) {
+            this.seed = seed;
+            keys = new long[count];
+            PIDs = new int[count];
+        }
+
+        /**
+         * Offers a process, which is kept if its key is among the lowest.
+         *
+         * @param PID the identifier of the process
+         */
+        @Override
+        public void accept(int PID) {
+            long key = key(PID);
+            if(size < keys.length) {
+                int i = size++;
+                // sift up
+                while(i > 0 && keys[(i - 1) / 2] < key) {
+                    keys[i] = keys[(i - 1) / 2];
+                    PIDs[i] = PIDs[(i - 1) / 2];
+                    i = (i - 1) / 2;
+                }
+                keys[i] = key;
+                PIDs[i] = PID;
+            }
+            else if(key < keys[0]) {
+                int i = 0;
+                // sift down
+                while(2 * i + 1 < size) {
+                    int child = 2 * i + 1;
+                    if(child + 1 < size && keys[child + 1] > keys[child]) {
+                        child++;
+                    }
+                    if(keys[child] <= key) {
+                        break;
+                    }
+                    keys[i] = keys[child];
+                    PIDs[i] = PIDs[child];
+                    i = child;
+                }
+                keys[i] = key;
+                PIDs[i] = PID;
+            }
+        }
+
+        /**
+         * Returns the key of a process, a hash of its identifier and the
+         * seed. Distinct identifiers have distinct keys.
+         *
+         * @param PID the identifier of the process
+         * @return the key
+         */
+        private long key(int PID) {
+            // the finalizer of SplittableRandom, a bijection
+            long z = seed + PID * 0x9E3779B97F4A7C15L;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+import java.util.Random;
+
+/**
+ * Draws {@link CPU}s of a {@link Machine} at random without replacement.
+ * <p>The sampler performs a partial Fisher-Yates shuffle over an index buffer
+ * which is allocated once and reused by every following draw sequence, so
+ * each draw costs O(1) and allocates nothing. The buffer always holds a
+ * permutation of all CPU indices, which is a valid starting point for the
+ * next shuffle, so it never has to be reset.
+ * <p>A sampler isn't thread-safe, {@link Machine#sampleCPUs(CPU)} hands out
+ * one per thread.
+ */
+public final class CPUSampler {
+    /**
+     * The CPUs to draw from, indexed by their identifiers.
+     */
+    private final CPU[] CPUs;
+
+    /**
+     * A random number generator used for drawing.
+     */
+    private final Random random;
+
+    /**
+     * A permutation of all CPU indices. The first {@link #drawn} entries are
+     * the CPUs drawn in the current sequence.
+     */
+    private final int[] indices;
+
+    /**
+     * The amount of CPUs drawn in the current sequence.
+     */
+    private int drawn;
+
+    /**
+     * A CPU which is skipped in the current sequence, may be <code>null</code>.
+     */
+    private CPU excluded;
+
+    /**
+     * Whether the excluded CPU hasn't been skipped yet.
+     */
+    private boolean excludedPending;
+
+    /**
+     * Class constructor.
+     *
+     * @param CPUs the CPUs to draw from, indexed by their identifiers
+     * @param random a random number generator used for drawing
+     */
+    CPUSampler(CPU[] CPUs, Random random) {
+        if(CPUs == null || random == null) {
+            throw new IllegalArgumentException();
+        }
+        this.CPUs = CPUs;
+        this.random = random;
+        indices = new int[CPUs.length];
+        for(int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+    }
+
+    /**
+     * Starts a new draw sequence in which every CPU but the excluded one can
+     * be drawn exactly once.
+     *
+     * @param excluded a CPU which is never drawn, may be <code>null</code>
+     * @return this sampler
+     */
+    CPUSampler reset(CPU excluded) {
+        drawn = 0;
+        this.excluded = excluded;
+        excludedPending = excluded != null;
+        return this;
+    }
+
+    /**
+     * Checks whether there are CPUs left to draw in the current sequence.
+     *
+     * @return <code>true</code> if there is at least one CPU left;
+     *         <code>false</code> otherwise.
+     */
+    public boolean hasNext() {
+        return drawn + (excludedPending ? 1 : 0) < indices.length;
+    }
+
+    /**
+     * Draws a random CPU which hasn't been drawn in the current sequence yet.
+     *
+     * @return a random CPU
+     * @throws IllegalStateException If there are no CPUs left to draw
+     */
+    public CPU next() {
+        while(hasNext()) {
+            int i = drawn + random.nextInt(indices.length - drawn);
+            int index = indices[i];
+            indices[i] = indices[drawn];
+            indices[drawn++] = index;
+            if(CPUs[index] == excluded) {
+                excludedPending = false;
+                continue;
+            }
+            return CPUs[index];
+        }
+        throw new IllegalStateException();
+    }
+}
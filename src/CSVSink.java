@@ -0,0 +1,136 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link ResultSink} writing a header line with the names of the fields and
+ * a line of comma separated values for every record, as described by
+ * RFC 4180. A value holding a comma or a quote is quoted, numbers which aren't
+ * finite are left empty.
+ */
+public class CSVSink extends ResultSink {
+    /**
+     * The names of the fields, or <code>null</code> if the header hasn't been
+     * written yet.
+     */
+    private List<String> columns;
+
+    /**
+     * Class constructor. Opens the file, creating it if it doesn't exist, and
+     * reads the keys of the records in it. A last line without a line break
+     * is cut off, as the end of its last value may be missing.
+     *
+     * @param path the path of the file
+     * @throws IOException If the file can't be opened or read, the header has
+     *                     no key or a line doesn't match the header
+     */
+    public CSVSink(Path path) throws IOException {
+        super(path);
+        resumeLines(line -> {
+            List<String> values = parseLine(line);
+            if(columns == null) {
+                if(values == null || !values.contains(KEY)) {
+                    throw notAResultFile();
+                }
+                columns = values;
+                return;
+            }
+            if(values == null || values.size() != columns.size()) {
+                throw notAResultFile();
+            }
+            completedKeys.add(values.get(columns.indexOf(KEY)));
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void append(Map<String, ?> record) throws IOException {
+        List<String> fields = new ArrayList<>(record.keySet());
+        if(columns != null && !columns.equals(fields)) {
+            throw new IllegalArgumentException("The fields of the record differ from the columns of " + path);
+        }
+        StringBuilder line = new StringBuilder();
+        if(columns == null) {
+            for(String field : fields) {
+                appendValue(line, field);
+            }
+            line.setCharAt(line.length() - 1, '\n');
+        }
+        for(Object value : record.values()) {
+            appendValue(line, value);
+        }
+        line.setCharAt(line.length() - 1, '\n');
+        put(line.toString().getBytes(StandardCharsets.UTF_8));
+        columns = fields;
+    }
+
+    /**
+     * A static method which appends a value followed by a comma to a line.
+     *
+     * @param line the line being built
+     * @param value the value to be appended
+     */
+    private static void appendValue(StringBuilder line, Object value) {
+        String text = value instanceof Number ? formatNumber((Number) value) : value != null ? value.toString() : null;
+        if(text != null) {
+            if(text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                throw new IllegalArgumentException("A value contains a line break");
+            }
+            if(text.indexOf(',') >= 0 || text.indexOf('"') >= 0) {
+                line.append('"').append(text.replace("\"", "\"\"")).append('"');
+            }
+            else {
+                line.append(text);
+            }
+        }
+        line.append(',');
+    }
+
+    /**
+     * A static method which splits a line into its values.
+     *
+     * @param line the line without its line break
+     * @return the unquoted values, or <code>null</code> if a quote isn't
+     *         closed
+     */
+    private static List<String> parseLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for(int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if(quoted) {
+                if(c != '"') {
+                    value.append(c);
+                }
+                else if(i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append(c);
+                    i++;
+                }
+                else {
+                    quoted = false;
+                }
+            }
+            else if(c == '"') {
+                quoted = true;
+            }
+            else if(c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            }
+            else {
+                value.append(c);
+            }
+        }
+        if(quoted) {
+            return null;
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
@@ -0,0 +1,610 @@
+import java.util.*;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.function.Supplier;
+
+/**
+ * A cluster of {@link Machine}s grouped in racks, simulated in lockstep with
+ * one thread per machine.
+ * <p>Every machine makes its cycles on its own thread and only touches its own
+ * CPUs. The machines meet at a barrier after every cycle, where the cluster
+ * exchanges the messages between them on a single thread:
+ * <ul>
+ *     <li>the processes migrated to another machine during the cycle are
+ *     delivered to the least-loaded CPU of the receiving machine,
+ *     <li>the current usage of every machine is published, so in the next
+ *     cycle the algorithms see the loads of the other machines as they were
+ *     at the end of the previous one.
+ * </ul>
+ * <p>A machine may send at most {@link #getMessageCapacity()} processes in
+ * a cycle, further migrations are refused. The exchange only depends on the
+ * order of the machines, so for the same seeds the results don't depend on
+ * the scheduling of the threads.
+ * <p>Placing a process on another CPU of the same machine costs
+ * {@link #getIntraNodeCost()}, migrating it to another machine of the same
+ * rack costs {@link #getInterNodeCost()} and to a machine of another rack
+ * {@link #getInterRackCost()}.
+ *
+ * @see LocalFirst
+ */
+public final class Cluster {
+    /**
+     * The machines of the cluster, indexed by their cluster indices.
+     */
+    private final Machine[] machines;
+
+    /**
+     * The amount of machines in a rack.
+     */
+    private final Integer machinesPerRack;
+
+    /**
+     * The cost of relocating a process between the CPUs of one machine.
+     */
+    private final Double intraNodeCost;
+
+    /**
+     * The cost of migrating a process to another machine of the same rack.
+     */
+    private final Double interNodeCost;
+
+    /**
+     * The cost of migrating a process to a machine of another rack.
+     */
+    private final Double interRackCost;
+
+    /**
+     * The maximum amount of processes a machine may migrate in a cycle.
+     */
+    private final Integer messageCapacity;
+
+    /**
+     * The current usage of every machine published at the last barrier.
+     */
+    private double[] loads;
+
+    /**
+     * The current usage of every machine at the end of the current cycle,
+     * published at the next barrier.
+     */
+    private double[] pendingLoads;
+
+    /**
+     * The processes migrated by every machine in the current cycle.
+     */
+    private final Process[][] outboxes;
+
+    /**
+     * The receiving machines of the processes migrated by every machine in
+     * the current cycle.
+     */
+    private final int[][] outboxTargets;
+
+    /**
+     * The amount of processes migrated by every machine in the current cycle.
+     */
+    private final int[] outboxSizes;
+
+    /**
+     * The amount of loads of other machines read by every machine.
+     */
+    private final long[] remoteRequestCounts;
+
+    /**
+     * The amount of migrations refused to every machine, because its messages
+     * of the cycle were used up.
+     */
+    private final long[] refusedMigrationCounts;
+
+    /**
+     * The amount of processes migrated within a rack.
+     */
+    private long interNodeMigrationCount;
+
+    /**
+     * The amount of processes migrated between racks.
+     */
+    private long interRackMigrationCount;
+
+    /**
+     * Whether no machine has work left, set at the barrier.
+     */
+    private volatile boolean finished;
+
+    /**
+     * An error thrown by the simulation of a machine or by the exchange.
+     */
+    private volatile Throwable failure;
+
+    /**
+     * The amount of cycles passed.
+     */
+    private long cycleCount;
+
+    /**
+     * The {@link System#nanoTime()} when the simulation started.
+     */
+    private Long timeStart;
+
+    /**
+     * The {@link System#nanoTime()} when the simulation finished.
+     */
+    private Long timeStop;
+
+    /**
+     * Class constructor.
+     *
+     * @param machines the machines of the cluster, none of which belongs to
+     *                 another cluster; consecutive machines share a rack
+     * @param machinesPerRack the amount of machines in a rack
+     * @param intraNodeCost the cost of relocating a process between the CPUs
+     *                      of one machine
+     * @param interNodeCost the cost of migrating a process to another machine
+     *                      of the same rack
+     * @param interRackCost the cost of migrating a process to a machine of
+     *                      another rack
+     * @param messageCapacity the maximum amount of processes a machine may
+     *                        migrate in a cycle
+     */
+    public Cluster(List<Machine> machines, Integer machinesPerRack, Double intraNodeCost, Double interNodeCost,
+                   Double interRackCost, Integer messageCapacity) {
+        if(machines == null || machines.isEmpty() || machinesPerRack == null || machinesPerRack <= 0
+                || intraNodeCost == null || interNodeCost == null || interRackCost == null
+                || messageCapacity == null || messageCapacity < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.machines = machines.toArray(new Machine[0]);
+        this.machinesPerRack = machinesPerRack;
+        this.intraNodeCost = intraNodeCost;
+        this.interNodeCost = interNodeCost;
+        this.interRackCost = interRackCost;
+        this.messageCapacity = messageCapacity;
+
+        int count = this.machines.length;
+        loads = new double[count];
+        pendingLoads = new double[count];
+        outboxes = new Process[count][messageCapacity];
+        outboxTargets = new int[count][messageCapacity];
+        outboxSizes = new int[count];
+        remoteRequestCounts = new long[count];
+        refusedMigrationCounts = new long[count];
+        for(int i = 0; i < count; i++) {
+            this.machines[i].joinCluster(this, i);
+        }
+        cycleCount = 0;
+    }
+
+    /**
+     * A static method which creates the machines of a cluster, each assigned
+     * an equal share of the schedule queues. Machine <i>m</i> of <i>M</i>
+     * gets the queues from <i>m</i>&middot;<i>Q</i>/<i>M</i> to
+     * (<i>m</i>+1)&middot;<i>Q</i>/<i>M</i>, exclusive, so a trace of the whole
+     * cluster is replayed without copying it.
+     *
+     * @param machineCount amount of machines
+     * @param algorithms a factory of the algorithm of every machine
+     * @param schedules a source of the schedule queues of all CPUs of the
+     *                  cluster, at least one per machine
+     * @param seed the seed of the random number generators of the machines
+     * @return the machines
+     */
+    public static List<Machine> createMachines(Integer machineCount, Supplier<Algorithm> algorithms,
+                                               ScheduleSource schedules, Long seed) {
+        if(machineCount == null || machineCount <= 0 || algorithms == null || schedules == null
+                || seed == null || schedules.getQueueCount() < machineCount) {
+            throw new IllegalArgumentException();
+        }
+        Random seeds = new Random(seed);
+        long queueCount = schedules.getQueueCount();
+        List<Machine> machines = new ArrayList<>(machineCount);
+        for(int m = 0; m < machineCount; m++) {
+            int from = (int) (m * queueCount / machineCount);
+            int to = (int) ((m + 1) * queueCount / machineCount);
+            ScheduleSource shard = new ScheduleSource() {
+                @Override
+                public Integer getQueueCount() {
+                    return to - from;
+                }
+
+                @Override
+                public ScheduleCursor cursor(int queue) {
+                    return schedules.cursor(from + queue);
+                }
+            };
+            machines.add(new Machine(to - from, algorithms.get(), shard, seeds.nextLong()));
+        }
+        return machines;
+    }
+
+    /**
+     * Runs the simulation until no machine has schedules left to be assigned
+     * or processes waiting to be sent. Every machine is run on a thread of
+     * its own.
+     *
+     * @throws InterruptedException If the calling thread is interrupted while
+     *                              waiting for the machines
+     * @throws IllegalStateException If the simulation of a machine fails
+     */
+    public void run() throws InterruptedException {
+        timeStart = System.nanoTime();
+        for(int i = 0; i < machines.length; i++) {
+            loads[i] = machines[i].getCurrentUsage();
+        }
+        finished = !hasWork();
+
+        CyclicBarrier barrier = new CyclicBarrier(machines.length, this::exchange);
+        Thread[] threads = new Thread[machines.length];
+        for(int i = 0; i < machines.length; i++) {
+            int index = i;
+            threads[i] = new Thread(() -> simulate(index, barrier), "Machine " + i);
+            threads[i].start();
+        }
+        try {
+            for(Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            for(Thread thread : threads) {
+                thread.interrupt();
+            }
+            throw e;
+        }
+        timeStop = System.nanoTime();
+
+        if(failure != null) {
+            throw new IllegalStateException("The simulation of a machine failed", failure);
+        }
+    }
+
+    /**
+     * Makes the cycles of a machine until the cluster is finished, meeting
+     * the other machines at the barrier after every cycle.
+     *
+     * @param index the index of the machine
+     * @param barrier the barrier of all machines
+     */
+    private void simulate(int index, CyclicBarrier barrier) {
+        Machine machine = machines[index];
+        try {
+            while(!finished) {
+                try {
+                    machine.step();
+                    pendingLoads[index] = machine.getCurrentUsage();
+                } catch (RuntimeException | Error e) {
+                    // the failed machine keeps meeting the others, so they stop at the barrier
+                    failure = e;
+                }
+                barrier.await();
+            }
+        } catch (InterruptedException | BrokenBarrierException e) {
+            // the run has been interrupted
+        }
+    }
+
+    /**
+     * Delivers the processes migrated in the cycle, publishes the loads of
+     * the machines and checks whether the cluster is finished. Run by the
+     * last machine reaching the barrier, while the others wait.
+     */
+    private void exchange() {
+        try {
+            deliverMigrations();
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        }
+
+        double[] published = loads;
+        loads = pendingLoads;
+        pendingLoads = published;
+        cycleCount++;
+        finished = failure != null || !hasWork();
+    }
+
+    /**
+     * Delivers the processes migrated in the cycle in the order of the
+     * sending machines.
+     */
+    private void deliverMigrations() {
+        for(int source = 0; source < machines.length; source++) {
+            for(int i = 0; i < outboxSizes[source]; i++) {
+                int target = outboxTargets[source][i];
+                machines[target].acceptMigration(outboxes[source][i]);
+                outboxes[source][i] = null;
+                if(source / machinesPerRack == target / machinesPerRack) {
+                    interNodeMigrationCount++;
+                }
+                else {
+                    interRackMigrationCount++;
+                }
+            }
+            outboxSizes[source] = 0;
+        }
+    }
+
+    /**
+     * Checks whether any machine has work left.
+     *
+     * @return <code>true</code> if a machine isn't finished;
+     *         <code>false</code> otherwise.
+     */
+    private boolean hasWork() {
+        for(Machine machine : machines) {
+            if(machine.hasWork()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Migrates a process to another machine on behalf of the algorithm of the
+     * specified machine. The loads of randomly chosen machines published at
+     * the last barrier are read, each counted as a remote request, and the
+     * process is sent to the least-loaded one whose load doesn't exceed the
+     * threshold. It's delivered at the end of the cycle.
+     *
+     * @param source the machine from which the process is migrated
+     * @param process the migrated process
+     * @param threshold the highest load of a receiving machine
+     * @param attemptCount the amount of machines whose load is read
+     * @return <code>true</code> if the process has been migrated;
+     *         <code>false</code> if no chosen machine is loaded low enough
+     *         or the machine's messages of the cycle are used up.
+     */
+    public boolean migrate(Machine source, Process process, Double threshold, Integer attemptCount) {
+        int sourceIndex = source.getClusterIndex();
+        if(machines.length == 1) {
+            return false;
+        }
+        if(outboxSizes[sourceIndex] == messageCapacity) {
+            refusedMigrationCounts[sourceIndex]++;
+            return false;
+        }
+
+        Random random = source.getRandom();
+        int best = -1;
+        double bestLoad = threshold;
+        for(int i = 0; i < attemptCount; i++) {
+            int target = random.nextInt(machines.length - 1);
+            if(target >= sourceIndex) {
+                target++;
+            }
+            remoteRequestCounts[sourceIndex]++;
+            if(loads[target] <= bestLoad) {
+                best = target;
+                bestLoad = loads[target];
+            }
+        }
+        if(best < 0) {
+            return false;
+        }
+
+        outboxes[sourceIndex][outboxSizes[sourceIndex]] = process;
+        outboxTargets[sourceIndex][outboxSizes[sourceIndex]] = best;
+        outboxSizes[sourceIndex]++;
+        return true;
+    }
+
+    /**
+     * Returns the machine with the specified index.
+     *
+     * @param index the index of the machine
+     * @return the machine
+     */
+    public Machine getMachine(Integer index) {
+        return machines[index];
+    }
+
+    /**
+     * Returns the amount of machines.
+     *
+     * @return the amount of machines
+     */
+    public Integer getMachineCount() {
+        return machines.length;
+    }
+
+    /**
+     * Returns the amount of CPUs of all machines.
+     *
+     * @return the amount of CPUs
+     */
+    public Long getCPUCount() {
+        long count = 0;
+        for(Machine machine : machines) {
+            count += machine.getCPUCount();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the amount of machines in a rack.
+     *
+     * @return the amount of machines in a rack
+     */
+    public Integer getMachinesPerRack() {
+        return machinesPerRack;
+    }
+
+    /**
+     * Returns the cost of relocating a process between the CPUs of one
+     * machine.
+     *
+     * @return the intra-node cost
+     */
+    public Double getIntraNodeCost() {
+        return intraNodeCost;
+    }
+
+    /**
+     * Returns the cost of migrating a process to another machine of the same
+     * rack.
+     *
+     * @return the inter-node cost
+     */
+    public Double getInterNodeCost() {
+        return interNodeCost;
+    }
+
+    /**
+     * Returns the cost of migrating a process to a machine of another rack.
+     *
+     * @return the inter-rack cost
+     */
+    public Double getInterRackCost() {
+        return interRackCost;
+    }
+
+    /**
+     * Returns the maximum amount of processes a machine may migrate in
+     * a cycle.
+     *
+     * @return the message capacity of a machine
+     */
+    public Integer getMessageCapacity() {
+        return messageCapacity;
+    }
+
+    /**
+     * Returns an average usage of all CPUs of the cluster.
+     *
+     * @return average usage of all CPUs
+     */
+    public Double getAverageUsage() {
+        double totalUsage = 0;
+        for(Machine machine : machines) {
+            totalUsage += machine.getAverageUsage() * machine.getCPUCount();
+        }
+        return totalUsage / getCPUCount();
+    }
+
+    /**
+     * Returns an average deviation of the usage of every CPU of the cluster
+     * from the average usage of all of them.
+     *
+     * @return average deviation of every CPU usage
+     */
+    public Double getAverageUsageDeviation() {
+        double averageUsage = getAverageUsage();
+        double deviation = 0;
+        for(Machine machine : machines) {
+            for(CPU cpu : machine.getCPUSet()) {
+                deviation += Math.abs(cpu.getAverageUsage() - averageUsage);
+            }
+        }
+        return deviation / getCPUCount();
+    }
+
+    /**
+     * Returns the latencies of the processes completed on all machines.
+     *
+     * @return a new recorder of the latencies of this cluster
+     */
+    public LatencyRecorder getLatencies() {
+        LatencyRecorder latencies = new LatencyRecorder();
+        for(Machine machine : machines) {
+            latencies.add(machine.getLatencies());
+        }
+        return latencies;
+    }
+
+    /**
+     * Returns the amount of usage requests within the machines.
+     *
+     * @return the local usage request count
+     */
+    public Long getUsageRequestCount() {
+        long count = 0;
+        for(Machine machine : machines) {
+            count += machine.getUsageRequestCount();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the amount of loads of other machines read by the algorithms.
+     *
+     * @return the remote request count
+     */
+    public Long getRemoteRequestCount() {
+        long count = 0;
+        for(long machineCount : remoteRequestCounts) {
+            count += machineCount;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the amount of relocations within the machines.
+     *
+     * @return the local relocation count
+     */
+    public Long getRelocationCount() {
+        long count = 0;
+        for(Machine machine : machines) {
+            count += machine.getRelocationCount();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the amount of processes migrated to another machine of the same
+     * rack.
+     *
+     * @return the inter-node migration count
+     */
+    public Long getInterNodeMigrationCount() {
+        return interNodeMigrationCount;
+    }
+
+    /**
+     * Returns the amount of processes migrated to a machine of another rack.
+     *
+     * @return the inter-rack migration count
+     */
+    public Long getInterRackMigrationCount() {
+        return interRackMigrationCount;
+    }
+
+    /**
+     * Returns the amount of migrations refused because the sending machine's
+     * messages of the cycle were used up.
+     *
+     * @return the refused migration count
+     */
+    public Long getRefusedMigrationCount() {
+        long count = 0;
+        for(long machineCount : refusedMigrationCounts) {
+            count += machineCount;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the total cost of all relocations and migrations.
+     *
+     * @return the placement cost
+     */
+    public Double getPlacementCost() {
+        return getRelocationCount() * intraNodeCost + interNodeMigrationCount * interNodeCost
+                + interRackMigrationCount * interRackCost;
+    }
+
+    /**
+     * Returns the amount of cycles passed.
+     *
+     * @return amount of cycles passed
+     */
+    public Long getCycleCount() {
+        return cycleCount;
+    }
+
+    /**
+     * Returns the wall-clock duration of the simulation.
+     *
+     * @return the duration in milliseconds
+     */
+    public Long getDuration() {
+        return (timeStop - timeStart) / 1000000;
+    }
+}
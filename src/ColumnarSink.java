@@ -0,0 +1,475 @@
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link ResultSink} writing the records in a binary columnar format, which
+ * is smaller than text and lets a single field of many records be read
+ * without decoding the others.
+ * <p>The file starts with {@link #MAGIC}, {@link #VERSION}, the amount of
+ * columns and for every column its type and its name, written once the first
+ * record is known. The records follow in blocks of up to
+ * {@link #BLOCK_LENGTH}, a block consisting of the amount of its records, the
+ * size of every column in bytes and the columns one after another. A value of
+ * a {@link #LONG} or a {@link #DOUBLE} column takes eight bytes, a value of a
+ * {@link #STRING} column its length in bytes, -1 for <code>null</code>, and
+ * its bytes in UTF-8. All numbers are big-endian, so a column is read by
+ * numpy with the <code>&gt;i8</code> or the <code>&gt;f8</code> type.
+ */
+public class ColumnarSink extends ResultSink {
+    /**
+     * The first four bytes of every file.
+     */
+    static final int MAGIC = 0x4C425253;
+
+    /**
+     * The version of the format.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The type of a column of integers.
+     */
+    static final byte LONG = 0;
+
+    /**
+     * The type of a column of floating-point numbers.
+     */
+    static final byte DOUBLE = 1;
+
+    /**
+     * The type of a column of strings.
+     */
+    static final byte STRING = 2;
+
+    /**
+     * The maximum amount of records in a block.
+     */
+    static final int BLOCK_LENGTH = 1024;
+
+    /**
+     * The names of the columns, or <code>null</code> if the header hasn't
+     * been written yet.
+     */
+    private String[] names;
+
+    /**
+     * The types of the columns.
+     */
+    private byte[] types;
+
+    /**
+     * The values of the records of the unfinished block, indexed by the
+     * column.
+     */
+    private Object[][] block;
+
+    /**
+     * The amount of records of the unfinished block.
+     */
+    private int blockSize;
+
+    /**
+     * Class constructor. Opens the file, creating it if it doesn't exist, and
+     * reads the keys of the records in it. A block left incomplete is cut off.
+     * A file which isn't a columnar result file is closed and left as it is.
+     *
+     * @param path the path of the file
+     * @throws IOException If the file can't be opened or isn't a columnar
+     *                     result file
+     */
+    public ColumnarSink(Path path) throws IOException {
+        super(path);
+        long validLength = 0;
+        try(Reader reader = new Reader(path)) {
+            if(reader.readHeader()) {
+                names = reader.names;
+                types = reader.types;
+                block = new Object[names.length][BLOCK_LENGTH];
+                validLength = reader.position;
+                int keyIndex = Arrays.asList(names).indexOf(KEY);
+                int count;
+                while((count = reader.readBlockHeader()) >= 0) {
+                    for(int i = 0; i < names.length; i++) {
+                        if(i == keyIndex && types[i] == STRING) {
+                            for(Object key : reader.readColumn(i, count)) {
+                                completedKeys.add((String) key);
+                            }
+                        }
+                        else {
+                            reader.skipColumn(i);
+                        }
+                    }
+                    validLength = reader.position;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+        truncate(validLength);
+    }
+
+    /**
+     * A static method which reads a single column of a file, skipping the
+     * others.
+     *
+     * @param path the path of the file
+     * @param name the name of the column
+     * @return the values of the column, a <code>long[]</code>, a
+     *         <code>double[]</code> or a <code>String[]</code> depending on
+     *         its type
+     * @throws IOException If the file can't be read
+     * @throws IllegalArgumentException If there's no column with the name
+     */
+    public static Object readColumn(Path path, String name) throws IOException {
+        if(path == null || name == null) {
+            throw new IllegalArgumentException();
+        }
+        List<Object> values = new ArrayList<>();
+        byte type;
+        try(Reader reader = new Reader(path)) {
+            int index = reader.readHeader() ? Arrays.asList(reader.names).indexOf(name) : -1;
+            if(index < 0) {
+                throw new IllegalArgumentException("No column " + name + " in " + path);
+            }
+            type = reader.types[index];
+            int count;
+            while((count = reader.readBlockHeader()) >= 0) {
+                for(int i = 0; i < reader.names.length; i++) {
+                    if(i == index) {
+                        values.addAll(reader.readColumn(i, count));
+                    }
+                    else {
+                        reader.skipColumn(i);
+                    }
+                }
+            }
+        }
+
+        if(type == STRING) {
+            return values.toArray(new String[0]);
+        }
+        if(type == LONG) {
+            long[] longs = new long[values.size()];
+            for(int i = 0; i < longs.length; i++) {
+                longs[i] = (Long) values.get(i);
+            }
+            return longs;
+        }
+        double[] doubles = new double[values.size()];
+        for(int i = 0; i < doubles.length; i++) {
+            doubles[i] = (Double) values.get(i);
+        }
+        return doubles;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void append(Map<String, ?> record) throws IOException {
+        if(names == null) {
+            writeHeader(record);
+        }
+        if(record.size() != names.length) {
+            throw new IllegalArgumentException("The fields of the record differ from the columns of " + path);
+        }
+        Object[] values = new Object[names.length];
+        Iterator<? extends Map.Entry<String, ?>> fields = record.entrySet().iterator();
+        for(int i = 0; i < names.length; i++) {
+            Map.Entry<String, ?> field = fields.next();
+            if(!names[i].equals(field.getKey())) {
+                throw new IllegalArgumentException("The fields of the record differ from the columns of " + path);
+            }
+            values[i] = convert(types[i], field.getValue());
+        }
+
+        for(int i = 0; i < names.length; i++) {
+            block[i][blockSize] = values[i];
+        }
+        if(++blockSize == BLOCK_LENGTH) {
+            flushRecords();
+        }
+    }
+
+    /**
+     * Writes the unfinished block, if it holds any records.
+     *
+     * @throws IOException If the file can't be written
+     */
+    @Override
+    protected void flushRecords() throws IOException {
+        if(blockSize == 0) {
+            return;
+        }
+        byte[][][] strings = new byte[names.length][][];
+        int[] sizes = new int[names.length];
+        for(int i = 0; i < names.length; i++) {
+            if(types[i] != STRING) {
+                sizes[i] = blockSize * 8;
+                continue;
+            }
+            strings[i] = new byte[blockSize][];
+            for(int j = 0; j < blockSize; j++) {
+                String value = (String) block[i][j];
+                strings[i][j] = value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+                sizes[i] += 4 + (value != null ? strings[i][j].length : 0);
+            }
+        }
+
+        reserve(4).putInt(blockSize);
+        for(int size : sizes) {
+            reserve(4).putInt(size);
+        }
+        for(int i = 0; i < names.length; i++) {
+            for(int j = 0; j < blockSize; j++) {
+                if(types[i] == LONG) {
+                    reserve(8).putLong((Long) block[i][j]);
+                }
+                else if(types[i] == DOUBLE) {
+                    reserve(8).putDouble((Double) block[i][j]);
+                }
+                else if(strings[i][j] == null) {
+                    reserve(4).putInt(-1);
+                }
+                else {
+                    reserve(4).putInt(strings[i][j].length);
+                    put(strings[i][j]);
+                }
+            }
+            Arrays.fill(block[i], 0, blockSize, null);
+        }
+        blockSize = 0;
+    }
+
+    /**
+     * Takes the columns from the fields of the first record and writes the
+     * header.
+     *
+     * @param record the first record
+     * @throws IOException If the file can't be written
+     */
+    private void writeHeader(Map<String, ?> record) throws IOException {
+        String[] names = record.keySet().toArray(new String[0]);
+        byte[] types = new byte[names.length];
+        int i = 0;
+        for(Object value : record.values()) {
+            types[i++] = value instanceof Double || value instanceof Float ? DOUBLE
+                    : value instanceof Number ? LONG : STRING;
+        }
+
+        byte[][] encodedNames = new byte[names.length][];
+        for(i = 0; i < names.length; i++) {
+            encodedNames[i] = names[i].getBytes(StandardCharsets.UTF_8);
+            if(encodedNames[i].length > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("The name of a field is too long");
+            }
+        }
+
+        reserve(12).putInt(MAGIC).putInt(VERSION).putInt(names.length);
+        for(i = 0; i < names.length; i++) {
+            reserve(3).put(types[i]).putShort((short) encodedNames[i].length);
+            put(encodedNames[i]);
+        }
+        this.names = names;
+        this.types = types;
+        block = new Object[names.length][BLOCK_LENGTH];
+    }
+
+    /**
+     * A static method which converts a value to the type of its column.
+     *
+     * @param type the type of the column
+     * @param value the value of a field
+     * @return the value as a <code>Long</code>, a <code>Double</code> or a
+     *         <code>String</code>
+     * @throws IllegalArgumentException If the value doesn't fit the column
+     */
+    private static Object convert(byte type, Object value) {
+        if(type == STRING) {
+            return value != null ? value.toString() : null;
+        }
+        if(type == DOUBLE && value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if(type == LONG && value instanceof Number && !(value instanceof Double || value instanceof Float)) {
+            return ((Number) value).longValue();
+        }
+        throw new IllegalArgumentException("The value " + value + " doesn't fit its column");
+    }
+
+    /**
+     * A reader of a file, which keeps track of its position.
+     */
+    private static final class Reader implements Closeable {
+        /**
+         * The stream of the file.
+         */
+        private final DataInputStream input;
+
+        /**
+         * The length of the file in bytes.
+         */
+        private final long length;
+
+        /**
+         * The names of the columns.
+         */
+        String[] names;
+
+        /**
+         * The types of the columns.
+         */
+        byte[] types;
+
+        /**
+         * The position after the last complete header or block.
+         */
+        long position;
+
+        /**
+         * The sizes of the columns of the current block in bytes.
+         */
+        private int[] sizes;
+
+        /**
+         * Class constructor.
+         *
+         * @param path the path of the file
+         * @throws IOException If the file can't be opened
+         */
+        Reader(Path path) throws IOException {
+            length = Files.size(path);
+            input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+        }
+
+        /**
+         * Reads the header.
+         *
+         * @return <code>true</code> if the header is complete;
+         *         <code>false</code> otherwise.
+         * @throws IOException If the file can't be read or isn't a columnar
+         *                     result file
+         */
+        boolean readHeader() throws IOException {
+            try {
+                long size = 12;
+                // a file cut within the magic number is refused unless its bytes match
+                for(int shift = 24; shift >= 0; shift -= 8) {
+                    if(input.readUnsignedByte() != (MAGIC >>> shift & 0xFF)) {
+                        throw new IOException("Not a columnar result file");
+                    }
+                }
+                if(input.readInt() != VERSION) {
+                    throw new IOException("Not a columnar result file");
+                }
+                int count = input.readInt();
+                names = new String[count];
+                types = new byte[count];
+                sizes = new int[count];
+                for(int i = 0; i < count; i++) {
+                    types[i] = input.readByte();
+                    byte[] name = new byte[input.readShort()];
+                    input.readFully(name);
+                    names[i] = new String(name, StandardCharsets.UTF_8);
+                    size += 3 + name.length;
+                }
+                position = size;
+                return true;
+            } catch (EOFException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Reads the header of the next block if the block is complete.
+         *
+         * @return the amount of records of the block, or -1 if there's no
+         *         complete block
+         * @throws IOException If the file can't be read
+         */
+        int readBlockHeader() throws IOException {
+            long end = position + 4 + 4L * sizes.length;
+            if(end > length) {
+                return -1;
+            }
+            int count = input.readInt();
+            for(int i = 0; i < sizes.length; i++) {
+                sizes[i] = input.readInt();
+                end += sizes[i];
+            }
+            if(end > length) {
+                return -1;
+            }
+            position += 4 + 4L * sizes.length;
+            return count;
+        }
+
+        /**
+         * Reads a column of the current block.
+         *
+         * @param index the index of the column
+         * @param count the amount of records of the block
+         * @return the values of the column
+         * @throws IOException If the file can't be read
+         */
+        List<Object> readColumn(int index, int count) throws IOException {
+            List<Object> values = new ArrayList<>(count);
+            for(int i = 0; i < count; i++) {
+                if(types[index] == LONG) {
+                    values.add(input.readLong());
+                }
+                else if(types[index] == DOUBLE) {
+                    values.add(input.readDouble());
+                }
+                else {
+                    int size = input.readInt();
+                    byte[] value = size >= 0 ? new byte[size] : null;
+                    if(value != null) {
+                        input.readFully(value);
+                    }
+                    values.add(value != null ? new String(value, StandardCharsets.UTF_8) : null);
+                }
+            }
+            position += sizes[index];
+            return values;
+        }
+
+        /**
+         * Skips a column of the current block.
+         *
+         * @param index the index of the column
+         * @throws IOException If the file can't be read
+         */
+        void skipColumn(int index) throws IOException {
+            int skipped = 0;
+            while(skipped < sizes[index]) {
+                int n = input.skipBytes(sizes[index] - skipped);
+                if(n <= 0) {
+                    throw new EOFException();
+                }
+                skipped += n;
+            }
+            position += sizes[index];
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+}
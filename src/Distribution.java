@@ -0,0 +1,80 @@
+import java.util.Random;
+
+/**
+ * A probability distribution of a real number, used for generating the
+ * usages and the burst times of {@link Process}es.
+ */
+public interface Distribution {
+    /**
+     * Draws a random number from this distribution.
+     *
+     * @param random a random number generator
+     * @return a random number
+     */
+    double sample(Random random);
+
+    /**
+     * A distribution always returning the same value.
+     *
+     * @param value the value
+     * @return the distribution
+     */
+    static Distribution constant(double value) {
+        return random -> value;
+    }
+
+    /**
+     * A uniform distribution over a range.
+     *
+     * @param min the minimum, inclusive
+     * @param max the maximum, exclusive
+     * @return the distribution
+     * @throws IllegalArgumentException If the maximum is lower than the minimum
+     */
+    static Distribution uniform(double min, double max) {
+        if(max < min) {
+            throw new IllegalArgumentException();
+        }
+        return random -> min + random.nextDouble() * (max - min);
+    }
+
+    /**
+     * An exponential distribution.
+     *
+     * @param mean the mean
+     * @return the distribution
+     * @throws IllegalArgumentException If the mean isn't positive
+     */
+    static Distribution exponential(double mean) {
+        if(mean <= 0) {
+            throw new IllegalArgumentException();
+        }
+        return random -> -mean * Math.log(1 - random.nextDouble());
+    }
+
+    /**
+     * A heavy-tailed Pareto distribution.
+     *
+     * @param scale the minimum value
+     * @param shape the tail index, the lower the heavier the tail
+     * @return the distribution
+     * @throws IllegalArgumentException If the scale or the shape isn't positive
+     */
+    static Distribution pareto(double scale, double shape) {
+        if(scale <= 0 || shape <= 0) {
+            throw new IllegalArgumentException();
+        }
+        return random -> scale / Math.pow(1 - random.nextDouble(), 1 / shape);
+    }
+
+    /**
+     * Returns this distribution with its values clamped to a range.
+     *
+     * @param min the minimum
+     * @param max the maximum
+     * @return the clamped distribution
+     */
+    default Distribution clamp(double min, double max) {
+        return random -> Math.min(max, Math.max(min, sample(random)));
+    }
+}
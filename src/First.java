@@ -18,6 +18,16 @@ public final class First extends Algorithm {
         return true;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @return <code>true</code>, the algorithm keeps no state of its own
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -1,7 +1,8 @@
 import java.util.*;
+import java.util.function.Supplier;
 
 /**
- * This class contains only the static method for generating {@link Schedule}
+ * This class contains only the static methods for generating {@link Schedule}
  * queues used by a {@link Scheduler}.
  */
 public class Generator {
@@ -24,21 +25,47 @@ public class Generator {
                                                 Double minUsage, Double maxUsage,
                                                 Integer minDelay, Integer maxDelay,
                                                 Integer minBurstTime, Integer maxBurstTime) {
+        return generate(CPUCount, minLength, maxLength, minUsage, maxUsage, minDelay, maxDelay,
+                minBurstTime, maxBurstTime, new Random());
+    }
+
+    /**
+     * Generates a set of schedule queues specified by the parameters, using
+     * the specified random number generator. The same seed always generates
+     * the same schedules.
+     *
+     * @param CPUCount amount of generated schedule queues
+     * @param minLength the minimum length of a queue
+     * @param maxLength the maximum length of a queue
+     * @param minUsage the minimum usage of a process
+     * @param maxUsage the maximum usage of a process
+     * @param minDelay the minimum delay of a schedule
+     * @param maxDelay the maximum delay of a schedule
+     * @param minBurstTime the minimum burst time of a process
+     * @param maxBurstTime the maximum burst time of a process
+     * @param random a random number generator
+     * @return the set of generated schedule queues
+     */
+    public static Set<Queue<Schedule>> generate(Integer CPUCount,
+                                                Integer minLength, Integer maxLength,
+                                                Double minUsage, Double maxUsage,
+                                                Integer minDelay, Integer maxDelay,
+                                                Integer minBurstTime, Integer maxBurstTime,
+                                                Random random) {
         if(maxLength - minLength < 0 || maxUsage - minUsage < 0 || maxDelay - minDelay < 0 || maxBurstTime - minBurstTime < 0) {
             throw new IllegalArgumentException();
         }
-        Random random = new Random();
         Set<Queue<Schedule>> set = new HashSet<>();
         int id = 0;
 
         for(int i = 0; i < CPUCount; i++) {
             Queue<Schedule> queue = new LinkedList<>();
-            Integer length = minLength + random.nextInt(maxLength - minLength);
+            Integer length = nextInt(random, minLength, maxLength);
 
             for(int j = 0; j < length; j++) {
                 Double usage = minUsage + random.nextDouble() * (maxUsage - minUsage);
-                Integer delay = minDelay + random.nextInt(maxDelay - minDelay);
-                Integer burstTime = minBurstTime + random.nextInt(maxBurstTime - minBurstTime);
+                Integer delay = nextInt(random, minDelay, maxDelay);
+                Integer burstTime = nextInt(random, minBurstTime, maxBurstTime);
 
                 queue.add(new Schedule(new Process(id++, usage, burstTime), delay));
             }
@@ -48,4 +75,46 @@ public class Generator {
 
         return set;
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates a lazily generated schedule queue for every CPU. Every queue
+     * produces its schedules on demand with its own random number generator,
+     * so the memory used doesn't depend on the length of the queues.
+     *
+     * @param CPUCount amount of generated schedule queues
+     * @param length the length of every queue
+     * @param arrivals a supplier of the arrival model of every queue, for
+     *                 example {@link ArrivalProcess#poisson(double)}
+     * @param usage the distribution of the usage of a process
+     * @param burstTime the distribution of the burst time of a process, for
+     *                  example {@link Distribution#pareto(double, double)}
+     * @param seed the seed of the random number generators
+     * @return the schedule queues indexed by CPUs' identifiers
+     */
+    public static List<Iterator<Schedule>> stream(Integer CPUCount, Long length, Supplier<ArrivalProcess> arrivals,
+                                                  Distribution usage, Distribution burstTime, Long seed) {
+        if(CPUCount == null || CPUCount <= 0 || length == null || arrivals == null || usage == null
+                || burstTime == null || seed == null) {
+            throw new IllegalArgumentException();
+        }
+        List<Iterator<Schedule>> streams = new ArrayList<>(CPUCount);
+        for(int i = 0; i < CPUCount; i++) {
+            streams.add(new ScheduleStream(new Random(seed * 31 + i), arrivals.get(), usage, burstTime,
+                    i, CPUCount, length));
+        }
+        return streams;
+    }
+
+    /**
+     * A static method which draws a random integer from a range. Unlike
+     * {@link Random#nextInt(int)} it accepts an empty range.
+     *
+     * @param random a random number generator
+     * @param min the minimum, inclusive
+     * @param max the maximum, exclusive unless it equals the minimum
+     * @return a random integer
+     */
+    private static Integer nextInt(Random random, Integer min, Integer max) {
+        return max > min ? min + random.nextInt(max - min) : min;
+    }
+}
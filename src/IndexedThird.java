@@ -0,0 +1,66 @@
+/**
+ * The same policy as {@link Third}, but the CPU with usage not exceeding the
+ * threshold <i>p</i> is drawn from the machine's {@link LoadIndex} instead of
+ * asking random CPUs for their usage. A process appears on {@link CPU}
+ * <i>x</i>. If the usage of <i>x</i> exceeds <i>p</i>, the process is sent to
+ * a CPU <i>y</i> chosen uniformly among the other CPUs with usage not
+ * exceeding <i>p</i>. If the usage doesn't exceed said threshold, the process
+ * is sent to <i>x</i>.
+ * <p>Every lookup in the index is counted as a single usage request, so the
+ * usage request counts of both algorithms compare the amount of probes.
+ */
+public final class IndexedThird extends Algorithm {
+    /**
+     * The usage threshold according to which the algorithm chooses a CPU.
+     */
+    private Double threshold;
+
+    /**
+     * The highest usage in fixed-point units which doesn't exceed the
+     * threshold.
+     */
+    private long limit;
+
+    /**
+     * Class constructor.
+     *
+     * @param threshold usage threshold according to which the algorithm
+     *                  chooses a CPU
+     */
+    public IndexedThird(Double threshold) {
+        if(threshold == null) {
+            throw new IllegalArgumentException();
+        }
+        this.threshold = threshold;
+        limit = LoadIndex.usageLimit(threshold, true);
+    }
+
+    @Override
+    public boolean handleProcess(CPU master, Process process) {
+        Machine machine = master.getMaster();
+
+        if(master.getUsage() > threshold) {
+            LoadIndex index = machine.getLoadIndex();
+            machine.increaseUsageRequestCount();
+            int chosen = index.randomWithin(index.registerLimit(limit), master.getID());
+            if(chosen < 0) {
+                // every other CPU has usage above the threshold, so the process isn't relocated
+                return false;
+            }
+            machine.relocateProcess(machine.getCPU(chosen), process);
+            return true;
+        }
+        else {
+            master.addProcess(process);
+            return true;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "Algorithm #3 (indexed)";
+    }
+}
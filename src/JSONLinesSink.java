@@ -0,0 +1,60 @@
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * A {@link ResultSink} writing every record as a JSON object on a line of its
+ * own. Numbers which aren't finite are written as <code>null</code>.
+ */
+public class JSONLinesSink extends ResultSink {
+    /**
+     * Class constructor. Opens the file, creating it if it doesn't exist, and
+     * reads the keys of the records in it. A last line without a line break
+     * is cut off.
+     *
+     * @param path the path of the file
+     * @throws IOException If the file can't be opened or read, or a line
+     *                     isn't a JSON object with a key
+     */
+    public JSONLinesSink(Path path) throws IOException {
+        super(path);
+        resumeLines(line -> {
+            try {
+                completedKeys.add(new JSONObject(line).getString(KEY));
+            } catch (JSONException e) {
+                throw notAResultFile();
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void append(Map<String, ?> record) throws IOException {
+        StringBuilder line = new StringBuilder("{");
+        for(Map.Entry<String, ?> field : record.entrySet()) {
+            if(line.length() > 1) {
+                line.append(',');
+            }
+            line.append(JSONObject.quote(field.getKey())).append(':');
+            Object value = field.getValue();
+            if(value instanceof Number) {
+                String number = formatNumber((Number) value);
+                line.append(number != null ? number : "null");
+            }
+            else if(value == null || value instanceof Boolean) {
+                line.append(value);
+            }
+            else {
+                line.append(JSONObject.quote(value.toString()));
+            }
+        }
+        line.append("}\n");
+        put(line.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Join the shortest of <i>d</i> queues with memory. A {@link Process} appears
+ * on {@link CPU} <i>x</i>, which requests the usage of <i>d</i> distinct
+ * randomly chosen CPUs of the whole machine and of the CPU remembered from the
+ * previous process. The process is added to the one with the lowest usage, and
+ * the CPU with the lowest usage among them afterwards is remembered for the
+ * next process.
+ * <p>The memory belongs to the machine using the algorithm, so an instance
+ * shouldn't be shared by machines running at the same time.
+ */
+public final class JSQWithMemory extends Algorithm {
+    /**
+     * The amount of CPUs chosen for every process.
+     */
+    private Integer d;
+
+    /**
+     * The least loaded CPU found by the previous process, or
+     * <code>null</code>.
+     */
+    private CPU remembered;
+
+    /**
+     * Class constructor.
+     *
+     * @param d the amount of CPUs chosen for every process
+     */
+    public JSQWithMemory(Integer d) {
+        if(d == null || d <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.d = d;
+    }
+
+    @Override
+    public boolean handleProcess(CPU master, Process process) {
+        Machine machine = master.getMaster();
+        if(remembered != null && remembered.getMaster() != machine) {
+            remembered = null;
+        }
+
+        CPU best = null;
+        double bestUsage = Double.POSITIVE_INFINITY;
+        CPU secondBest = null;
+        double secondBestUsage = Double.POSITIVE_INFINITY;
+        if(remembered != null) {
+            best = remembered;
+            bestUsage = machine.requestUsage(remembered);
+        }
+
+        CPUSampler sampler = machine.sampleCPUs(remembered);
+        for(int i = 0; i < d && sampler.hasNext(); i++) {
+            CPU randomCPU = sampler.next();
+            double usage = machine.requestUsage(randomCPU);
+            if(usage < bestUsage) {
+                secondBest = best;
+                secondBestUsage = bestUsage;
+                best = randomCPU;
+                bestUsage = usage;
+            }
+            else if(usage < secondBestUsage) {
+                secondBest = randomCPU;
+                secondBestUsage = usage;
+            }
+        }
+
+        if(best != master) {
+            machine.relocateProcess(best, process);
+        }
+        else {
+            master.addProcess(process);
+        }
+        // the chosen CPU knows its own new usage, so remembering costs no request
+        remembered = secondBest == null || best.getUsage() <= secondBestUsage ? best : secondBest;
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "JSQ(" + d + ") with memory";
+    }
+}
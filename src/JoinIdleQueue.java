@@ -0,0 +1,104 @@
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Join the idle queue. Instead of asking CPUs for their usage when a process
+ * appears, every {@link CPU} whose usage drops to at most some threshold
+ * <i>p</i> after its processes complete reports itself once to the idle
+ * queue. A {@link Process} appearing on CPU <i>x</i> is sent to the CPU at the
+ * head of the idle queue, which leaves the queue. If the idle queue is empty,
+ * the process is added to <i>x</i>.
+ * <p>Every report is counted as a usage request, so the request count is the
+ * amount of messages sent to the idle queue. All CPUs start idle. The idle
+ * queue belongs to the machine using the algorithm, so an instance shouldn't
+ * be shared by machines running at the same time.
+ */
+public final class JoinIdleQueue extends Algorithm {
+    /**
+     * The usage threshold up to which a CPU reports itself as idle.
+     */
+    private Double threshold;
+
+    /**
+     * The machine the idle queue belongs to.
+     */
+    private Machine machine;
+
+    /**
+     * The CPUs reported as idle, in the order of their reports.
+     */
+    private Queue<CPU> idleCPUs;
+
+    /**
+     * Whether every CPU is in the idle queue, indexed by CPUs' identifiers.
+     */
+    private boolean[] queued;
+
+    /**
+     * Class constructor.
+     *
+     * @param threshold usage threshold up to which a CPU reports itself as
+     *                  idle
+     */
+    public JoinIdleQueue(Double threshold) {
+        if(threshold == null) {
+            throw new IllegalArgumentException();
+        }
+        this.threshold = threshold;
+    }
+
+    @Override
+    public boolean handleProcess(CPU master, Process process) {
+        attach(master.getMaster());
+        CPU idleCPU = idleCPUs.poll();
+        if(idleCPU == null) {
+            master.addProcess(process);
+            return true;
+        }
+        queued[idleCPU.getID()] = false;
+        if(idleCPU != master) {
+            machine.relocateProcess(idleCPU, process);
+        }
+        else {
+            master.addProcess(process);
+        }
+        return true;
+    }
+
+    @Override
+    public void handleCompletion(CPU master) {
+        attach(master.getMaster());
+        if(!queued[master.getID()] && master.getUsage() <= threshold) {
+            machine.increaseUsageRequestCount();
+            queued[master.getID()] = true;
+            idleCPUs.add(master);
+        }
+    }
+
+    /**
+     * Creates the idle queue of a machine holding all of its CPUs, unless
+     * it's already been created.
+     *
+     * @param machine the machine using the algorithm
+     */
+    private void attach(Machine machine) {
+        if(this.machine == machine) {
+            return;
+        }
+        this.machine = machine;
+        idleCPUs = new ArrayDeque<>(machine.getCPUCount());
+        queued = new boolean[machine.getCPUCount()];
+        for(int i = 0; i < machine.getCPUCount(); i++) {
+            idleCPUs.add(machine.getCPU(i));
+            queued[i] = true;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "Join-idle-queue";
+    }
+}
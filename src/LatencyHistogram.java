@@ -0,0 +1,188 @@
+import java.util.Arrays;
+
+/**
+ * A histogram of non-negative values with logarithmic buckets, used for
+ * latencies measured in cycles.
+ * <p>Values below 64 get a bucket each, so they're counted exactly. Every
+ * following power of two is split into half as many buckets of equal width,
+ * so a bucket is at most 1/32 of its values wide and a percentile is off by at
+ * most half of that. Recording a value costs a few arithmetic operations, and
+ * the buckets are only allocated up to the highest value recorded so far.
+ */
+public final class LatencyHistogram {
+    /**
+     * The amount of bits of a value distinguished within a power of two.
+     */
+    private static final int SUB_BUCKET_BITS = 6;
+
+    /**
+     * The amount of values counted exactly.
+     */
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The amount of buckets a power of two above the exact values is split
+     * into.
+     */
+    private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+
+    /**
+     * The amount of values recorded in every bucket.
+     */
+    private long[] counts;
+
+    /**
+     * The amount of recorded values.
+     */
+    private long count;
+
+    /**
+     * The sum of the recorded values.
+     */
+    private double sum;
+
+    /**
+     * The highest recorded value.
+     */
+    private long max;
+
+    /**
+     * Class constructor.
+     */
+    public LatencyHistogram() {
+        counts = new long[0];
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param value a non-negative value
+     */
+    public void record(long value) {
+        if(value < 0) {
+            throw new IllegalArgumentException();
+        }
+        int index = indexOf(value);
+        if(index >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+        }
+        counts[index]++;
+        count++;
+        sum += value;
+        if(value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Adds all values recorded by another histogram to this one.
+     *
+     * @param histogram the histogram to be added
+     */
+    public void add(LatencyHistogram histogram) {
+        if(histogram.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, histogram.counts.length);
+        }
+        for(int i = 0; i < histogram.counts.length; i++) {
+            counts[i] += histogram.counts[i];
+        }
+        count += histogram.count;
+        sum += histogram.sum;
+        max = Math.max(max, histogram.max);
+    }
+
+    /**
+     * Returns the value below or at which the specified portion of the
+     * recorded values lie, for example the 99th percentile for 0.99. Values
+     * not counted exactly are approximated by the middle of their bucket.
+     *
+     * @param quantile a number between 0 and 1
+     * @return the percentile, zero if no value has been recorded
+     */
+    public Long getPercentile(Double quantile) {
+        if(quantile == null || quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException();
+        }
+        if(count == 0) {
+            return 0L;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        if(rank == count) {
+            return max;
+        }
+        long seen = 0;
+        for(int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if(seen >= rank) {
+                return Math.min(lowestValueOf(i) + (widthOf(i) >> 1), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the amount of recorded values.
+     *
+     * @return the amount of recorded values
+     */
+    public Long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the average of the recorded values.
+     *
+     * @return the average, zero if no value has been recorded
+     */
+    public Double getMean() {
+        return count == 0 ? 0d : sum / count;
+    }
+
+    /**
+     * Returns the highest recorded value.
+     *
+     * @return the highest recorded value, zero if no value has been recorded
+     */
+    public Long getMax() {
+        return max;
+    }
+
+    /**
+     * A static method which returns the bucket of a value.
+     *
+     * @param value a non-negative value
+     * @return the index of the bucket
+     */
+    private static int indexOf(long value) {
+        if(value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        // keep the highest bits of the value, the leading one included
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * HALF_SUB_BUCKET_COUNT + (int) (value >>> shift);
+    }
+
+    /**
+     * A static method which returns the lowest value of a bucket.
+     *
+     * @param index the index of the bucket
+     * @return the lowest value counted in the bucket
+     */
+    private static long lowestValueOf(int index) {
+        if(index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / HALF_SUB_BUCKET_COUNT - 1;
+        return (long) (index - shift * HALF_SUB_BUCKET_COUNT) << shift;
+    }
+
+    /**
+     * A static method which returns the amount of values counted in a bucket.
+     *
+     * @param index the index of the bucket
+     * @return the width of the bucket
+     */
+    private static long widthOf(int index) {
+        return index < SUB_BUCKET_COUNT ? 1 : 1L << (index / HALF_SUB_BUCKET_COUNT - 1);
+    }
+}
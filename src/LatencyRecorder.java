@@ -0,0 +1,113 @@
+/**
+ * Latencies of the completed {@link Process}es of a {@link CPU} or of
+ * a whole {@link Machine}, each kept in a {@link LatencyHistogram}:
+ * <ul>
+ *     <li>the wait time, the amount of cycles from the arrival of a process
+ *     until it's first dispatched,
+ *     <li>the response time, the amount of cycles from the arrival of
+ *     a process until it completes, the cycle of completion included,
+ *     <li>the slowdown, the response time divided by the amount of cycles
+ *     the process required, scaled by {@link #SLOWDOWN_SCALE}.
+ * </ul>
+ * <p>Processes which haven't been assigned by a {@link Scheduler} aren't
+ * recorded.
+ */
+public final class LatencyRecorder {
+    /**
+     * The scale of the recorded slowdowns, so they're counted in thousandths.
+     */
+    public static final int SLOWDOWN_SCALE = 1000;
+
+    /**
+     * The wait times of the completed processes.
+     */
+    private final LatencyHistogram waitTimes;
+
+    /**
+     * The response times of the completed processes.
+     */
+    private final LatencyHistogram responseTimes;
+
+    /**
+     * The scaled slowdowns of the completed processes.
+     */
+    private final LatencyHistogram slowdowns;
+
+    /**
+     * Class constructor.
+     */
+    public LatencyRecorder() {
+        waitTimes = new LatencyHistogram();
+        responseTimes = new LatencyHistogram();
+        slowdowns = new LatencyHistogram();
+    }
+
+    /**
+     * Records the latencies of a completed process.
+     *
+     * @param arrivalCycle the cycle in which the process arrived, or
+     *                     <code>-1</code> if it's not to be recorded
+     * @param dispatchCycle the cycle in which the process was first dispatched
+     * @param serviceTime the amount of cycles the process required
+     * @param completionCycle the cycle in which the process completed
+     */
+    public void record(long arrivalCycle, long dispatchCycle, int serviceTime, long completionCycle) {
+        if(arrivalCycle < 0) {
+            return;
+        }
+        long responseTime = completionCycle - arrivalCycle + 1;
+        waitTimes.record(dispatchCycle - arrivalCycle);
+        responseTimes.record(responseTime);
+        slowdowns.record(responseTime * SLOWDOWN_SCALE / serviceTime);
+    }
+
+    /**
+     * Adds all latencies recorded by another recorder to this one.
+     *
+     * @param recorder the recorder to be added
+     */
+    public void add(LatencyRecorder recorder) {
+        waitTimes.add(recorder.waitTimes);
+        responseTimes.add(recorder.responseTimes);
+        slowdowns.add(recorder.slowdowns);
+    }
+
+    /**
+     * Returns the histogram of the wait times.
+     *
+     * @return the wait times in cycles
+     */
+    public LatencyHistogram getWaitTimes() {
+        return waitTimes;
+    }
+
+    /**
+     * Returns the histogram of the response times.
+     *
+     * @return the response times in cycles
+     */
+    public LatencyHistogram getResponseTimes() {
+        return responseTimes;
+    }
+
+    /**
+     * Returns the histogram of the slowdowns, scaled by
+     * {@link #SLOWDOWN_SCALE}.
+     *
+     * @return the scaled slowdowns
+     */
+    public LatencyHistogram getSlowdowns() {
+        return slowdowns;
+    }
+
+    /**
+     * Returns a percentile of the slowdowns.
+     *
+     * @param quantile a number between 0 and 1
+     * @return the percentile of the slowdowns
+     * @see LatencyHistogram#getPercentile(Double)
+     */
+    public Double getSlowdownPercentile(Double quantile) {
+        return (double) slowdowns.getPercentile(quantile) / SLOWDOWN_SCALE;
+    }
+}
@@ -0,0 +1,349 @@
+import java.util.Arrays;
+
+/**
+ * A cache of usage snapshots of the {@link CPU}s of a {@link Machine}, which
+ * serves the usage requests of the algorithms with slightly stale values
+ * instead of asking the CPUs every time.
+ * <p>A snapshot is fresh for {@link #getTimeToLive()} cycles after it's been
+ * taken. A request for a CPU with a fresh snapshot is a hit and costs nothing,
+ * any other request asks the CPU, which counts as a usage request, and stores
+ * the answer. Snapshots are also refreshed without requests:
+ * <ul>
+ *     <li>every CPU pushes its usage every {@link #getRefreshInterval()}
+ *     cycles,
+ *     <li>{@link #getGossipCount()} randomly chosen CPUs push their usage
+ *     every cycle,
+ *     <li>with piggy-backing, a CPU receiving a relocated process sends its
+ *     new usage back with the acknowledgement.
+ * </ul>
+ * <p>To measure the cost of staleness the cache compares every hit with the
+ * live usage of the CPU. A relocation to a CPU whose snapshot was within the
+ * usage limit of the algorithm while its live usage was above it is counted
+ * as a misplacement, as the CPU wouldn't have been chosen with fresh data.
+ * The limit follows the algorithm's own comparison with its threshold, see
+ * {@link LoadIndex#usageLimit(Double, boolean)}.
+ *
+ * @see Machine#setLoadCache(LoadCache)
+ */
+public final class LoadCache {
+    /**
+     * The amount of cycles a snapshot is fresh for.
+     */
+    private final Integer timeToLive;
+
+    /**
+     * The amount of cycles between pushes of every CPU, zero if CPUs don't
+     * push periodically.
+     */
+    private final Integer refreshInterval;
+
+    /**
+     * The amount of random CPUs pushing their usage every cycle.
+     */
+    private final Integer gossipCount;
+
+    /**
+     * Whether relocations refresh the snapshot of the receiving CPU.
+     */
+    private final boolean piggyBacking;
+
+    /**
+     * The machine using this cache.
+     */
+    private Machine machine;
+
+    /**
+     * The usage snapshot of every CPU in fixed-point units.
+     */
+    private long[] usages;
+
+    /**
+     * The cycle in which every snapshot was taken.
+     */
+    private long[] timestamps;
+
+    /**
+     * Whether the last request for every CPU was served from the cache.
+     */
+    private boolean[] served;
+
+    /**
+     * The amount of requests served from the cache.
+     */
+    private long hitCount;
+
+    /**
+     * The amount of requests which asked the CPU.
+     */
+    private long missCount;
+
+    /**
+     * The amount of hits whose snapshot differed from the live usage.
+     */
+    private long staleHitCount;
+
+    /**
+     * The sum of the absolute differences between the snapshots and the live
+     * usages of all hits, in fixed-point units.
+     */
+    private long staleErrorSum;
+
+    /**
+     * The amount of relocations to a CPU above the usage limit which its
+     * snapshot put within it.
+     */
+    private long misplacementCount;
+
+    /**
+     * The amount of snapshots pushed by the CPUs, periodically or by gossip.
+     */
+    private long pushCount;
+
+    /**
+     * The amount of snapshots piggy-backed on relocations.
+     */
+    private long piggyBackCount;
+
+    /**
+     * Class constructor.
+     *
+     * @param timeToLive the amount of cycles a snapshot is fresh for
+     * @param refreshInterval the amount of cycles between pushes of every
+     *                        CPU, zero to disable periodic pushes
+     * @param gossipCount the amount of random CPUs pushing their usage every
+     *                    cycle, zero to disable gossip
+     * @param piggyBacking whether relocations refresh the snapshot of the
+     *                     receiving CPU
+     */
+    public LoadCache(Integer timeToLive, Integer refreshInterval, Integer gossipCount, Boolean piggyBacking) {
+        if(timeToLive == null || timeToLive < 0 || refreshInterval == null || refreshInterval < 0
+                || gossipCount == null || gossipCount < 0 || piggyBacking == null) {
+            throw new IllegalArgumentException();
+        }
+        this.timeToLive = timeToLive;
+        this.refreshInterval = refreshInterval;
+        this.gossipCount = gossipCount;
+        this.piggyBacking = piggyBacking;
+    }
+
+    /**
+     * Attaches the cache to a machine. All snapshots start stale.
+     *
+     * @param machine the machine using this cache
+     * @throws IllegalStateException If the cache is attached to another
+     *                               machine
+     */
+    void attach(Machine machine) {
+        if(this.machine != null && this.machine != machine) {
+            throw new IllegalStateException("The cache is used by another machine");
+        }
+        this.machine = machine;
+        usages = new long[machine.getCPUCount()];
+        timestamps = new long[machine.getCPUCount()];
+        Arrays.fill(timestamps, Long.MIN_VALUE);
+        served = new boolean[machine.getCPUCount()];
+    }
+
+    /**
+     * Returns the usage of a CPU, from a fresh snapshot if there is one.
+     * Otherwise the CPU is asked, which is counted as a usage request.
+     *
+     * @param cpu the CPU whose usage is requested
+     * @return the usage of the CPU, possibly stale
+     */
+    Double getUsage(CPU cpu) {
+        int i = cpu.getID();
+        long live = cpu.getUsageUnits();
+        if(timestamps[i] >= machine.getCycleCount() - (long) timeToLive) {
+            hitCount++;
+            served[i] = true;
+            if(usages[i] != live) {
+                staleHitCount++;
+                staleErrorSum += Math.abs(usages[i] - live);
+            }
+            return (double) usages[i] / CPU.USAGE_UNIT;
+        }
+        missCount++;
+        served[i] = false;
+        machine.increaseUsageRequestCount();
+        store(i, live);
+        return (double) live / CPU.USAGE_UNIT;
+    }
+
+    /**
+     * Records a relocation to a CPU. Counts a misplacement if the CPU's usage
+     * was served from the cache within the limit while it was above it, and
+     * piggy-backs its new usage if enabled.
+     *
+     * @param cpu the CPU which has received a process
+     * @param usageBefore the usage of the CPU before the relocation in
+     *                    fixed-point units
+     * @param limit the highest usage in fixed-point units with which the
+     *              algorithm accepts a CPU, {@link Long#MAX_VALUE} if it
+     *              accepts any
+     */
+    void handleRelocation(CPU cpu, long usageBefore, long limit) {
+        int i = cpu.getID();
+        if(served[i] && usages[i] <= limit && usageBefore > limit) {
+            misplacementCount++;
+        }
+        served[i] = false;
+        if(piggyBacking) {
+            piggyBackCount++;
+            store(i, cpu.getUsageUnits());
+        }
+    }
+
+    /**
+     * Checks whether the CPUs push their usage in some cycles.
+     *
+     * @return <code>true</code> if periodic pushes or gossip are enabled;
+     *         <code>false</code> otherwise.
+     */
+    boolean handlesCycles() {
+        return refreshInterval > 0 || gossipCount > 0;
+    }
+
+    /**
+     * Lets the CPUs push their usage at the end of a cycle.
+     */
+    void handleCycle() {
+        if(refreshInterval > 0 && machine.getCycleCount() % refreshInterval == 0) {
+            for(int i = 0; i < usages.length; i++) {
+                push(machine.getCPU(i));
+            }
+        }
+        if(gossipCount > 0) {
+            CPUSampler sampler = machine.sampleCPUs(null);
+            for(int i = 0; i < gossipCount && sampler.hasNext(); i++) {
+                push(sampler.next());
+            }
+        }
+    }
+
+    /**
+     * Stores the snapshot pushed by a CPU.
+     *
+     * @param cpu the CPU pushing its usage
+     */
+    private void push(CPU cpu) {
+        pushCount++;
+        store(cpu.getID(), cpu.getUsageUnits());
+    }
+
+    /**
+     * Stores a snapshot taken in the current cycle.
+     *
+     * @param i the identifier of the CPU
+     * @param usage the usage of the CPU in fixed-point units
+     */
+    private void store(int i, long usage) {
+        usages[i] = usage;
+        timestamps[i] = machine.getCycleCount();
+    }
+
+    /**
+     * Returns the amount of cycles a snapshot is fresh for.
+     *
+     * @return the time to live in cycles
+     */
+    public Integer getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * Returns the amount of cycles between pushes of every CPU.
+     *
+     * @return the refresh interval in cycles, zero if disabled
+     */
+    public Integer getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    /**
+     * Returns the amount of random CPUs pushing their usage every cycle.
+     *
+     * @return the gossip count, zero if disabled
+     */
+    public Integer getGossipCount() {
+        return gossipCount;
+    }
+
+    /**
+     * Returns the portion of the requests served from the cache.
+     *
+     * @return the hit rate, or zero if there were no requests
+     */
+    public Double getHitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 0 : (double) hitCount / requests;
+    }
+
+    /**
+     * Returns the amount of requests served from the cache.
+     *
+     * @return the hit count
+     */
+    public Long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the amount of requests which asked the CPU.
+     *
+     * @return the miss count
+     */
+    public Long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the portion of the hits whose snapshot differed from the live
+     * usage.
+     *
+     * @return the stale hit rate, or zero if there were no hits
+     */
+    public Double getStaleHitRate() {
+        return hitCount == 0 ? 0 : (double) staleHitCount / hitCount;
+    }
+
+    /**
+     * Returns the average absolute difference between the snapshot and the
+     * live usage over all hits.
+     *
+     * @return the average staleness error, or zero if there were no hits
+     */
+    public Double getAverageStaleError() {
+        return hitCount == 0 ? 0 : (double) staleErrorSum / CPU.USAGE_UNIT / hitCount;
+    }
+
+    /**
+     * Returns the amount of relocations to a CPU which was above the
+     * algorithm's usage limit while its snapshot said it was within it.
+     * Relocations of algorithms without a limit are never misplacements.
+     *
+     * @return the misplacement count
+     */
+    public Long getMisplacementCount() {
+        return misplacementCount;
+    }
+
+    /**
+     * Returns the amount of snapshots pushed by the CPUs, periodically or by
+     * gossip.
+     *
+     * @return the push count
+     */
+    public Long getPushCount() {
+        return pushCount;
+    }
+
+    /**
+     * Returns the amount of snapshots piggy-backed on relocations.
+     *
+     * @return the piggy-back count
+     */
+    public Long getPiggyBackCount() {
+        return piggyBackCount;
+    }
+}
@@ -0,0 +1,275 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * An index of the usages of the {@link CPU}s of a {@link Machine}, which
+ * answers load queries without asking every CPU for its usage.
+ * <p>A segment tree over the CPUs' identifiers holds the minimum usage of
+ * every range of CPUs, so the least-loaded CPU is found in O(log N). For every
+ * registered usage limit a Fenwick tree counts the CPUs whose usage doesn't
+ * exceed the limit, so a CPU is drawn uniformly among them in O(log N). A usage
+ * change costs O(log N) for the segment tree and every limit it crosses.
+ * <p>The usages are kept in fixed-point units, the same as in {@link CPU}. An
+ * index isn't thread-safe, it's only updated and queried in the sequential
+ * phases of a cycle.
+ *
+ * @see Machine#getLoadIndex()
+ */
+public final class LoadIndex {
+    /**
+     * The usage of every CPU in fixed-point units, indexed by CPUs'
+     * identifiers.
+     */
+    private final long[] usages;
+
+    /**
+     * The amount of leaves of the segment tree, a power of two.
+     */
+    private final int leafCount;
+
+    /**
+     * The segment tree of the minimum usages. The node <i>k</i> has the
+     * children 2<i>k</i> and 2<i>k</i>+1, the leaves start at
+     * {@link #leafCount}.
+     */
+    private final long[] minimums;
+
+    /**
+     * A random number generator used for drawing CPUs.
+     */
+    private final Random random;
+
+    /**
+     * The registered usage limits in fixed-point units.
+     */
+    private long[] limits;
+
+    /**
+     * A Fenwick tree for every registered limit, counting the CPUs with usage
+     * not exceeding the limit. Indexed from one.
+     */
+    private int[][] counts;
+
+    /**
+     * The amount of CPUs with usage not exceeding every registered limit.
+     */
+    private int[] totals;
+
+    /**
+     * Class constructor. All CPUs start with no usage.
+     *
+     * @param CPUCount amount of CPUs
+     * @param random a random number generator used for drawing CPUs
+     */
+    LoadIndex(int CPUCount, Random random) {
+        if(CPUCount <= 0 || random == null) {
+            throw new IllegalArgumentException();
+        }
+        this.random = random;
+        usages = new long[CPUCount];
+        leafCount = CPUCount == 1 ? 1 : Integer.highestOneBit(CPUCount - 1) << 1;
+        minimums = new long[2 * leafCount];
+        // the leaves past the last CPU never get picked
+        Arrays.fill(minimums, leafCount + CPUCount, minimums.length, Long.MAX_VALUE);
+        for(int node = leafCount - 1; node > 0; node--) {
+            minimums[node] = Math.min(minimums[2 * node], minimums[2 * node + 1]);
+        }
+        limits = new long[0];
+        counts = new int[0][];
+        totals = new int[0];
+    }
+
+    /**
+     * Changes the usage of a CPU.
+     *
+     * @param CPUIndex the identifier of the CPU
+     * @param usage the new usage in fixed-point units
+     */
+    void update(int CPUIndex, long usage) {
+        long previous = usages[CPUIndex];
+        if(previous == usage) {
+            return;
+        }
+        usages[CPUIndex] = usage;
+
+        int node = leafCount + CPUIndex;
+        minimums[node] = usage;
+        for(node >>>= 1; node > 0; node >>>= 1) {
+            long minimum = Math.min(minimums[2 * node], minimums[2 * node + 1]);
+            if(minimums[node] == minimum) {
+                break;
+            }
+            minimums[node] = minimum;
+        }
+
+        for(int i = 0; i < limits.length; i++) {
+            boolean wasBelow = previous <= limits[i];
+            boolean isBelow = usage <= limits[i];
+            if(wasBelow != isBelow) {
+                add(i, CPUIndex, isBelow ? 1 : -1);
+            }
+        }
+    }
+
+    /**
+     * Registers a usage limit, so CPUs with usage not exceeding it can be
+     * drawn. Registering the same limit again returns the same handle.
+     *
+     * @param limit the usage limit in fixed-point units
+     * @return the handle of the limit
+     * @see #usageLimit(Double, boolean)
+     */
+    public int registerLimit(long limit) {
+        for(int i = 0; i < limits.length; i++) {
+            if(limits[i] == limit) {
+                return i;
+            }
+        }
+        int handle = limits.length;
+        limits = Arrays.copyOf(limits, handle + 1);
+        counts = Arrays.copyOf(counts, handle + 1);
+        totals = Arrays.copyOf(totals, handle + 1);
+        limits[handle] = limit;
+
+        // builds the Fenwick tree in linear time
+        int[] tree = new int[usages.length + 1];
+        for(int i = 1; i <= usages.length; i++) {
+            if(usages[i - 1] <= limit) {
+                tree[i]++;
+                totals[handle]++;
+            }
+            int parent = i + (i & -i);
+            if(parent <= usages.length) {
+                tree[parent] += tree[i];
+            }
+        }
+        counts[handle] = tree;
+        return handle;
+    }
+
+    /**
+     * A static method which converts a usage threshold to a usage limit.
+     *
+     * @param threshold a number between 0 and 1 specifying the threshold
+     * @param inclusive whether a usage equal to the threshold is within
+     *                  the limit
+     * @return the highest usage in fixed-point units which is lower than the
+     *         threshold, or not higher if it's inclusive
+     */
+    public static long usageLimit(Double threshold, boolean inclusive) {
+        // scaling by a power of two is exact, so this matches comparing getUsage() with the threshold
+        double scaled = threshold * CPU.USAGE_UNIT;
+        long limit = (long) Math.floor(scaled);
+        return inclusive || limit < scaled ? limit : limit - 1;
+    }
+
+    /**
+     * Draws a CPU uniformly among the ones with usage not exceeding
+     * a registered limit.
+     *
+     * @param handle the handle of the limit
+     * @param excluded the identifier of a CPU which isn't drawn, or -1
+     * @return the identifier of the drawn CPU, or -1 if there's no such CPU
+     */
+    public int randomWithin(int handle, int excluded) {
+        int count = totals[handle];
+        boolean excludedWithin = excluded >= 0 && usages[excluded] <= limits[handle];
+        if(excludedWithin) {
+            count--;
+        }
+        if(count <= 0) {
+            return -1;
+        }
+        int rank = random.nextInt(count);
+        if(excludedWithin && rank >= prefixCount(handle, excluded)) {
+            rank++;
+        }
+        return select(handle, rank);
+    }
+
+    /**
+     * Returns the amount of CPUs with usage not exceeding a registered limit.
+     *
+     * @param handle the handle of the limit
+     * @return the amount of CPUs within the limit
+     */
+    public int countWithin(int handle) {
+        return totals[handle];
+    }
+
+    /**
+     * Returns the CPU with the lowest usage, the one with the lowest
+     * identifier among equally loaded ones.
+     *
+     * @return the identifier of the least-loaded CPU
+     */
+    public int leastLoaded() {
+        int node = 1;
+        while(node < leafCount) {
+            node = minimums[2 * node] <= minimums[2 * node + 1] ? 2 * node : 2 * node + 1;
+        }
+        return node - leafCount;
+    }
+
+    /**
+     * Returns the indexed usage of a CPU.
+     *
+     * @param CPUIndex the identifier of the CPU
+     * @return the usage in fixed-point units
+     */
+    public long getUsage(int CPUIndex) {
+        return usages[CPUIndex];
+    }
+
+    /**
+     * Adds a value to the count of a CPU in a Fenwick tree.
+     *
+     * @param handle the handle of the limit
+     * @param CPUIndex the identifier of the CPU
+     * @param delta the value to be added
+     */
+    private void add(int handle, int CPUIndex, int delta) {
+        int[] tree = counts[handle];
+        for(int i = CPUIndex + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+        totals[handle] += delta;
+    }
+
+    /**
+     * Counts the CPUs within a limit with identifiers lower than the
+     * specified one.
+     *
+     * @param handle the handle of the limit
+     * @param CPUIndex the identifier of the CPU
+     * @return the amount of CPUs within the limit preceding the CPU
+     */
+    private int prefixCount(int handle, int CPUIndex) {
+        int[] tree = counts[handle];
+        int count = 0;
+        for(int i = CPUIndex; i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+
+    /**
+     * Finds the CPU within a limit with the specified rank, descending the
+     * Fenwick tree.
+     *
+     * @param handle the handle of the limit
+     * @param rank the amount of CPUs within the limit preceding the CPU
+     * @return the identifier of the CPU
+     */
+    private int select(int handle, int rank) {
+        int[] tree = counts[handle];
+        int position = 0;
+        for(int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>>= 1) {
+            if(position + step < tree.length && tree[position + step] <= rank) {
+                position += step;
+                rank -= tree[position];
+            }
+        }
+        return position;
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * A {@link Process} appears on {@link CPU} <i>x</i> of a {@link Machine}. If
+ * the usage of <i>x</i> doesn't exceed some threshold <i>p</i>, the process is
+ * sent to <i>x</i>. Otherwise at most <i>z</i> randomly chosen CPUs of the
+ * same machine are asked for usage and the process is sent to the first one
+ * with usage not exceeding <i>p</i>. If there's none and the machine belongs
+ * to a {@link Cluster}, the loads of <i>d</i> randomly chosen other machines
+ * are read and the process is migrated to the least-loaded one, if its load
+ * doesn't exceed <i>p</i>. Otherwise the process waits for the next cycle.
+ * <p>Local CPUs are always tried first, because placing a process within the
+ * machine is much cheaper than migrating it to another one.
+ */
+public final class LocalFirst extends Algorithm {
+    /**
+     * The usage threshold according to which the algorithm chooses a CPU.
+     */
+    private Double threshold;
+
+    /**
+     * The highest usage in fixed-point units not higher than the
+     * threshold, with which the algorithm accepts a CPU.
+     */
+    private long limit;
+
+    /**
+     * The maximum amount of local CPUs asked for usage for every process.
+     */
+    private Integer localAttemptCount;
+
+    /**
+     * The amount of other machines whose load is read for every process which
+     * can't be placed locally.
+     */
+    private Integer remoteAttemptCount;
+
+    /**
+     * Class constructor.
+     *
+     * @param threshold usage threshold according to which the algorithm
+     *                  chooses a CPU
+     * @param localAttemptCount the maximum amount of local CPUs asked for
+     *                          usage for every process
+     * @param remoteAttemptCount the amount of other machines whose load is
+     *                           read for every process which can't be placed
+     *                           locally
+     */
+    public LocalFirst(Double threshold, Integer localAttemptCount, Integer remoteAttemptCount) {
+        if(threshold == null || localAttemptCount == null || localAttemptCount < 0
+                || remoteAttemptCount == null || remoteAttemptCount < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.threshold = threshold;
+        limit = LoadIndex.usageLimit(threshold, true);
+        this.localAttemptCount = localAttemptCount;
+        this.remoteAttemptCount = remoteAttemptCount;
+    }
+
+    @Override
+    public boolean handleProcess(CPU master, Process process) {
+        if(master.getUsage() <= threshold) {
+            master.addProcess(process);
+            return true;
+        }
+
+        Machine machine = master.getMaster();
+        CPUSampler sampler = machine.sampleCPUs(master);
+        for(int i = 0; i < localAttemptCount && sampler.hasNext(); i++) {
+            CPU randomCPU = sampler.next();
+            if(machine.requestUsage(randomCPU) <= threshold) {
+                machine.relocateProcess(randomCPU, process, limit);
+                return true;
+            }
+        }
+
+        Cluster cluster = machine.getCluster();
+        return cluster != null && remoteAttemptCount > 0
+                && cluster.migrate(machine, process, threshold, remoteAttemptCount);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return <code>true</code>, the algorithm keeps no state of its own
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "Local first (z=" + localAttemptCount + ", d=" + remoteAttemptCount + ")";
+    }
+}
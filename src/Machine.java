@@ -1,6 +1,14 @@
 import java.time.Duration;
 import java.time.Period;
 import java.util.*;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Class representing a single machine, that is the set of {@link CPU}s and an
@@ -8,34 +16,195 @@ import java.util.*;
  */
 public class Machine {
     /**
-     * The CPUs installed in this machine.
+     * The CPUs installed in this machine, indexed by their identifiers.
+     */
+    private CPU[] CPUs;
+
+    /**
+     * An unmodifiable set view of all CPUs installed in this machine.
      */
     private Set<CPU> CPUSet;
 
+    /**
+     * A random number generator used for choosing CPUs.
+     */
+    private Random random;
+
+    /**
+     * The algorithm being used by every CPU of this machine.
+     */
+    private Algorithm algorithm;
+
+    /**
+     * Per-thread samplers used for drawing random CPUs.
+     */
+    private ThreadLocal<CPUSampler> samplers;
+
+    /**
+     * An index of the CPUs' usages, created on its first use.
+     */
+    private LoadIndex loadIndex;
+
+    /**
+     * A cache serving the usage requests of the algorithm, or
+     * <code>null</code> if the CPUs are asked every time.
+     */
+    private LoadCache loadCache;
+
+    /**
+     * The time series sampling this machine, or <code>null</code> if it isn't
+     * sampled.
+     */
+    private TimeSeries timeSeries;
+
+    /**
+     * The statistics of the CPUs' usages, updated every cycle.
+     */
+    private UsageStatistics usageStatistics;
+
+    /**
+     * Whether the simulation has been asked to stop after the current cycle.
+     */
+    private volatile boolean stopped;
+
+    /**
+     * The cluster this machine belongs to, or <code>null</code> if it runs on
+     * its own.
+     */
+    private Cluster cluster;
+
+    /**
+     * The index of this machine in its cluster.
+     */
+    private int clusterIndex;
+
     /**
      * A scheduler being used by this machine to assign schedules.
      */
     private Scheduler scheduler;
 
+    /**
+     * The processes waiting to be sent to every CPU, indexed by CPUs'
+     * identifiers.
+     */
+    private List<Queue<Process>> waitingProcesses;
+
+    /**
+     * The identifiers of the CPUs with waiting processes, in ascending order.
+     */
+    private int[] waitingCPUs;
+
+    /**
+     * The amount of CPUs with waiting processes.
+     */
+    private int waitingCPUCount;
+
+    /**
+     * The identifiers of the CPUs which had no waiting processes before an
+     * arrival in the current cycle, in ascending order.
+     */
+    private int[] arrivedCPUs;
+
+    /**
+     * The amount of CPUs which had no waiting processes before an arrival in
+     * the current cycle.
+     */
+    private int arrivedCPUCount;
+
+    /**
+     * A buffer for merging the CPUs with waiting processes.
+     */
+    private int[] mergedCPUs;
+
+    /**
+     * The receiver of the processes assigned by the scheduler.
+     */
+    private ArrivalHandler arrivalHandler;
+
     /**
      * A total number of CPU usage requests.
      */
-    private Integer usageRequestCount;
+    private long usageRequestCount;
 
     /**
      * A total number of process relocations.
      */
-    private Integer relocationCount;
+    private long relocationCount;
 
     /**
-     * The time of executing
-     * */
-    private Date timeStart;
+     * The amount of cycles passed.
+     */
+    private long cycleCount;
 
     /**
-     * The time when all processing is done
-     * */
-    private Date timeStop;
+     * The cycles in which running processes complete, used only by the event
+     * driven simulation.
+     */
+    private PriorityQueue<Long> completions;
+
+    /**
+     * The {@link System#nanoTime()} when the simulation started.
+     */
+    private Long timeStart;
+
+    /**
+     * The {@link System#nanoTime()} when the simulation finished.
+     */
+    private Long timeStop;
+
+    /**
+     * The amount of processes sent to the CPUs, including the ones placed
+     * again from the ready queues.
+     */
+    private long placementCount;
+
+    /**
+     * Whether the concurrent simulation is running.
+     */
+    private volatile boolean concurrent;
+
+    /**
+     * Whether the concurrent simulation is finished, set between cycles.
+     */
+    private volatile boolean concurrentFinished;
+
+    /**
+     * An error thrown by a CPU's thread of the concurrent simulation.
+     */
+    private volatile Throwable failure;
+
+    /**
+     * The usage requests and relocations counted by the threads of the
+     * concurrent simulation, <code>null</code> if it isn't running.
+     */
+    private LongAdder concurrentUsageRequestCount, concurrentRelocationCount, concurrentPlacementCount;
+
+    /**
+     * The amount of processes admitted and rejected by a compare-and-set of
+     * a CPU's usage budget in the concurrent simulation.
+     */
+    private LongAdder admissionCount, rejectedAdmissionCount;
+
+    /**
+     * The amount of failed compare-and-sets of the CPUs' usage budgets in the
+     * concurrent simulation.
+     */
+    private LongAdder CASRetryCount;
+
+    /**
+     * The duration of the concurrent simulation in nanoseconds.
+     */
+    private long concurrentNanos;
+
+    /**
+     * The stack size of the threads of the concurrent simulation.
+     */
+    private static final long CPU_THREAD_STACK_SIZE = 1 << 18;
+
+    /**
+     * The amount of CPUs below which a parallel cycle isn't split any further.
+     */
+    private static final int PARALLEL_GRANULARITY = 64;
 
     /**
      * Class constructor.
@@ -45,64 +214,606 @@ public class Machine {
      * @param schedules a set of schedule queues to be assigned to CPUs
      */
     public Machine(Integer CPUCount, Algorithm algorithm, Set<Queue<Schedule>> schedules) {
-        if(CPUCount == null || CPUCount <= 0 || algorithm == null || schedules == null) {
+        this(CPUCount, algorithm, machine -> new Scheduler(machine, schedules), new Random(),
+                ObjectProcessStorage::new);
+    }
+
+    /**
+     * Class constructor. Two machines with the same seed and schedules produce
+     * the same results.
+     *
+     * @param CPUCount amount of CPUs
+     * @param algorithm an algorithm to be used
+     * @param schedules a set of schedule queues to be assigned to CPUs
+     * @param seed the seed of the random number generator used for choosing
+     *             CPUs
+     */
+    public Machine(Integer CPUCount, Algorithm algorithm, Set<Queue<Schedule>> schedules, Long seed) {
+        this(CPUCount, algorithm, schedules, seed, ObjectProcessStorage::new);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param CPUCount amount of CPUs
+     * @param algorithm an algorithm to be used
+     * @param schedules a set of schedule queues to be assigned to CPUs
+     * @param seed the seed of the random number generator used for choosing
+     *             CPUs
+     * @param storage a factory of the process storage of every CPU, for
+     *                example {@link PrimitiveProcessStorage}
+     */
+    public Machine(Integer CPUCount, Algorithm algorithm, Set<Queue<Schedule>> schedules, Long seed,
+                   Supplier<ProcessStorage> storage) {
+        this(CPUCount, algorithm, machine -> new Scheduler(machine, schedules), new Random(seed), storage);
+    }
+
+    /**
+     * Class constructor. The schedule queues are read lazily, so they may be
+     * generated on demand.
+     *
+     * @param CPUCount amount of CPUs
+     * @param algorithm an algorithm to be used
+     * @param schedules schedule queues indexed by CPUs' identifiers, for
+     *                  example the ones of {@link Generator#stream}
+     * @param seed the seed of the random number generator used for choosing
+     *             CPUs
+     */
+    public Machine(Integer CPUCount, Algorithm algorithm, List<? extends Iterator<Schedule>> schedules, Long seed) {
+        this(CPUCount, algorithm, schedules, seed, ObjectProcessStorage::new);
+    }
+
+    /**
+     * Class constructor. The schedule queues are read lazily, so they may be
+     * generated on demand.
+     *
+     * @param CPUCount amount of CPUs
+     * @param algorithm an algorithm to be used
+     * @param schedules schedule queues indexed by CPUs' identifiers, for
+     *                  example the ones of {@link Generator#stream}
+     * @param seed the seed of the random number generator used for choosing
+     *             CPUs
+     * @param storage a factory of the process storage of every CPU, for
+     *                example {@link PrimitiveProcessStorage}
+     */
+    public Machine(Integer CPUCount, Algorithm algorithm, List<? extends Iterator<Schedule>> schedules, Long seed,
+                   Supplier<ProcessStorage> storage) {
+        this(CPUCount, algorithm, machine -> new Scheduler(machine, schedules), new Random(seed), storage);
+    }
+
+    /**
+     * Class constructor. The schedules are read field by field, so a trace
+     * larger than the heap may be replayed.
+     *
+     * @param CPUCount amount of CPUs
+     * @param algorithm an algorithm to be used
+     * @param schedules a source of schedule queues indexed by CPUs'
+     *                  identifiers, for example a {@link Workload} or a
+     *                  {@link TraceReader}
+     * @param seed the seed of the random number generator used for choosing
+     *             CPUs
+     */
+    public Machine(Integer CPUCount, Algorithm algorithm, ScheduleSource schedules, Long seed) {
+        this(CPUCount, algorithm, schedules, seed, ObjectProcessStorage::new);
+    }
+
+    /**
+     * Class constructor. The schedules are read field by field, so a trace
+     * larger than the heap may be replayed.
+     *
+     * @param CPUCount amount of CPUs
+     * @param algorithm an algorithm to be used
+     * @param schedules a source of schedule queues indexed by CPUs'
+     *                  identifiers, for example a {@link Workload} or a
+     *                  {@link TraceReader}
+     * @param seed the seed of the random number generator used for choosing
+     *             CPUs
+     * @param storage a factory of the process storage of every CPU, for
+     *                example {@link PrimitiveProcessStorage}
+     */
+    public Machine(Integer CPUCount, Algorithm algorithm, ScheduleSource schedules, Long seed,
+                   Supplier<ProcessStorage> storage) {
+        this(CPUCount, algorithm, machine -> new Scheduler(machine, schedules), new Random(seed), storage);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param CPUCount amount of CPUs
+     * @param algorithm an algorithm to be used
+     * @param schedules a factory of the scheduler assigning schedule queues
+     *                  to CPUs
+     * @param random a random number generator used for choosing CPUs
+     * @param storage a factory of the process storage of every CPU
+     */
+    private Machine(Integer CPUCount, Algorithm algorithm, Function<Machine, Scheduler> schedules, Random random,
+                    Supplier<ProcessStorage> storage) {
+        if(CPUCount == null || CPUCount <= 0 || algorithm == null || schedules == null || storage == null) {
             throw new IllegalArgumentException();
         }
-        CPUSet = new HashSet<>();
+        CPUs = new CPU[CPUCount];
         for(int i = 0; i < CPUCount; i++) {
-            CPUSet.add(new CPU(this, algorithm, i));
+            CPUs[i] = new CPU(this, algorithm, i, storage.get());
         }
-        scheduler = new Scheduler(this, schedules);
+        CPUSet = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(CPUs)));
+        this.random = random;
+        this.algorithm = algorithm;
+        samplers = ThreadLocal.withInitial(() -> new CPUSampler(CPUs,
+                concurrent ? ThreadLocalRandom.current() : random));
+        waitingProcesses = new ArrayList<>(CPUCount);
+        for(int i = 0; i < CPUCount; i++) {
+            waitingProcesses.add(new ArrayDeque<>());
+        }
+        waitingCPUs = new int[CPUCount];
+        arrivedCPUs = new int[CPUCount];
+        mergedCPUs = new int[CPUCount];
+        arrivalHandler = this::addWaitingProcess;
+        scheduler = schedules.apply(this);
+        admissionCount = new LongAdder();
+        rejectedAdmissionCount = new LongAdder();
+        CASRetryCount = new LongAdder();
         usageRequestCount = 0;
         relocationCount = 0;
+        cycleCount = 0;
+        usageStatistics = new UsageStatistics(CPUCount);
     }
 
     /**
-     * todo
+     * Runs the simulation on the calling thread until every schedule has been
+     * assigned and every assigned process has been sent to a CPU.
+     * <p>Every cycle consists of three phases. First the new processes are
+     * sent to the CPUs through the algorithm, then every CPU executes its
+     * running processes, and finally the CPUs which freed some resources
+     * dispatch their ready queues through the algorithm. The phases using
+     * the algorithm always visit the CPUs in the order of their identifiers.
+     * An algorithm which handles cycles runs its own step at the end.
+     *
+     * @see #runParallel(ForkJoinPool)
      */
     public void run() {
-        timeStart = new Date();
-        Map<CPU, Queue<Process>> processQueues = new HashMap<>();
-        for(CPU cpu : CPUSet) {
-            processQueues.put(cpu, new LinkedList<>());
+        simulate(null);
+    }
+
+    /**
+     * Runs the simulation the same way as {@link #run()}, but the execution
+     * phase of every cycle is run for all CPUs in parallel on the specified
+     * pool. The phases using the algorithm stay sequential, so for the same
+     * seed the results are the same as the ones of {@link #run()}.
+     *
+     * @param pool a pool on which the CPUs are executed
+     */
+    public void runParallel(ForkJoinPool pool) {
+        if(pool == null) {
+            throw new IllegalArgumentException();
+        }
+        simulate(pool);
+    }
+
+    /**
+     * Runs the simulation the same way as {@link #run()}, but driven by a
+     * priority queue of events instead of stepping through every cycle.
+     * <p>The events are the arrivals of new schedules and the completions of
+     * running processes, ready queues are only dispatched right after
+     * a completion. When there are no processes waiting to be sent, the
+     * simulation jumps straight to the cycle of the next event and only
+     * accounts the usage of the skipped cycles, so the results are the same
+     * as the ones of {@link #run()}.
+     */
+    public void runEventDriven() {
+        timeStart = System.nanoTime();
+        completions = new PriorityQueue<>();
+        long cycle = 0;
+
+        while(hasWork()) {
+            // processes waiting to be sent are retried every cycle
+            if(waitingCPUCount == 0 && !handlesCycles()) {
+                long nextEvent = cycle + scheduler.getCyclesUntilArrival();
+                while(!completions.isEmpty() && completions.peek() < cycle) {
+                    completions.poll();
+                }
+                if(!completions.isEmpty()) {
+                    nextEvent = Math.min(nextEvent, completions.peek());
+                }
+                if(nextEvent > cycle) {
+                    int skipped = (int) (nextEvent - cycle);
+                    if(timeSeries != null) {
+                        timeSeries.handleSkippedCycles(cycleCount, cycleCount + skipped, CPUs);
+                    }
+                    scheduler.skipCycles(skipped);
+                    for(CPU cpu : CPUs) {
+                        cpu.skipCycles(skipped);
+                    }
+                    usageStatistics.record(CPUs, skipped);
+                    cycle = nextEvent;
+                    cycleCount += skipped;
+                }
+            }
+            makeCycle(null);
+            cycle++;
         }
+        completions = null;
+        timeStop = System.nanoTime();
+    }
 
-        Queue<Process> processQueue;
+    /**
+     * Runs the simulation with every CPU driven by a thread of its own, so the
+     * algorithm places processes on all CPUs at the same time and really
+     * contends for them.
+     * <p>Every cycle consists of two phases separated by barriers. First
+     * every CPU's thread sends the processes assigned to the CPU through the
+     * algorithm, then it executes the CPU and dispatches its ready queue,
+     * while the other threads may still place processes on it. A process is
+     * admitted to a CPU by reserving its usage with a compare-and-set of the
+     * CPU's usage budget, so racing placements never overload a CPU, the
+     * losers retry or end up in the ready queue. The scheduler assigns the
+     * arrivals of the next cycle between the cycles.
+     * <p>The results depend on the scheduling of the threads, so they aren't
+     * repeatable. Only thread-safe algorithms are supported, see
+     * {@link Algorithm#isThreadSafe()}, and no load cache may be used.
+     *
+     * @throws InterruptedException If the calling thread is interrupted while
+     *                              waiting for the CPUs' threads
+     * @throws IllegalStateException If the algorithm isn't thread-safe,
+     *                               a load cache is used, the machine belongs
+     *                               to a cluster or a CPU's thread fails
+     * @see #getPlacementThroughput()
+     * @see #getCASRetryRate()
+     */
+    public void runConcurrent() throws InterruptedException {
+        if(!algorithm.isThreadSafe() || loadCache != null || cluster != null) {
+            throw new IllegalStateException("The machine can't be simulated concurrently");
+        }
+        concurrentUsageRequestCount = new LongAdder();
+        concurrentRelocationCount = new LongAdder();
+        concurrentPlacementCount = new LongAdder();
+        concurrent = true;
+        for(CPU cpu : CPUs) {
+            cpu.setConcurrent(true);
+        }
 
-        while(!scheduler.isDone() || !queuesEmpty(processQueues)) {
-            Map<CPU, Queue<Process>> currentProcesses = scheduler.getProcesses();
-            for(CPU cpu : processQueues.keySet()) {
-                processQueues.get(cpu).addAll(currentProcesses.get(cpu));
+        timeStart = System.nanoTime();
+        long start = System.nanoTime();
+        arrivedCPUCount = 0;
+        concurrentFinished = !hasWork();
+        if(!concurrentFinished) {
+            scheduler.dispatchArrivals(arrivalHandler);
+        }
+        CyclicBarrier placed = new CyclicBarrier(CPUs.length);
+        CyclicBarrier executed = new CyclicBarrier(CPUs.length, this::finishConcurrentCycle);
+        Thread[] threads = new Thread[CPUs.length];
+        for(int i = 0; i < CPUs.length; i++) {
+            CPU cpu = CPUs[i];
+            threads[i] = new Thread(null, () -> simulateCPU(cpu, placed, executed), "CPU " + i,
+                    CPU_THREAD_STACK_SIZE);
+            threads[i].start();
+        }
+        try {
+            for(Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            for(Thread thread : threads) {
+                thread.interrupt();
+            }
+            throw e;
+        } finally {
+            concurrentNanos += System.nanoTime() - start;
+            timeStop = System.nanoTime();
+            for(CPU cpu : CPUs) {
+                cpu.setConcurrent(false);
             }
+            concurrent = false;
+            usageRequestCount += concurrentUsageRequestCount.sum();
+            relocationCount += concurrentRelocationCount.sum();
+            placementCount += concurrentPlacementCount.sum();
+            concurrentUsageRequestCount = null;
+            concurrentRelocationCount = null;
+            concurrentPlacementCount = null;
+        }
+
+        if(failure != null) {
+            throw new IllegalStateException("The concurrent simulation failed", failure);
+        }
+    }
 
-            for(CPU cpu : CPUSet) {
-                processQueue = processQueues.get(cpu);
-                while(!processQueue.isEmpty()) {
-                    if(!cpu.sendProcess(processQueue.peek())) {
-                        break;
+    /**
+     * Makes the cycles of a CPU in the concurrent simulation until it's
+     * finished, meeting the other CPUs' threads at the barriers.
+     *
+     * @param cpu the CPU
+     * @param placed the barrier after the new processes have been placed
+     * @param executed the barrier after the CPUs have been executed
+     */
+    private void simulateCPU(CPU cpu, CyclicBarrier placed, CyclicBarrier executed) {
+        Queue<Process> queue = waitingProcesses.get(cpu.getID());
+        try {
+            while(!concurrentFinished) {
+                try {
+                    if(!queue.isEmpty()) {
+                        concurrentPlacementCount.add(sendBatch(cpu, queue));
                     }
-                    processQueue.poll();
+                } catch (RuntimeException | Error e) {
+                    // the failed thread keeps meeting the others, so they stop at the barrier
+                    failure = e;
                 }
-                cpu.makeCycle();
+                placed.await();
+                try {
+                    cpu.executeCycle();
+                    concurrentPlacementCount.add(cpu.admitAwaitingProcesses());
+                } catch (RuntimeException | Error e) {
+                    failure = e;
+                }
+                executed.await();
+            }
+        } catch (InterruptedException | BrokenBarrierException e) {
+            // the run has been interrupted
+        }
+    }
+
+    /**
+     * Finishes a cycle of the concurrent simulation and assigns the arrivals
+     * of the next one. Run by the last CPU's thread reaching the barrier,
+     * while the others wait.
+     */
+    private void finishConcurrentCycle() {
+        usageStatistics.record(CPUs, 1);
+        if(timeSeries != null) {
+            timeSeries.handleCycle(cycleCount, CPUs);
+        }
+        cycleCount++;
+        waitingCPUCount = 0;
+        for(Queue<Process> queue : waitingProcesses) {
+            if(!queue.isEmpty()) {
+                waitingCPUCount++;
+            }
+        }
+        concurrentFinished = failure != null || !hasWork();
+        if(!concurrentFinished) {
+            arrivedCPUCount = 0;
+            try {
+                scheduler.dispatchArrivals(arrivalHandler);
+            } catch (RuntimeException | Error e) {
+                failure = e;
+                concurrentFinished = true;
             }
         }
-        timeStop = new Date();
     }
 
     /**
-     * A static method to determine if all queues in a map are empty.
+     * Counts an admission attempt of the concurrent simulation. May be called
+     * by any thread.
+     *
+     * @param retries the amount of failed compare-and-sets of the attempt
+     * @param admitted whether the process has been admitted
+     */
+    void countAdmission(int retries, boolean admitted) {
+        (admitted ? admissionCount : rejectedAdmissionCount).increment();
+        if(retries > 0) {
+            CASRetryCount.add(retries);
+        }
+    }
+
+    /**
+     * Runs the simulation.
+     *
+     * @param pool a pool on which the CPUs are executed, or <code>null</code>
+     *             to execute them on the calling thread
+     */
+    private void simulate(ForkJoinPool pool) {
+        timeStart = System.nanoTime();
+        while(hasWork()) {
+            makeCycle(pool);
+        }
+        timeStop = System.nanoTime();
+    }
+
+    /**
+     * Checks whether some schedules haven't been assigned yet or some assigned
+     * processes haven't been sent to a CPU yet.
      *
-     * @param processQueues set of queues mapped to CPUs
-     * @return <code>true</code> is all queues in a map are empty;
+     * @return <code>true</code> if the simulation isn't finished;
      *         <code>false</code> otherwise.
      */
-    private static boolean queuesEmpty(Map<CPU, Queue<Process>> processQueues) {
-        for(CPU cpu : processQueues.keySet()) {
-            if(!processQueues.get(cpu).isEmpty()) {
-                return false;
+    boolean hasWork() {
+        return !stopped && (!scheduler.isDone() || waitingCPUCount > 0);
+    }
+
+    /**
+     * Makes one cycle of the simulation on the calling thread, on behalf of
+     * the cluster stepping all its machines in lockstep.
+     *
+     * @see Cluster#run()
+     */
+    void step() {
+        if(timeStart == null) {
+            timeStart = System.nanoTime();
+        }
+        makeCycle(null);
+        timeStop = System.nanoTime();
+    }
+
+    /**
+     * Makes one cycle of the simulation.
+     *
+     * @param pool a pool on which the CPUs are executed, or <code>null</code>
+     *             to execute them on the calling thread
+     * @see #run()
+     */
+    private void makeCycle(ForkJoinPool pool) {
+        arrivedCPUCount = 0;
+        scheduler.dispatchArrivals(arrivalHandler);
+        sendWaitingProcesses();
+
+        if(pool == null) {
+            for(CPU cpu : CPUs) {
+                cpu.executeCycle();
+            }
+        }
+        else {
+            pool.invoke(new ExecutionTask(CPUs, 0, CPUs.length));
+        }
+        usageStatistics.record(CPUs, 1);
+
+        if(loadIndex != null) {
+            // only completions change the usage while executing, dispatches report themselves
+            for(CPU cpu : CPUs) {
+                if(cpu.hasFreedSpace()) {
+                    updateLoad(cpu);
+                }
             }
         }
-        return true;
+        for(CPU cpu : CPUs) {
+            placementCount += cpu.admitAwaitingProcesses();
+        }
+        if(algorithm.handlesCycles()) {
+            algorithm.handleCycle(this);
+        }
+        if(loadCache != null && loadCache.handlesCycles()) {
+            loadCache.handleCycle();
+        }
+        if(timeSeries != null) {
+            timeSeries.handleCycle(cycleCount, CPUs);
+        }
+        cycleCount++;
+    }
+
+    /**
+     * Adds a process assigned by the scheduler to the processes waiting to
+     * be sent to its CPU.
+     *
+     * @param CPUIndex the identifier of the CPU
+     * @param process the assigned process
+     */
+    private void addWaitingProcess(int CPUIndex, Process process) {
+        Queue<Process> queue = waitingProcesses.get(CPUIndex);
+        if(queue.isEmpty()) {
+            arrivedCPUs[arrivedCPUCount++] = CPUIndex;
+        }
+        queue.add(process);
+    }
+
+    /**
+     * Sends the waiting processes of every CPU which has any, in the order of
+     * the CPUs' identifiers, until a process can't be sent. Only the CPUs with
+     * waiting processes are visited.
+     */
+    private void sendWaitingProcesses() {
+        // both lists are sorted and disjoint, because the arrived CPUs had no waiting processes
+        int merged = 0;
+        int i = 0;
+        int j = 0;
+        while(i < waitingCPUCount || j < arrivedCPUCount) {
+            if(j == arrivedCPUCount || i < waitingCPUCount && waitingCPUs[i] < arrivedCPUs[j]) {
+                mergedCPUs[merged++] = waitingCPUs[i++];
+            }
+            else {
+                mergedCPUs[merged++] = arrivedCPUs[j++];
+            }
+        }
+
+        waitingCPUCount = 0;
+        for(int k = 0; k < merged; k++) {
+            Queue<Process> queue = waitingProcesses.get(mergedCPUs[k]);
+            placementCount += sendBatch(CPUs[mergedCPUs[k]], queue);
+            if(!queue.isEmpty()) {
+                waitingCPUs[waitingCPUCount++] = mergedCPUs[k];
+            }
+        }
+    }
+
+    /**
+     * Sends all waiting processes of a CPU to it as a single batch, so the
+     * algorithm can share its probes among them, and removes the ones which
+     * have been sent. The queue itself is the batch, it's polled after the
+     * algorithm is done with it.
+     *
+     * @param cpu the CPU on which the processes are waiting
+     * @param queue the waiting processes of the CPU, not empty
+     * @return the amount of processes sent
+     * @see Algorithm#handleProcesses(CPU, Collection)
+     */
+    private static int sendBatch(CPU cpu, Queue<Process> queue) {
+        int sent = cpu.sendProcesses(queue);
+        for(int i = 0; i < sent; i++) {
+            queue.poll();
+        }
+        return sent;
+    }
+
+    /**
+     * Checks whether the algorithm or the load cache run a step in every
+     * cycle, so no cycle may be skipped.
+     *
+     * @return <code>true</code> if a step runs in every cycle;
+     *         <code>false</code> otherwise.
+     */
+    private boolean handlesCycles() {
+        return algorithm.handlesCycles() || loadCache != null && loadCache.handlesCycles();
+    }
+
+    /**
+     * Registers the cycle in which a dispatched process completes, so the
+     * event driven simulation doesn't skip it. Does nothing in the other
+     * modes.
+     *
+     * @param cycle the cycle in which the process completes
+     * @see #runEventDriven()
+     */
+    void scheduleCompletion(long cycle) {
+        if(completions != null) {
+            completions.add(cycle);
+        }
+    }
+
+    /**
+     * A task executing one cycle of a range of CPUs, splitting the range in
+     * halves until it's small enough.
+     */
+    private static final class ExecutionTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * All CPUs of the machine.
+         */
+        private final CPU[] CPUs;
+
+        /**
+         * The index of the first CPU in the range, inclusive.
+         */
+        private final int from;
+
+        /**
+         * The index of the last CPU in the range, exclusive.
+         */
+        private final int to;
+
+        /**
+         * Class constructor.
+         *
+         * @param CPUs all CPUs of the machine
+         * @param from the index of the first CPU in the range, inclusive
+         * @param to the index of the last CPU in the range, exclusive
+         */
+        ExecutionTask(CPU[] CPUs, int from, int to) {
+            this.CPUs = CPUs;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void compute() {
+            if(to - from <= PARALLEL_GRANULARITY) {
+                for(int i = from; i < to; i++) {
+                    CPUs[i].executeCycle();
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ExecutionTask(CPUs, from, middle), new ExecutionTask(CPUs, middle, to));
+        }
     }
 
     /**
@@ -111,13 +822,234 @@ public class Machine {
      * @return a set of all CPUs installed in this machine
      */
     public Set<CPU> getCPUSet() {
-        return Collections.unmodifiableSet(CPUSet);
+        return CPUSet;
+    }
+
+    /**
+     * Returns the CPU with the specified identifier.
+     *
+     * @param ID CPU's identifier
+     * @return the CPU with the specified identifier
+     */
+    public CPU getCPU(Integer ID) {
+        return CPUs[ID];
+    }
+
+    /**
+     * Returns the amount of CPUs installed in this machine.
+     *
+     * @return the amount of CPUs
+     */
+    public Integer getCPUCount() {
+        return CPUs.length;
+    }
+
+    /**
+     * Starts drawing random CPUs of this machine without replacement. The
+     * returned sampler belongs to the calling thread and is reused by its next
+     * call, so a draw sequence has to be finished before a new one is started.
+     *
+     * @param excluded a CPU which is never drawn, may be <code>null</code>
+     * @return this thread's sampler, reset for a new draw sequence
+     */
+    public CPUSampler sampleCPUs(CPU excluded) {
+        return samplers.get().reset(excluded);
+    }
+
+    /**
+     * Returns the random number generator of this machine, so the random
+     * choices of a seeded simulation are repeatable.
+     *
+     * @return the random number generator of this machine
+     */
+    Random getRandom() {
+        return random;
+    }
+
+    /**
+     * Returns the index of the CPUs' usages, creating it on the first call.
+     * Until then the machine doesn't maintain it, so the algorithms which
+     * don't use it don't pay for it.
+     *
+     * @return the load index of this machine
+     */
+    public LoadIndex getLoadIndex() {
+        if(loadIndex == null) {
+            loadIndex = new LoadIndex(CPUs.length, random);
+            for(CPU cpu : CPUs) {
+                loadIndex.update(cpu.getID(), cpu.getUsageUnits());
+            }
+        }
+        return loadIndex;
+    }
+
+    /**
+     * Reports the current usage of a CPU to the load index, if it's used.
+     *
+     * @param cpu the CPU whose usage has changed
+     */
+    void updateLoad(CPU cpu) {
+        if(loadIndex != null) {
+            loadIndex.update(cpu.getID(), cpu.getUsageUnits());
+        }
+    }
+
+    /**
+     * Sets a cache serving the usage requests of the algorithm. Has to be
+     * called before the simulation is run.
+     *
+     * @param loadCache a cache not used by any other machine, or
+     *                  <code>null</code> to ask the CPUs every time
+     */
+    public void setLoadCache(LoadCache loadCache) {
+        if(loadCache != null) {
+            loadCache.attach(this);
+        }
+        this.loadCache = loadCache;
+    }
+
+    /**
+     * Returns the cache serving the usage requests of the algorithm.
+     *
+     * @return the load cache, or <code>null</code> if there's none
+     */
+    public LoadCache getLoadCache() {
+        return loadCache;
+    }
+
+    /**
+     * Sets a time series sampling the CPUs at the end of every cycle on its
+     * interval. Has to be called before the simulation is run. The event
+     * driven simulation samples the cycles it skips as well, so every way of
+     * running produces the same samples for the same seed.
+     *
+     * @param timeSeries a time series not used by any other machine, or
+     *                   <code>null</code> to sample nothing
+     * @throws java.io.UncheckedIOException If the output file of the series
+     *                                      can't be created
+     */
+    public void setTimeSeries(TimeSeries timeSeries) {
+        if(timeSeries != null) {
+            timeSeries.attach(this);
+        }
+        this.timeSeries = timeSeries;
+    }
+
+    /**
+     * Returns the time series sampling this machine.
+     *
+     * @return the time series, or <code>null</code> if there's none
+     */
+    public TimeSeries getTimeSeries() {
+        return timeSeries;
+    }
+
+    /**
+     * Requests the usage of another CPU on behalf of the algorithm. Without
+     * a load cache the CPU is asked, which is counted as a usage request.
+     *
+     * @param cpu the CPU whose usage is requested
+     * @return the usage of the CPU, possibly stale if it's served from the
+     *         load cache
+     * @see LoadCache
+     */
+    public Double requestUsage(CPU cpu) {
+        if(loadCache != null) {
+            return loadCache.getUsage(cpu);
+        }
+        increaseUsageRequestCount();
+        return cpu.getUsage();
+    }
+
+    /**
+     * Relocates a process to another CPU on behalf of an algorithm without
+     * a usage threshold, which is counted as a relocation.
+     *
+     * @param cpu the CPU receiving the process
+     * @param process the relocated process
+     * @see #relocateProcess(CPU, Process, long)
+     */
+    public void relocateProcess(CPU cpu, Process process) {
+        relocateProcess(cpu, process, Long.MAX_VALUE);
+    }
+
+    /**
+     * Relocates a process to another CPU on behalf of the algorithm, which is
+     * counted as a relocation. The usage limit under which the algorithm
+     * chose the CPU lets the load cache tell whether a stale usage misled it.
+     *
+     * @param cpu the CPU receiving the process
+     * @param process the relocated process
+     * @param limit the highest usage in fixed-point units with which the
+     *              algorithm accepts a CPU, {@link Long#MAX_VALUE} if it
+     *              accepts any
+     * @see LoadIndex#usageLimit(Double, boolean)
+     * @see LoadCache#getMisplacementCount()
+     */
+    public void relocateProcess(CPU cpu, Process process, long limit) {
+        increaseRelocationCount();
+        long usageBefore = cpu.getUsageUnits();
+        cpu.addProcess(process);
+        if(loadCache != null) {
+            loadCache.handleRelocation(cpu, usageBefore, limit);
+        }
+    }
+
+    /**
+     * Places a process migrated from another machine of the cluster on the
+     * least-loaded CPU of this machine. Called by the cluster between cycles.
+     *
+     * @param process the migrated process
+     */
+    void acceptMigration(Process process) {
+        CPU cpu = CPUs[getLoadIndex().leastLoaded()];
+        long usageBefore = cpu.getUsageUnits();
+        cpu.addProcess(process);
+        if(loadCache != null) {
+            loadCache.handleRelocation(cpu, usageBefore, Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Adds this machine to a cluster. A machine belongs to one cluster at most.
+     *
+     * @param cluster the cluster
+     * @param index the index of this machine in the cluster
+     */
+    void joinCluster(Cluster cluster, int index) {
+        if(this.cluster != null) {
+            throw new IllegalArgumentException("The machine already belongs to a cluster");
+        }
+        this.cluster = cluster;
+        clusterIndex = index;
+    }
+
+    /**
+     * Returns the cluster this machine belongs to.
+     *
+     * @return the cluster, or <code>null</code> if the machine runs on its own
+     */
+    public Cluster getCluster() {
+        return cluster;
+    }
+
+    /**
+     * Returns the index of this machine in its cluster.
+     *
+     * @return the index of this machine in its cluster
+     */
+    public Integer getClusterIndex() {
+        return clusterIndex;
     }
 
     /**
      * Increases the CPU usage request count.
      */
     public void increaseUsageRequestCount() {
+        if(concurrentUsageRequestCount != null) {
+            concurrentUsageRequestCount.increment();
+            return;
+        }
         usageRequestCount++;
     }
 
@@ -136,6 +1068,10 @@ public class Machine {
      * @param i a number to be increased by
      */
     public void increaseRelocationCount(Integer i) {
+        if(concurrentRelocationCount != null) {
+            concurrentRelocationCount.add(i);
+            return;
+        }
         relocationCount += i;
     }
 
@@ -143,27 +1079,100 @@ public class Machine {
      * Returns an average usage of all CPU's.
      *
      * @return average usage of all CPU's
+     * @see #getUsageStatistics()
      */
     public Double getAverageUsage() {
         Double totalUsage = 0d;
-        for(CPU cpu : CPUSet) {
+        for(CPU cpu : CPUs) {
             totalUsage += cpu.getAverageUsage();
         }
-        return totalUsage / CPUSet.size();
+        return totalUsage / CPUs.length;
+    }
+
+    /**
+     * Returns the current usage of all CPUs on average.
+     *
+     * @return the average current usage of all CPUs
+     */
+    public Double getCurrentUsage() {
+        long totalUsage = 0;
+        for(CPU cpu : CPUs) {
+            totalUsage += cpu.getUsageUnits();
+        }
+        return (double) totalUsage / CPU.USAGE_UNIT / CPUs.length;
     }
 
     /**
      * Returns an average deviation of every CPU usage.
      *
      * @return average deviation of every CPU usage
+     * @see #getUsageStatistics()
      */
     public Double getAverageUsageDeviation() {
-        Double averageUsage = getAverageUsage();
-        Double deviation = 0d;
-        for(CPU cpu : CPUSet) {
-            deviation += Math.abs(cpu.getAverageUsage() - averageUsage);
+        double[] averageUsages = new double[CPUs.length];
+        double totalUsage = 0;
+        for(int i = 0; i < CPUs.length; i++) {
+            averageUsages[i] = CPUs[i].getAverageUsage();
+            totalUsage += averageUsages[i];
+        }
+        double averageUsage = totalUsage / CPUs.length;
+        double deviation = 0;
+        for(double usage : averageUsages) {
+            deviation += Math.abs(usage - averageUsage);
+        }
+        return deviation / CPUs.length;
+    }
+
+    /**
+     * Sets whether the usage statistics record the Gini coefficient of the
+     * CPUs' usages, which sorts the usages every cycle. Has to be called
+     * before the simulation is run. It isn't recorded by default.
+     *
+     * @param giniRecorded whether the Gini coefficient is recorded
+     * @see UsageStatistics#getGini()
+     */
+    public void setGiniRecorded(Boolean giniRecorded) {
+        usageStatistics.setGiniRecorded(CPUs.length, giniRecorded);
+    }
+
+    /**
+     * Returns the statistics of the CPUs' usages, which are updated every
+     * cycle and may be read by any thread while the simulation runs. The
+     * mean and the variance are those of the average usage of all CPUs in
+     * a cycle, taken from the usages with which the CPUs have executed it,
+     * so the mean equals {@link #getAverageUsage()} in every way of running.
+     * In the concurrent simulation these include the usage which other
+     * CPUs' threads reserved before the CPU executed.
+     *
+     * @return the live usage statistics of this machine
+     * @see #stop()
+     */
+    public UsageStatistics getUsageStatistics() {
+        return usageStatistics;
+    }
+
+    /**
+     * Asks a running simulation to stop after the current cycle, for example
+     * when its usage statistics show it's not worth finishing. May be called
+     * by any thread. The results then cover the cycles made so far. A cluster
+     * stops once all of its machines are stopped or finished.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Returns the latencies of the processes completed on all CPUs, merged
+     * from the recorders of the CPUs.
+     *
+     * @return a new recorder of the latencies of this machine
+     */
+    public LatencyRecorder getLatencies() {
+        LatencyRecorder latencies = new LatencyRecorder();
+        for(CPU cpu : CPUs) {
+            latencies.add(cpu.getLatencies());
         }
-        return deviation / CPUSet.size();
+        return latencies;
     }
 
     /**
@@ -171,7 +1180,7 @@ public class Machine {
      *
      * @return CPU usage request count
      */
-    public Integer getUsageRequestCount() {
+    public Long getUsageRequestCount() {
         return usageRequestCount;
     }
 
@@ -181,11 +1190,128 @@ public class Machine {
      *
      * @return process relocation count
      */
-    public Integer getRelocationCount() {
+    public Long getRelocationCount() {
         return relocationCount;
     }
 
-    public Long getDuration(){
-        return timeStop.getTime() - timeStart.getTime();
+    /**
+     * Returns the amount of relocations so far, including the ones of
+     * a running concurrent simulation which are only counted at its end.
+     *
+     * @return the amount of relocations so far
+     */
+    long getCurrentRelocationCount() {
+        return concurrentRelocationCount != null
+                ? relocationCount + concurrentRelocationCount.sum() : relocationCount;
+    }
+
+    /**
+     * Returns the amount of cycles passed.
+     *
+     * @return amount of cycles passed
+     */
+    public Long getCycleCount() {
+        return cycleCount;
+    }
+
+    /**
+     * Returns the amount of processes admitted to a CPU by a compare-and-set
+     * in the concurrent simulation.
+     *
+     * @return the admission count
+     * @see #runConcurrent()
+     */
+    public Long getAdmissionCount() {
+        return admissionCount.sum();
+    }
+
+    /**
+     * Returns the amount of processes which didn't fit on a CPU when their
+     * usage was to be reserved in the concurrent simulation, so they were
+     * moved to its ready queue.
+     *
+     * @return the rejected admission count
+     * @see #runConcurrent()
+     */
+    public Long getRejectedAdmissionCount() {
+        return rejectedAdmissionCount.sum();
+    }
+
+    /**
+     * Returns the amount of compare-and-sets of the CPUs' usage budgets which
+     * failed because another thread changed the budget first.
+     *
+     * @return the CAS retry count
+     * @see #runConcurrent()
+     */
+    public Long getCASRetryCount() {
+        return CASRetryCount.sum();
+    }
+
+    /**
+     * Returns the amount of failed compare-and-sets per admission attempt in
+     * the concurrent simulation.
+     *
+     * @return the CAS retry rate, zero if there has been no attempt
+     * @see #runConcurrent()
+     */
+    public Double getCASRetryRate() {
+        long attempts = admissionCount.sum() + rejectedAdmissionCount.sum();
+        return attempts == 0 ? 0d : (double) CASRetryCount.sum() / attempts;
+    }
+
+    /**
+     * Returns the amount of processes admitted per second of the concurrent
+     * simulation.
+     *
+     * @return the placement throughput, zero if the concurrent simulation
+     *         hasn't been run
+     * @see #runConcurrent()
+     */
+    public Double getPlacementThroughput() {
+        return concurrentNanos == 0 ? 0d : admissionCount.sum() / (concurrentNanos / 1e9);
+    }
+
+    /**
+     * Returns the amount of processes sent to the CPUs so far. A process
+     * waiting in a ready queue is placed again when it's admitted, which
+     * counts as another placement, as the algorithm may probe for it.
+     *
+     * @return the amount of placements
+     */
+    public Long getPlacementCount() {
+        return placementCount;
+    }
+
+    /**
+     * Returns the average amount of usage requests per process sent to the
+     * CPUs, the probing cost of a placement.
+     *
+     * @return the amount of usage requests per placement, zero if no process
+     *         has been sent
+     */
+    public Double getRequestsPerPlacement() {
+        return placementCount == 0 ? 0d : (double) usageRequestCount / placementCount;
+    }
+
+    /**
+     * Returns the wall-clock duration of the last simulation, measured with
+     * {@link System#nanoTime()}. A single run includes the compilation of
+     * the simulator, so use a {@link TimingHarness} for comparable numbers.
+     *
+     * @return the duration in milliseconds
+     */
+    public Long getDuration() {
+        return getDurationNanos() / 1000000;
+    }
+
+    /**
+     * Returns the wall-clock duration of the last simulation.
+     *
+     * @return the duration in nanoseconds
+     * @see #getDuration()
+     */
+    public Long getDurationNanos() {
+        return timeStop - timeStart;
     }
 }
@@ -0,0 +1,163 @@
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * A {@link ProcessStorage} keeping the {@link Process} objects themselves. The
+ * running processes are filed in a {@link TimingWheel}, the ready processes
+ * in a {@link ReadyQueue}.
+ */
+public final class ObjectProcessStorage implements ProcessStorage {
+    /**
+     * The currently running processes, filed under the cycles in which they
+     * complete.
+     */
+    private TimingWheel processWheel;
+
+    /**
+     * The set of ready processes waiting to be dispatched.
+     */
+    private ReadyQueue awaitingProcesses;
+
+    /**
+     * A reusable buffer for the processes removed from the wheel.
+     */
+    private List<Process> removedProcesses;
+
+    /**
+     * The last expired cycle.
+     */
+    private long cycle;
+
+    /**
+     * Class constructor. The ready queue is first in, first out.
+     */
+    public ObjectProcessStorage() {
+        this(ReadyQueuePolicy.FIFO);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param policy the policy of the ready queue
+     */
+    public ObjectProcessStorage(ReadyQueuePolicy policy) {
+        processWheel = new TimingWheel();
+        awaitingProcesses = new ReadyQueue(policy);
+        removedProcesses = new ArrayList<>();
+        cycle = -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addRunning(Process process, long cycle) {
+        processWheel.add(process, cycle + process.getBurstTime() - 1, process.getBurstTime());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Touches only the completing processes.
+     */
+    @Override
+    public long expire(long cycle, LatencyRecorder latencies) {
+        this.cycle = cycle;
+        processWheel.expire(cycle, removedProcesses);
+        for(Process process : removedProcesses) {
+            latencies.record(process.getArrivalCycle(), process.getDispatchCycle(), process.getServiceTime(), cycle);
+        }
+        return drainRemovedUsage();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Only moves the last expired cycle, since the processes are filed
+     * under their completion cycles.
+     */
+    @Override
+    public void skip(int cycles) {
+        cycle += cycles;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getRunningCount() {
+        return processWheel.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getAwaitingCount() {
+        return awaitingProcesses.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getRunningUsage() {
+        long usage = 0;
+        for(Process process : processWheel) {
+            usage += CPU.toUnits(process.getUsage());
+        }
+        return usage;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addAwaiting(Process process) {
+        awaitingProcesses.add(process);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Process pollAwaiting(long availableUsage, long cycle) {
+        return awaitingProcesses.poll(availableUsage, cycle);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void forEachPID(IntConsumer action) {
+        for(Process process : processWheel) {
+            action.accept(process.getPID());
+        }
+        awaitingProcesses.forEachPID(action);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long removeAll(int[] PIDs, int count, List<Process> removed) {
+        processWheel.removeAll(PIDs, count, cycle, removedProcesses);
+        removed.addAll(removedProcesses);
+        long usage = drainRemovedUsage();
+        awaitingProcesses.removeAll(PIDs, count, removed);
+        return usage;
+    }
+
+    /**
+     * Sums up the usage of the processes in the removed processes buffer and
+     * clears it.
+     *
+     * @return the usage of the removed processes
+     */
+    private long drainRemovedUsage() {
+        long usage = 0;
+        for(Process process : removedProcesses) {
+            usage += CPU.toUnits(process.getUsage());
+        }
+        removedProcesses.clear();
+        return usage;
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * The power of <i>d</i> choices. A {@link Process} appears on {@link CPU}
+ * <i>x</i>, which requests its own usage and the usage of <i>d</i>-1 distinct
+ * randomly chosen other CPUs of the machine. The process is added to the one
+ * with the lowest usage, <i>x</i> if it's tied with another one, so with
+ * <i>d</i>=1 every process stays on <i>x</i>. Already two choices balance the load exponentially
+ * better than a single random one, at a fixed cost of <i>d</i> requests per
+ * process.
+ */
+public final class PowerOfD extends Algorithm {
+    /**
+     * The amount of CPUs chosen for every process.
+     */
+    private Integer d;
+
+    /**
+     * Class constructor.
+     *
+     * @param d the amount of CPUs chosen for every process
+     */
+    public PowerOfD(Integer d) {
+        if(d == null || d <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.d = d;
+    }
+
+    @Override
+    public boolean handleProcess(CPU master, Process process) {
+        Machine machine = master.getMaster();
+        CPU best = master;
+        double bestUsage = machine.requestUsage(master);
+
+        CPUSampler sampler = machine.sampleCPUs(master);
+        for(int i = 1; i < d && sampler.hasNext(); i++) {
+            CPU randomCPU = sampler.next();
+            double usage = machine.requestUsage(randomCPU);
+            if(usage < bestUsage) {
+                best = randomCPU;
+                bestUsage = usage;
+            }
+        }
+
+        if(best != master) {
+            machine.relocateProcess(best, process);
+        }
+        else {
+            master.addProcess(process);
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return <code>true</code>, the algorithm keeps no state of its own
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "Power of d choices (d=" + d + ")";
+    }
+}
@@ -0,0 +1,378 @@
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * A {@link ProcessStorage} keeping the processes in parallel primitive arrays
+ * instead of {@link Process} objects, which cuts the heap use and the garbage
+ * collection churn of long simulations.
+ * <p>The running processes are stored as a struct of arrays, completed ones
+ * are removed by moving the last process in their place. The ready queue is
+ * a ring buffer. Process objects are only created when a ready process is
+ * handed back to the {@link Algorithm}. Only a first in, first out ready
+ * queue fits a ring buffer, under any other {@link ReadyQueuePolicy} the
+ * ready processes are kept as objects in a {@link ReadyQueue}.
+ */
+public final class PrimitiveProcessStorage implements ProcessStorage {
+    /**
+     * The initial capacity of the arrays, a power of two.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The identifiers of the running processes.
+     */
+    private int[] PIDs;
+
+    /**
+     * The usages of the running processes.
+     */
+    private double[] usages;
+
+    /**
+     * The remaining burst times of the running processes.
+     */
+    private int[] remainingTimes;
+
+    /**
+     * The burst times of the running processes when they arrived.
+     */
+    private int[] serviceTimes;
+
+    /**
+     * The arrival cycles of the running processes.
+     */
+    private long[] arrivalCycles;
+
+    /**
+     * The first dispatch cycles of the running processes.
+     */
+    private long[] dispatchCycles;
+
+    /**
+     * The amount of running processes.
+     */
+    private int runningCount;
+
+    /**
+     * The identifiers of the ready processes, a ring buffer.
+     */
+    private int[] awaitingPIDs;
+
+    /**
+     * The usages of the ready processes, a ring buffer.
+     */
+    private double[] awaitingUsages;
+
+    /**
+     * The burst times of the ready processes, a ring buffer.
+     */
+    private int[] awaitingBurstTimes;
+
+    /**
+     * The burst times of the ready processes when they arrived, a ring buffer.
+     */
+    private int[] awaitingServiceTimes;
+
+    /**
+     * The arrival cycles of the ready processes, a ring buffer.
+     */
+    private long[] awaitingArrivalCycles;
+
+    /**
+     * The first dispatch cycles of the ready processes, a ring buffer.
+     */
+    private long[] awaitingDispatchCycles;
+
+    /**
+     * The index of the head of the ready queue.
+     */
+    private int awaitingHead;
+
+    /**
+     * The amount of ready processes.
+     */
+    private int awaitingCount;
+
+    /**
+     * The ready queue if its policy isn't first in, first out, otherwise
+     * <code>null</code> and the ring buffer is used.
+     */
+    private ReadyQueue readyQueue;
+
+    /**
+     * Class constructor. The ready queue is first in, first out.
+     */
+    public PrimitiveProcessStorage() {
+        this(ReadyQueuePolicy.FIFO);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param policy the policy of the ready queue
+     */
+    public PrimitiveProcessStorage(ReadyQueuePolicy policy) {
+        if(policy != ReadyQueuePolicy.FIFO) {
+            readyQueue = new ReadyQueue(policy);
+        }
+        PIDs = new int[INITIAL_CAPACITY];
+        usages = new double[INITIAL_CAPACITY];
+        remainingTimes = new int[INITIAL_CAPACITY];
+        serviceTimes = new int[INITIAL_CAPACITY];
+        arrivalCycles = new long[INITIAL_CAPACITY];
+        dispatchCycles = new long[INITIAL_CAPACITY];
+        awaitingPIDs = new int[INITIAL_CAPACITY];
+        awaitingUsages = new double[INITIAL_CAPACITY];
+        awaitingBurstTimes = new int[INITIAL_CAPACITY];
+        awaitingServiceTimes = new int[INITIAL_CAPACITY];
+        awaitingArrivalCycles = new long[INITIAL_CAPACITY];
+        awaitingDispatchCycles = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addRunning(Process process, long cycle) {
+        if(runningCount == PIDs.length) {
+            PIDs = Arrays.copyOf(PIDs, runningCount * 2);
+            usages = Arrays.copyOf(usages, runningCount * 2);
+            remainingTimes = Arrays.copyOf(remainingTimes, runningCount * 2);
+            serviceTimes = Arrays.copyOf(serviceTimes, runningCount * 2);
+            arrivalCycles = Arrays.copyOf(arrivalCycles, runningCount * 2);
+            dispatchCycles = Arrays.copyOf(dispatchCycles, runningCount * 2);
+        }
+        PIDs[runningCount] = process.getPID();
+        usages[runningCount] = process.getUsage();
+        remainingTimes[runningCount] = process.getBurstTime();
+        serviceTimes[runningCount] = process.getServiceTime();
+        arrivalCycles[runningCount] = process.getArrivalCycle();
+        dispatchCycles[runningCount] = process.getDispatchCycle();
+        runningCount++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long expire(long cycle, LatencyRecorder latencies) {
+        long usage = 0;
+        int i = 0;
+        while(i < runningCount) {
+            if(--remainingTimes[i] == 0) {
+                usage += CPU.toUnits(usages[i]);
+                latencies.record(arrivalCycles[i], dispatchCycles[i], serviceTimes[i], cycle);
+                removeRunningAt(i);
+            }
+            else {
+                i++;
+            }
+        }
+        return usage;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void skip(int cycles) {
+        for(int i = 0; i < runningCount; i++) {
+            remainingTimes[i] -= cycles;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getRunningCount() {
+        return runningCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getAwaitingCount() {
+        return readyQueue != null ? readyQueue.size() : awaitingCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getRunningUsage() {
+        long usage = 0;
+        for(int i = 0; i < runningCount; i++) {
+            usage += CPU.toUnits(usages[i]);
+        }
+        return usage;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addAwaiting(Process process) {
+        if(readyQueue != null) {
+            readyQueue.add(process);
+            return;
+        }
+        if(awaitingCount == awaitingPIDs.length) {
+            growAwaiting();
+        }
+        int tail = (awaitingHead + awaitingCount) & (awaitingPIDs.length - 1);
+        awaitingPIDs[tail] = process.getPID();
+        awaitingUsages[tail] = process.getUsage();
+        awaitingBurstTimes[tail] = process.getBurstTime();
+        awaitingServiceTimes[tail] = process.getServiceTime();
+        awaitingArrivalCycles[tail] = process.getArrivalCycle();
+        awaitingDispatchCycles[tail] = process.getDispatchCycle();
+        awaitingCount++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Process pollAwaiting(long availableUsage, long cycle) {
+        if(readyQueue != null) {
+            return readyQueue.poll(availableUsage, cycle);
+        }
+        if(awaitingCount == 0 || CPU.toUnits(awaitingUsages[awaitingHead]) > availableUsage) {
+            return null;
+        }
+        Process process = awaitingProcess(awaitingHead);
+        awaitingHead = (awaitingHead + 1) & (awaitingPIDs.length - 1);
+        awaitingCount--;
+        return process;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void forEachPID(IntConsumer action) {
+        for(int i = 0; i < runningCount; i++) {
+            action.accept(PIDs[i]);
+        }
+        if(readyQueue != null) {
+            readyQueue.forEachPID(action);
+        }
+        for(int i = 0; i < awaitingCount; i++) {
+            action.accept(awaitingPIDs[(awaitingHead + i) & (awaitingPIDs.length - 1)]);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long removeAll(int[] removedPIDs, int count, List<Process> removed) {
+        long usage = 0;
+        int i = 0;
+        while(i < runningCount) {
+            if(Arrays.binarySearch(removedPIDs, 0, count, PIDs[i]) >= 0) {
+                usage += CPU.toUnits(usages[i]);
+                removed.add(runningProcess(i));
+                removeRunningAt(i);
+            }
+            else {
+                i++;
+            }
+        }
+
+        if(readyQueue != null) {
+            readyQueue.removeAll(removedPIDs, count, removed);
+        }
+
+        // compact the ready queue, keeping its order
+        int kept = 0;
+        int mask = awaitingPIDs.length - 1;
+        for(i = 0; i < awaitingCount; i++) {
+            int from = (awaitingHead + i) & mask;
+            if(Arrays.binarySearch(removedPIDs, 0, count, awaitingPIDs[from]) >= 0) {
+                removed.add(awaitingProcess(from));
+            }
+            else {
+                int to = (awaitingHead + kept) & mask;
+                awaitingPIDs[to] = awaitingPIDs[from];
+                awaitingUsages[to] = awaitingUsages[from];
+                awaitingBurstTimes[to] = awaitingBurstTimes[from];
+                awaitingServiceTimes[to] = awaitingServiceTimes[from];
+                awaitingArrivalCycles[to] = awaitingArrivalCycles[from];
+                awaitingDispatchCycles[to] = awaitingDispatchCycles[from];
+                kept++;
+            }
+        }
+        awaitingCount = kept;
+        return usage;
+    }
+
+    /**
+     * Removes a running process by moving the last running process in
+     * its place.
+     *
+     * @param i the index of the process
+     */
+    private void removeRunningAt(int i) {
+        runningCount--;
+        PIDs[i] = PIDs[runningCount];
+        usages[i] = usages[runningCount];
+        remainingTimes[i] = remainingTimes[runningCount];
+        serviceTimes[i] = serviceTimes[runningCount];
+        arrivalCycles[i] = arrivalCycles[runningCount];
+        dispatchCycles[i] = dispatchCycles[runningCount];
+    }
+
+    /**
+     * Creates the object of a running process with its remaining burst time.
+     *
+     * @param i the index of the process
+     * @return the process
+     */
+    private Process runningProcess(int i) {
+        return new Process(PIDs[i], usages[i], remainingTimes[i], serviceTimes[i], arrivalCycles[i],
+                dispatchCycles[i]);
+    }
+
+    /**
+     * Creates the object of a ready process.
+     *
+     * @param j the index of the process in the ring buffer
+     * @return the process
+     */
+    private Process awaitingProcess(int j) {
+        return new Process(awaitingPIDs[j], awaitingUsages[j], awaitingBurstTimes[j], awaitingServiceTimes[j],
+                awaitingArrivalCycles[j], awaitingDispatchCycles[j]);
+    }
+
+    /**
+     * Doubles the capacity of the ready queue, moving its head to the start.
+     */
+    private void growAwaiting() {
+        int capacity = awaitingPIDs.length;
+        int[] PIDs = new int[capacity * 2];
+        double[] usages = new double[capacity * 2];
+        int[] burstTimes = new int[capacity * 2];
+        int[] serviceTimes = new int[capacity * 2];
+        long[] arrivalCycles = new long[capacity * 2];
+        long[] dispatchCycles = new long[capacity * 2];
+        for(int i = 0; i < awaitingCount; i++) {
+            int j = (awaitingHead + i) & (capacity - 1);
+            PIDs[i] = awaitingPIDs[j];
+            usages[i] = awaitingUsages[j];
+            burstTimes[i] = awaitingBurstTimes[j];
+            serviceTimes[i] = awaitingServiceTimes[j];
+            arrivalCycles[i] = awaitingArrivalCycles[j];
+            dispatchCycles[i] = awaitingDispatchCycles[j];
+        }
+        awaitingPIDs = PIDs;
+        awaitingUsages = usages;
+        awaitingBurstTimes = burstTimes;
+        awaitingServiceTimes = serviceTimes;
+        awaitingArrivalCycles = arrivalCycles;
+        awaitingDispatchCycles = dispatchCycles;
+        awaitingHead = 0;
+    }
+}
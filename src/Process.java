@@ -1,6 +1,11 @@
 /**
  * Representation of a process with an identifier, CPU usage in percent
  * and the time required to complete the process.
+ * <p>A process also carries the cycle in which it arrived and the cycle in
+ * which it was first dispatched, which are kept when it's moved to another
+ * CPU, so its latencies are measured end to end.
+ *
+ * @see LatencyRecorder
  */
 public final class Process {
     /**
@@ -18,6 +23,23 @@ public final class Process {
      */
     private Integer burstTime;
 
+    /**
+     * The amount of CPU cycles the process required when it arrived.
+     */
+    private Integer serviceTime;
+
+    /**
+     * The cycle in which the process arrived, <code>-1</code> if it hasn't
+     * been assigned by a {@link Scheduler}.
+     */
+    private long arrivalCycle;
+
+    /**
+     * The cycle in which the process was first dispatched, <code>-1</code> if
+     * it hasn't been dispatched yet.
+     */
+    private long dispatchCycle;
+
     /**
      * Class constructor.
      *
@@ -36,6 +58,32 @@ public final class Process {
         this.PID = PID;
         this.usage = usage;
         this.burstTime = burstTime;
+        serviceTime = burstTime;
+        arrivalCycle = -1;
+        dispatchCycle = -1;
+    }
+
+    /**
+     * Class constructor of a process which has already been running.
+     *
+     * @param PID a unique identification number
+     * @param usage a number between 0 and 1 specifying the usage of CPU's
+     *              resources in percent
+     * @param burstTime the amount of CPU cycles still required to burst the
+     *                  process
+     * @param serviceTime the amount of CPU cycles the process required when
+     *                    it arrived
+     * @param arrivalCycle the cycle in which the process arrived, or
+     *                     <code>-1</code>
+     * @param dispatchCycle the cycle in which the process was first
+     *                      dispatched, or <code>-1</code>
+     */
+    Process(Integer PID, Double usage, Integer burstTime, Integer serviceTime, long arrivalCycle,
+            long dispatchCycle) {
+        this(PID, usage, burstTime);
+        this.serviceTime = serviceTime;
+        this.arrivalCycle = arrivalCycle;
+        this.dispatchCycle = dispatchCycle;
     }
 
     /**
@@ -44,7 +92,28 @@ public final class Process {
      * @param process a process to be copied
      */
     public Process(Process process) {
-        this(process.PID, process.usage, process.burstTime);
+        this(process.PID, process.usage, process.burstTime, process.serviceTime, process.arrivalCycle,
+                process.dispatchCycle);
+    }
+
+    /**
+     * Returns a copy of this process which still requires the specified
+     * amount of cycles, used when a running process is moved to another CPU.
+     *
+     * @param burstTime the remaining burst time
+     * @return the copy of this process
+     */
+    Process withBurstTime(Integer burstTime) {
+        return new Process(PID, usage, burstTime, serviceTime, arrivalCycle, dispatchCycle);
+    }
+
+    /**
+     * Returns this process' identifier.
+     *
+     * @return this process' identifier
+     */
+    public Integer getPID() {
+        return PID;
     }
 
     /**
@@ -57,13 +126,62 @@ public final class Process {
     }
 
     /**
-     * Decreases the remaining time and returns the status of a process.
+     * Returns the amount of CPU cycles required to burst this process.
      *
-     * @return <code>true</code> if the process is finished and is supposed
-     *         to be removed; <code>false</code> otherwise.
+     * @return the burst time
      */
-    public boolean execute() {
-        return --burstTime == 0;
+    public Integer getBurstTime() {
+        return burstTime;
+    }
+
+    /**
+     * Returns the amount of CPU cycles the process required when it arrived.
+     *
+     * @return the service time
+     */
+    public Integer getServiceTime() {
+        return serviceTime;
+    }
+
+    /**
+     * Returns the cycle in which the process arrived.
+     *
+     * @return the arrival cycle, or <code>-1</code> if the process hasn't
+     *         been assigned by a scheduler
+     */
+    public Long getArrivalCycle() {
+        return arrivalCycle;
+    }
+
+    /**
+     * Sets the cycle in which the process arrived.
+     *
+     * @param cycle the arrival cycle
+     */
+    void setArrivalCycle(long cycle) {
+        arrivalCycle = cycle;
+    }
+
+    /**
+     * Returns the cycle in which the process was first dispatched.
+     *
+     * @return the dispatch cycle, or <code>-1</code> if the process hasn't
+     *         been dispatched yet
+     */
+    public Long getDispatchCycle() {
+        return dispatchCycle;
+    }
+
+    /**
+     * Records the cycle in which the process is dispatched, unless it has
+     * already been dispatched before.
+     *
+     * @param cycle the first cycle in which the process is executed
+     */
+    void markDispatched(long cycle) {
+        if(dispatchCycle < 0) {
+            dispatchCycle = cycle;
+        }
     }
 
     /**
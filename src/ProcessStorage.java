@@ -0,0 +1,97 @@
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Storage of the running and the ready {@link Process}es of a {@link CPU}.
+ * <p>All usages are passed in fixed-point units.
+ *
+ * @see CPU#USAGE_UNIT
+ */
+public interface ProcessStorage {
+    /**
+     * Adds the process to the running processes.
+     *
+     * @param process the process to be run
+     * @param cycle the first cycle in which the process is executed
+     */
+    void addRunning(Process process, long cycle);
+
+    /**
+     * Executes all running processes in the specified cycle and removes the
+     * completed ones.
+     *
+     * @param cycle the cycle being executed
+     * @param latencies a recorder of the latencies of the completed processes
+     * @return the usage of the completed processes
+     */
+    long expire(long cycle, LatencyRecorder latencies);
+
+    /**
+     * Executes all running processes in the specified amount of cycles in
+     * which no process completes.
+     *
+     * @param cycles the amount of skipped cycles
+     */
+    void skip(int cycles);
+
+    /**
+     * Returns the amount of running processes.
+     *
+     * @return the amount of running processes
+     */
+    int getRunningCount();
+
+    /**
+     * Returns the amount of processes in the ready queue.
+     *
+     * @return the amount of awaiting processes
+     */
+    int getAwaitingCount();
+
+    /**
+     * Recomputes the usage of all running processes.
+     *
+     * @return the usage of all running processes
+     */
+    long getRunningUsage();
+
+    /**
+     * Adds the process to the tail of the ready queue.
+     *
+     * @param process the process to be added
+     */
+    void addAwaiting(Process process);
+
+    /**
+     * Removes the ready process to be admitted next, as chosen by the
+     * {@link ReadyQueuePolicy} of the storage.
+     *
+     * @param availableUsage the usage available on the CPU
+     * @param cycle the current cycle of the CPU
+     * @return the process to be admitted, or <code>null</code> if none fits
+     *         or the policy admits none
+     */
+    Process pollAwaiting(long availableUsage, long cycle);
+
+    /**
+     * Passes the identifier of every running and ready process to the action,
+     * without creating any process objects.
+     *
+     * @param action the action receiving the identifiers
+     */
+    void forEachPID(IntConsumer action);
+
+    /**
+     * Removes the processes with the specified identifiers, no matter if
+     * they're running or ready. A removed running process is replaced by a
+     * copy whose burst time is its remaining burst time, so it completes in
+     * the same cycle wherever it's dispatched next.
+     *
+     * @param PIDs the identifiers of the processes to be removed in
+     *             ascending order
+     * @param count the amount of identifiers
+     * @param removed a list to which the removed processes are added
+     * @return the usage of the removed running processes
+     */
+    long removeAll(int[] PIDs, int count, List<Process> removed);
+}
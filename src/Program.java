@@ -1,20 +1,61 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.DecimalFormat;
-import java.util.Queue;
+import java.util.Random;
 import java.util.Scanner;
-import java.util.Set;
+import java.util.function.Supplier;
 
 
 public class Program {
+    /**
+     * The amount of samples of a time series buffered before they're written.
+     */
+    private static final int SAMPLE_CAPACITY = 1024;
+
+    /**
+     * The pause after the garbage collection before every timed run.
+     */
+    private static final long BENCHMARK_PAUSE_MILLIS = 100;
+
     /**
      * The main method, which takes a user command and performs a specified function.
      * <p>Available commands:
      * <ul>
      *     <li><code>run</code> - runs the simulation with specified parameters
+     *     <li><code>record</code> - generates a workload with specified
+     *                               parameters and writes it to a trace file
+     *     <li><code>replay</code> - runs the simulation on a trace file
+     *     <li><code>benchmark</code> - times every algorithm on the same
+     *                                  workload with the specified amount of
+     *                                  warm-up and measured runs
+     *     <li><code>concurrent</code> - runs the simulation with every CPU
+     *                                   driven by a thread of its own and
+     *                                   compares it with the sequential one
+     *     <li><code>cluster</code> - runs the simulation on a cluster of the
+     *                                specified amount of machines and
+     *                                machines per rack, sharing the CPUs
      *     <li><code>N</code> - sets the CPU count
      *     <li><code>r</code> - sets the lower threshold
      *     <li><code>p</code> - sets the upper threshold
      *     <li><code>z</code> - sets the attempt count
      *     <li><code>portion</code> - sets the share portion
+     *     <li><code>cache</code> - sets the time to live, the refresh interval,
+     *                              the gossip count and piggy-backing of the
+     *                              load cache, a negative time to live
+     *                              disables it
+     *     <li><code>queue</code> - sets the policy of the CPUs' ready queues
+     *                              used by <code>run</code> and
+     *                              <code>replay</code>, for example
+     *                              <code>FIFO</code> or <code>BestFit</code>,
+     *                              see {@link Sweep#createReadyQueuePolicy}
+     *     <li><code>sample</code> - sets the interval of the time series
+     *                               written for every algorithm by
+     *                               <code>run</code> and <code>replay</code>
+     *                               and whether they're binary instead of
+     *                               CSV, a non-positive interval disables
+     *                               them
      *     <li><code>length</code> - sets the process queue minimum and maximum length
      *     <li><code>usage</code> - sets the minimum and maximum usage of a process
      *     <li><code>delay</code> - sets the minimum and maximum delay of a schedule
@@ -30,6 +71,16 @@ public class Program {
     public static void main(String[] args) {
         Integer CPUCount = 50;
         Double upperThreshold = 0.6;
+        Double lowerThreshold = 0.3;
+        Integer attemptCount = 10;
+        Double portion = 0.5;
+        Integer cacheTimeToLive = -1;
+        Integer cacheRefreshInterval = 0;
+        Integer cacheGossipCount = 0;
+        Boolean cachePiggyBacking = false;
+        String readyQueue = "FIFO";
+        Integer sampleInterval = 0;
+        Boolean sampleBinary = false;
 
         Integer minLength = 500;
         Integer maxLength = 1000;
@@ -46,32 +97,112 @@ public class Program {
         while(!string.equals("quit")) {
             switch(string) {
                 case "run":
-                    Set<Queue<Schedule>> schedules = Generator.generate(CPUCount, minLength, maxLength, minUsage, maxUsage,
-                            minDelay, maxDelay, minBurstTime, maxBurstTime);
-
-                    Algorithm[] algorithms = { new First(),
-                            new Second(upperThreshold),
-                            new Third(upperThreshold)};
-
-                    for(Algorithm algorithm : algorithms) {
-                        System.out.println(algorithm + ":");
-                        Machine machine = new Machine(CPUCount, algorithm, schedules);
-                        machine.run();
-                        System.out.println("\tAverage usage: " + formatPercent(machine.getAverageUsage()));
-                        System.out.println("\tAverage usage deviation: " + formatPercent(machine.getAverageUsageDeviation()));
-                        System.out.println("\tUsage request count: " + machine.getUsageRequestCount());
-                        System.out.println("\tRelocation count: " + machine.getRelocationCount());
-                        System.out.println("\tDuration (millis): " + machine.getDuration());
+                    Workload workload = Workload.of(Generator.generate(CPUCount, minLength, maxLength, minUsage,
+                            maxUsage, minDelay, maxDelay, minBurstTime, maxBurstTime));
+                    runAlgorithms(CPUCount, upperThreshold, lowerThreshold, portion, attemptCount, workload,
+                            createLoadCache(cacheTimeToLive, cacheRefreshInterval, cacheGossipCount,
+                                    cachePiggyBacking), Sweep.createReadyQueuePolicy(readyQueue), sampleInterval,
+                            sampleBinary);
+                    break;
+                case "record":
+                    String recordPath = scanner.next();
+                    try {
+                        TraceWriter.record(Paths.get(recordPath), Generator.generate(CPUCount, minLength, maxLength,
+                                minUsage, maxUsage, minDelay, maxDelay, minBurstTime, maxBurstTime));
+                        System.out.println("Workload recorded to " + recordPath);
+                    } catch (IOException e) {
+                        System.out.println("Can't record the workload: " + e.getMessage());
+                    }
+                    break;
+                case "replay":
+                    try(TraceReader trace = new TraceReader(Paths.get(scanner.next()))) {
+                        runAlgorithms(trace.getQueueCount(), upperThreshold, lowerThreshold, portion, attemptCount,
+                                trace, createLoadCache(cacheTimeToLive, cacheRefreshInterval, cacheGossipCount,
+                                        cachePiggyBacking), Sweep.createReadyQueuePolicy(readyQueue),
+                                sampleInterval, sampleBinary);
+                    } catch (IOException e) {
+                        System.out.println("Can't replay the trace: " + e.getMessage());
+                    }
+                    break;
+                case "benchmark":
+                    Integer warmupIterations = scanner.nextInt();
+                    Integer measuredIterations = scanner.nextInt();
+                    Workload benchmarkWorkload = Workload.of(Generator.generate(CPUCount, minLength, maxLength,
+                            minUsage, maxUsage, minDelay, maxDelay, minBurstTime, maxBurstTime));
+                    try {
+                        benchmarkAlgorithms(CPUCount, upperThreshold, lowerThreshold, portion, attemptCount,
+                                benchmarkWorkload, new TimingHarness(warmupIterations, measuredIterations,
+                                        BENCHMARK_PAUSE_MILLIS));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    break;
+                case "concurrent":
+                    Workload concurrentWorkload = Workload.of(Generator.generate(CPUCount, minLength, maxLength,
+                            minUsage, maxUsage, minDelay, maxDelay, minBurstTime, maxBurstTime));
+                    try {
+                        runConcurrently(CPUCount, upperThreshold, concurrentWorkload);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    break;
+                case "cluster":
+                    Integer machineCount = scanner.nextInt();
+                    Integer machinesPerRack = scanner.nextInt();
+                    Workload clusterWorkload = Workload.of(Generator.generate(CPUCount, minLength, maxLength,
+                            minUsage, maxUsage, minDelay, maxDelay, minBurstTime, maxBurstTime));
+                    try {
+                        runCluster(machineCount, machinesPerRack, upperThreshold, attemptCount, clusterWorkload);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
                     }
                     break;
                 case "N":
                     CPUCount =  scanner.nextInt();;
                     System.out.println("CPU count set to " + CPUCount);
                     break;
+                case "r":
+                    lowerThreshold = scanner.nextDouble();
+                    System.out.println("Lower threshold set to " + lowerThreshold);
+                    break;
                 case "p":
                     upperThreshold = scanner.nextDouble();
                     System.out.println("Upper threshold set to " + upperThreshold);
                     break;
+                case "z":
+                    attemptCount = scanner.nextInt();
+                    System.out.println("Attempt count set to " + attemptCount);
+                    break;
+                case "portion":
+                    portion = scanner.nextDouble();
+                    System.out.println("Portion set to " + portion);
+                    break;
+                case "cache":
+                    cacheTimeToLive = scanner.nextInt();
+                    cacheRefreshInterval = scanner.nextInt();
+                    cacheGossipCount = scanner.nextInt();
+                    cachePiggyBacking = scanner.nextBoolean();
+                    System.out.println("Load cache set to (" + cacheTimeToLive + ", " + cacheRefreshInterval + ", "
+                            + cacheGossipCount + ", " + cachePiggyBacking + ")");
+                    break;
+                case "queue":
+                    String policyName = scanner.next();
+                    try {
+                        Sweep.createReadyQueuePolicy(policyName);
+                        readyQueue = policyName;
+                        System.out.println("Ready queue set to " + readyQueue);
+                    } catch (IllegalArgumentException e) {
+                        System.out.println(e.getMessage());
+                    }
+                    break;
+                case "sample":
+                    sampleInterval = scanner.nextInt();
+                    sampleBinary = scanner.nextBoolean();
+                    System.out.println("Time series set to (" + sampleInterval + ", " + sampleBinary + ")");
+                    break;
                 case "length":
                     minLength = scanner.nextInt();
                     maxLength = scanner.nextInt();
@@ -94,10 +225,17 @@ public class Program {
                     break;
                 case "params":
                     System.out.println("N: " + CPUCount);
+                    System.out.println("r: " + lowerThreshold);
                     System.out.println("p: " + upperThreshold);
+                    System.out.println("z: " + attemptCount);
+                    System.out.println("portion: " + portion);
+                    System.out.println("cache: " + cacheTimeToLive + " " + cacheRefreshInterval + " "
+                            + cacheGossipCount + " " + cachePiggyBacking);
+                    System.out.println("queue: " + readyQueue);
+                    System.out.println("sample: " + sampleInterval + " " + sampleBinary);
                     break;
                 case "help":
-                    System.out.println("Available commands: run, N, r, p, z, portion, length, usage, delay, bursttime, params");
+                    System.out.println("Available commands: run, record, replay, benchmark, concurrent, cluster, N, r, p, z, portion, cache, queue, sample, length, usage, delay, bursttime, params");
                     break;
                 default:
                     System.out.println("Unknown command");
@@ -111,6 +249,222 @@ public class Program {
     }
 
 
+    /**
+     * Runs the simulation of every algorithm on the same workload and prints
+     * the results.
+     *
+     * @param CPUCount amount of CPUs
+     * @param upperThreshold the upper threshold of the algorithms
+     * @param lowerThreshold the lower threshold of algorithm #3
+     * @param portion the portion of the processes taken by algorithm #3
+     * @param attemptCount the attempt count of algorithm #3 in a cycle
+     * @param workload the schedule queues of the CPUs
+     * @param loadCaches a factory of the load cache of every machine, which
+     *                   returns <code>null</code> if there's none
+     * @param readyQueuePolicy the policy of the CPUs' ready queues
+     * @param sampleInterval the interval of the time series written to
+     *                       <code>series1</code>, <code>series2</code> and
+     *                       so on, a non-positive one to write none
+     * @param sampleBinary whether the time series are binary instead of CSV
+     */
+    private static void runAlgorithms(Integer CPUCount, Double upperThreshold, Double lowerThreshold,
+                                      Double portion, Integer attemptCount, ScheduleSource workload,
+                                      Supplier<LoadCache> loadCaches, ReadyQueuePolicy readyQueuePolicy,
+                                      Integer sampleInterval, Boolean sampleBinary) {
+        Algorithm[] algorithms = { new First(),
+                new Second(upperThreshold),
+                new Third(upperThreshold, lowerThreshold, portion, attemptCount)};
+
+        for(int i = 0; i < algorithms.length; i++) {
+            Algorithm algorithm = algorithms[i];
+            System.out.println(algorithm + ":");
+            Machine machine = new Machine(CPUCount, algorithm, workload, new Random().nextLong(),
+                    () -> new ObjectProcessStorage(readyQueuePolicy));
+            machine.setLoadCache(loadCaches.get());
+            machine.setGiniRecorded(true);
+            Path seriesPath = Paths.get("series" + (i + 1) + (sampleBinary ? ".bin" : ".csv"));
+            TimeSeries timeSeries = null;
+            if(sampleInterval > 0) {
+                try {
+                    timeSeries = new TimeSeries(sampleInterval, SAMPLE_CAPACITY, seriesPath, sampleBinary);
+                    machine.setTimeSeries(timeSeries);
+                } catch (UncheckedIOException e) {
+                    System.out.println("\tCan't write the time series: " + e.getCause().getMessage());
+                    timeSeries = null;
+                }
+            }
+            machine.run();
+            if(timeSeries != null) {
+                try {
+                    timeSeries.close();
+                    System.out.println("\tTime series: " + seriesPath);
+                } catch (IOException | UncheckedIOException e) {
+                    System.out.println("\tCan't write the time series: " + e.getMessage());
+                }
+            }
+            System.out.println("\tAverage usage: " + formatPercent(machine.getAverageUsage()));
+            System.out.println("\tAverage usage deviation: " + formatPercent(machine.getAverageUsageDeviation()));
+            System.out.println("\tUsage Gini coefficient: "
+                    + new DecimalFormat("#.####").format(machine.getUsageStatistics().getGini()));
+            System.out.println("\tUsage request count: " + machine.getUsageRequestCount());
+            System.out.println("\tRequests per placement: "
+                    + new DecimalFormat("#.###").format(machine.getRequestsPerPlacement()));
+            System.out.println("\tRelocation count: " + machine.getRelocationCount());
+            System.out.println("\tDuration (millis): " + machine.getDuration());
+            printLatencies(machine.getLatencies());
+            LoadCache loadCache = machine.getLoadCache();
+            if(loadCache != null) {
+                System.out.println("\tCache hit rate: " + formatPercent(loadCache.getHitRate()));
+                System.out.println("\tStale hit rate: " + formatPercent(loadCache.getStaleHitRate()));
+                System.out.println("\tMisplacement count: " + loadCache.getMisplacementCount());
+            }
+        }
+    }
+
+    /**
+     * Times the simulation of every algorithm on the same workload with the
+     * same seed and prints the timings.
+     *
+     * @param CPUCount amount of CPUs
+     * @param upperThreshold the upper threshold of the algorithms
+     * @param lowerThreshold the lower threshold of algorithm #3
+     * @param portion the portion of the processes taken by algorithm #3
+     * @param attemptCount the attempt count of algorithm #3 in a cycle
+     * @param workload the schedule queues of the CPUs
+     * @param harness the harness timing the runs
+     * @throws InterruptedException If the thread is interrupted while pausing
+     *                              between the runs
+     */
+    private static void benchmarkAlgorithms(Integer CPUCount, Double upperThreshold, Double lowerThreshold,
+                                            Double portion, Integer attemptCount, ScheduleSource workload,
+                                            TimingHarness harness) throws InterruptedException {
+        Algorithm[] algorithms = { new First(),
+                new Second(upperThreshold),
+                new Third(upperThreshold, lowerThreshold, portion, attemptCount)};
+        DecimalFormat format = new DecimalFormat("#.##");
+        long seed = new Random().nextLong();
+
+        for(Algorithm algorithm : algorithms) {
+            System.out.println(algorithm + ":");
+            TimingResult result = harness.measure(() -> new Machine(CPUCount, algorithm, workload, seed));
+            System.out.println("\tMedian (millis): " + format.format(result.getMedian()) + " (95% CI "
+                    + format.format(result.getMedianLowerBound()) + " - "
+                    + format.format(result.getMedianUpperBound()) + ")");
+            System.out.println("\tCycles per second: " + Math.round(result.getCyclesPerSecond()));
+            System.out.println("\tPlacements per second: " + Math.round(result.getPlacementsPerSecond()));
+            System.out.println("\tGarbage collections: " + result.getCollectionCount());
+        }
+    }
+
+    /**
+     * Runs the sequential and the concurrent simulation of every thread-safe
+     * algorithm on the same workload and prints the results, so the effect of
+     * racing placements shows in the difference of the deviations.
+     *
+     * @param CPUCount amount of CPUs
+     * @param upperThreshold the upper threshold of the algorithms
+     * @param workload the schedule queues of the CPUs
+     * @throws InterruptedException If the thread is interrupted while waiting
+     *                              for the CPUs
+     */
+    private static void runConcurrently(Integer CPUCount, Double upperThreshold, ScheduleSource workload)
+            throws InterruptedException {
+        Algorithm[] algorithms = { new Second(upperThreshold),
+                new Third(upperThreshold),
+                new PowerOfD(2)};
+
+        for(Algorithm algorithm : algorithms) {
+            System.out.println(algorithm + ":");
+            long seed = new Random().nextLong();
+            Machine sequential = new Machine(CPUCount, algorithm, workload, seed);
+            sequential.run();
+            Machine concurrent = new Machine(CPUCount, algorithm, workload, seed);
+            concurrent.runConcurrent();
+            System.out.println("\tAverage usage: " + formatPercent(concurrent.getAverageUsage())
+                    + " (sequential " + formatPercent(sequential.getAverageUsage()) + ")");
+            System.out.println("\tAverage usage deviation: " + formatPercent(concurrent.getAverageUsageDeviation())
+                    + " (sequential " + formatPercent(sequential.getAverageUsageDeviation()) + ")");
+            System.out.println("\tUsage request count: " + concurrent.getUsageRequestCount());
+            System.out.println("\tRelocation count: " + concurrent.getRelocationCount());
+            System.out.println("\tPlacements per second: " + Math.round(concurrent.getPlacementThroughput()));
+            System.out.println("\tCAS retry rate: " + formatPercent(concurrent.getCASRetryRate()));
+            System.out.println("\tRejected admission count: " + concurrent.getRejectedAdmissionCount());
+            System.out.println("\tDuration (millis): " + concurrent.getDuration());
+            printLatencies(concurrent.getLatencies());
+        }
+    }
+
+    /**
+     * Runs the simulation of a cluster using {@link LocalFirst} and prints the
+     * results. Placing a process within a machine costs 1, migrating it
+     * within a rack 10 and between racks 100.
+     *
+     * @param machineCount amount of machines sharing the CPUs
+     * @param machinesPerRack amount of machines in a rack
+     * @param upperThreshold the upper threshold of the algorithm
+     * @param attemptCount the amount of local CPUs asked for usage for every
+     *                     process
+     * @param workload the schedule queues of all CPUs of the cluster
+     * @throws InterruptedException If the thread is interrupted while waiting
+     *                              for the machines
+     */
+    private static void runCluster(Integer machineCount, Integer machinesPerRack, Double upperThreshold,
+                                   Integer attemptCount, ScheduleSource workload) throws InterruptedException {
+        Cluster cluster = new Cluster(Cluster.createMachines(machineCount,
+                () -> new LocalFirst(upperThreshold, attemptCount, 2), workload, new Random().nextLong()),
+                machinesPerRack, 1d, 10d, 100d, 64);
+        cluster.run();
+        System.out.println("Cluster of " + machineCount + " machines:");
+        System.out.println("\tAverage usage: " + formatPercent(cluster.getAverageUsage()));
+        System.out.println("\tAverage usage deviation: " + formatPercent(cluster.getAverageUsageDeviation()));
+        System.out.println("\tUsage request count: " + cluster.getUsageRequestCount());
+        System.out.println("\tRemote request count: " + cluster.getRemoteRequestCount());
+        System.out.println("\tRelocation count: " + cluster.getRelocationCount());
+        System.out.println("\tInter-node migration count: " + cluster.getInterNodeMigrationCount());
+        System.out.println("\tInter-rack migration count: " + cluster.getInterRackMigrationCount());
+        System.out.println("\tRefused migration count: " + cluster.getRefusedMigrationCount());
+        System.out.println("\tPlacement cost: " + cluster.getPlacementCost());
+        System.out.println("\tDuration (millis): " + cluster.getDuration());
+        printLatencies(cluster.getLatencies());
+    }
+
+    /**
+     * Prints the 50th, 99th and 99.9th percentiles of the latencies of the
+     * completed processes.
+     *
+     * @param latencies the latencies
+     */
+    private static void printLatencies(LatencyRecorder latencies) {
+        Double[] quantiles = {0.5, 0.99, 0.999};
+        StringBuilder waitTimes = new StringBuilder("\tWait time p50/p99/p99.9 (cycles):");
+        StringBuilder responseTimes = new StringBuilder("\tResponse time p50/p99/p99.9 (cycles):");
+        StringBuilder slowdowns = new StringBuilder("\tSlowdown p50/p99/p99.9:");
+        for(Double quantile : quantiles) {
+            waitTimes.append(' ').append(latencies.getWaitTimes().getPercentile(quantile));
+            responseTimes.append(' ').append(latencies.getResponseTimes().getPercentile(quantile));
+            slowdowns.append(' ').append(new DecimalFormat("#.###").format(latencies.getSlowdownPercentile(quantile)));
+        }
+        System.out.println(waitTimes);
+        System.out.println(responseTimes);
+        System.out.println(slowdowns);
+    }
+
+    /**
+     * Creates a factory of load caches with the specified parameters.
+     *
+     * @param timeToLive the time to live of a snapshot, negative if there's
+     *                   no cache
+     * @param refreshInterval the amount of cycles between pushes of every CPU
+     * @param gossipCount the amount of random CPUs pushing their usage every
+     *                    cycle
+     * @param piggyBacking whether relocations refresh the snapshots
+     * @return a factory of load caches
+     */
+    private static Supplier<LoadCache> createLoadCache(Integer timeToLive, Integer refreshInterval,
+                                                       Integer gossipCount, Boolean piggyBacking) {
+        return () -> timeToLive < 0 ? null : new LoadCache(timeToLive, refreshInterval, gossipCount, piggyBacking);
+    }
+
     /**
      * Basically a class converting a number to a percentage with a percent sign.
      *
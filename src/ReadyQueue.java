@@ -0,0 +1,275 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.IntConsumer;
+
+/**
+ * The ready queue of a {@link CPU}, holding the {@link Process}es waiting for
+ * enough free usage to be dispatched. Which process is admitted next is up to
+ * its {@link ReadyQueuePolicy}.
+ * <p>The processes are kept in the order of their arrival in a linked list,
+ * so the head is found and any process is removed in O(1). The policies
+ * choosing by usage are served by a tree of the processes ordered by their
+ * usage, which is only built once a policy asks for it, so a process fitting
+ * into the free usage is found in O(log k) instead of scanning the queue.
+ */
+public final class ReadyQueue {
+    /**
+     * A waiting process with its place in both orders.
+     */
+    private static final class Entry {
+        /**
+         * The waiting process.
+         */
+        final Process process;
+
+        /**
+         * The usage of the process in fixed-point units.
+         */
+        final long usage;
+
+        /**
+         * The position of the process in the order of arrival.
+         */
+        final long sequence;
+
+        /**
+         * The previous and the next process in the order of arrival.
+         */
+        Entry previous, next;
+
+        /**
+         * Class constructor.
+         *
+         * @param process the waiting process
+         * @param usage the usage of the process in fixed-point units
+         * @param sequence the position of the process in the order of arrival
+         */
+        Entry(Process process, long usage, long sequence) {
+            this.process = process;
+            this.usage = usage;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Orders the entries by their usage, the earlier arrival last among equal
+     * usages, so the greatest entry not above a usage is the earliest of the
+     * largest usage.
+     */
+    private static final Comparator<Entry> USAGE_ORDER = (a, b) -> a.usage != b.usage
+            ? Long.compare(a.usage, b.usage) : Long.compare(b.sequence, a.sequence);
+
+    /**
+     * The policy choosing the process to be admitted.
+     */
+    private final ReadyQueuePolicy policy;
+
+    /**
+     * The first and the last process in the order of arrival.
+     */
+    private Entry head, tail;
+
+    /**
+     * The processes ordered by their usage, or <code>null</code> if no policy
+     * has asked for it yet.
+     */
+    private TreeSet<Entry> byUsage;
+
+    /**
+     * The amount of waiting processes.
+     */
+    private int size;
+
+    /**
+     * The position of the next process in the order of arrival.
+     */
+    private long nextSequence;
+
+    /**
+     * Class constructor.
+     *
+     * @param policy the policy choosing the process to be admitted
+     */
+    public ReadyQueue(ReadyQueuePolicy policy) {
+        if(policy == null) {
+            throw new IllegalArgumentException();
+        }
+        this.policy = policy;
+    }
+
+    /**
+     * Adds the process to the tail of the queue.
+     *
+     * @param process the process to be added
+     */
+    public void add(Process process) {
+        Entry entry = new Entry(process, CPU.toUnits(process.getUsage()), nextSequence++);
+        if(tail == null) {
+            head = entry;
+        }
+        else {
+            tail.next = entry;
+            entry.previous = tail;
+        }
+        tail = entry;
+        size++;
+        if(byUsage != null) {
+            byUsage.add(entry);
+        }
+    }
+
+    /**
+     * Removes the process to be admitted next, as chosen by the policy.
+     *
+     * @param availableUsage the usage available on the CPU in fixed-point
+     *                       units
+     * @param cycle the current cycle of the CPU
+     * @return the process to be admitted, or <code>null</code> if none is
+     */
+    public Process poll(long availableUsage, long cycle) {
+        return size == 0 ? null : policy.poll(this, availableUsage, cycle);
+    }
+
+    /**
+     * Returns the process at the head of the queue, the one waiting longest.
+     *
+     * @return the head, or <code>null</code> if the queue is empty
+     */
+    public Process peekHead() {
+        return head != null ? head.process : null;
+    }
+
+    /**
+     * Removes the process at the head of the queue if it fits.
+     *
+     * @param availableUsage the usage available in fixed-point units
+     * @return the head, or <code>null</code> if the queue is empty or the
+     *         head doesn't fit
+     */
+    public Process pollHead(long availableUsage) {
+        return head != null && head.usage <= availableUsage ? remove(head) : null;
+    }
+
+    /**
+     * Removes the process with the largest usage which fits, the earliest
+     * one among equal usages. Costs O(log k).
+     *
+     * @param availableUsage the usage available in fixed-point units
+     * @return the removed process, or <code>null</code> if none fits
+     */
+    public Process pollLargestFitting(long availableUsage) {
+        if(size == 0) {
+            return null;
+        }
+        Entry entry = getUsageIndex().floor(new Entry(null, availableUsage, Long.MIN_VALUE));
+        return entry != null ? remove(entry) : null;
+    }
+
+    /**
+     * Removes the earliest process which fits among the specified amount of
+     * processes at the head of the queue. If no waiting process fits at all,
+     * that's told by the smallest usage without visiting the processes.
+     *
+     * @param availableUsage the usage available in fixed-point units
+     * @param lookahead the amount of processes at the head which are visited
+     * @return the removed process, or <code>null</code> if none fits
+     */
+    public Process pollFirstFitting(long availableUsage, int lookahead) {
+        if(size == 0 || getUsageIndex().first().usage > availableUsage) {
+            return null;
+        }
+        Entry entry = head;
+        for(int i = 0; i < lookahead && entry != null; i++, entry = entry.next) {
+            if(entry.usage <= availableUsage) {
+                return remove(entry);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the amount of waiting processes.
+     *
+     * @return the size of the queue
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Passes the identifiers of all waiting processes to the action in the
+     * order of their arrival.
+     *
+     * @param action the action receiving the identifiers
+     */
+    public void forEachPID(IntConsumer action) {
+        for(Entry entry = head; entry != null; entry = entry.next) {
+            action.accept(entry.process.getPID());
+        }
+    }
+
+    /**
+     * Removes the processes with the specified identifiers.
+     *
+     * @param PIDs the identifiers of the processes to be removed in
+     *             ascending order
+     * @param count the amount of identifiers
+     * @param removed a list to which the removed processes are added
+     */
+    public void removeAll(int[] PIDs, int count, List<Process> removed) {
+        Entry entry = head;
+        while(entry != null) {
+            Entry next = entry.next;
+            if(Arrays.binarySearch(PIDs, 0, count, entry.process.getPID()) >= 0) {
+                removed.add(remove(entry));
+            }
+            entry = next;
+        }
+    }
+
+    /**
+     * Returns the tree of the processes ordered by their usage, building it
+     * on the first call.
+     *
+     * @return the usage index
+     */
+    private TreeSet<Entry> getUsageIndex() {
+        if(byUsage == null) {
+            byUsage = new TreeSet<>(USAGE_ORDER);
+            for(Entry entry = head; entry != null; entry = entry.next) {
+                byUsage.add(entry);
+            }
+        }
+        return byUsage;
+    }
+
+    /**
+     * Unlinks an entry from both orders.
+     *
+     * @param entry the entry to be removed
+     * @return the process of the entry
+     */
+    private Process remove(Entry entry) {
+        if(entry.previous == null) {
+            head = entry.next;
+        }
+        else {
+            entry.previous.next = entry.next;
+        }
+        if(entry.next == null) {
+            tail = entry.previous;
+        }
+        else {
+            entry.next.previous = entry.previous;
+        }
+        entry.previous = null;
+        entry.next = null;
+        size--;
+        if(byUsage != null) {
+            byUsage.remove(entry);
+        }
+        return entry.process;
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * A policy choosing which {@link Process} of a {@link CPU}'s
+ * {@link ReadyQueue} is admitted next, when some usage has been freed.
+ * <p>The CPU polls its ready queue until the policy returns nothing, so
+ * a policy may admit several processes after a single completion.
+ */
+public interface ReadyQueuePolicy {
+    /**
+     * First in, first out. Only the head may be admitted, so a process which
+     * doesn't fit blocks all processes behind it, even if they'd fit.
+     */
+    ReadyQueuePolicy FIFO = (queue, availableUsage, cycle) -> queue.pollHead(availableUsage);
+
+    /**
+     * The process with the largest usage which fits is admitted, so the
+     * freed usage is filled as far as possible. A large process may wait for
+     * as long as smaller ones keep arriving.
+     */
+    ReadyQueuePolicy BEST_FIT = (queue, availableUsage, cycle) -> queue.pollLargestFitting(availableUsage);
+
+    /**
+     * Removes the process to be admitted next.
+     *
+     * @param queue the ready queue, not empty
+     * @param availableUsage the usage available on the CPU in fixed-point
+     *                       units
+     * @param cycle the current cycle of the CPU
+     * @return the removed process, or <code>null</code> if none is admitted
+     */
+    Process poll(ReadyQueue queue, long availableUsage, long cycle);
+
+    /**
+     * The earliest process which fits among the first ones of the queue is
+     * admitted, so a process may only be overtaken by the ones shortly behind
+     * it.
+     *
+     * @param lookahead the amount of processes at the head of the queue which
+     *                  may be admitted, one is the same as {@link #FIFO}
+     * @return a first-fit policy
+     */
+    static ReadyQueuePolicy firstFit(int lookahead) {
+        if(lookahead <= 0) {
+            throw new IllegalArgumentException();
+        }
+        return (queue, availableUsage, cycle) -> queue.pollFirstFitting(availableUsage, lookahead);
+    }
+
+    /**
+     * The head is admitted if it fits, otherwise the freed usage is
+     * backfilled with the processes behind it like {@link #BEST_FIT} does.
+     * Once the head has waited the specified amount of cycles since its
+     * arrival, backfilling stops and the freed usage is kept for the head, so
+     * no process waits forever.
+     *
+     * @param maxAge the amount of cycles after which the head is no longer
+     *               overtaken
+     * @return an aging backfill policy
+     */
+    static ReadyQueuePolicy agingBackfill(int maxAge) {
+        if(maxAge < 0) {
+            throw new IllegalArgumentException();
+        }
+        return (queue, availableUsage, cycle) -> {
+            Process head = queue.pollHead(availableUsage);
+            if(head != null) {
+                return head;
+            }
+            long arrivalCycle = queue.peekHead().getArrivalCycle();
+            if(arrivalCycle >= 0 && cycle - arrivalCycle >= maxAge) {
+                return null;
+            }
+            return queue.pollLargestFitting(availableUsage);
+        };
+    }
+}
@@ -0,0 +1,344 @@
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A file to which the results of a {@link Sweep} are appended, one record per
+ * run. A record maps the names of its fields to numbers or strings, every
+ * record of a file having the same fields in the same order.
+ * <p>Records are encoded into a buffer of {@link #BUFFER_SIZE} bytes, which is
+ * written to the file once it's full or {@link #FLUSH_INTERVAL_NANOS} after
+ * the last write, so the memory used doesn't depend on the amount of records
+ * and an interrupted sweep loses only the last few records. Opening an
+ * existing file cuts off the last record if an interrupted write left it
+ * incomplete and reads the keys of the records in it, so the sweep resumes by
+ * skipping them. A file which isn't a result file is refused and left as it
+ * is.
+ */
+public abstract class ResultSink implements Closeable {
+    /**
+     * A handler of the complete lines of a text result file.
+     */
+    protected interface LineHandler {
+        /**
+         * Handles a line.
+         *
+         * @param line the line without its line break
+         * @throws IOException If the line doesn't belong to a result file
+         */
+        void handle(String line) throws IOException;
+    }
+
+    /**
+     * The name of the field identifying the run of a record, see
+     * {@link SweepPoint#getKey()}.
+     */
+    public static final String KEY = "key";
+
+    /**
+     * The size of the buffer in bytes.
+     */
+    static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The longest time records are kept in the buffer before they're written,
+     * in nanoseconds.
+     */
+    static final long FLUSH_INTERVAL_NANOS = 5_000_000_000L;
+
+    /**
+     * The path of the file.
+     */
+    protected final Path path;
+
+    /**
+     * The keys of the records present in the file when it was opened.
+     */
+    protected final Set<String> completedKeys = new HashSet<>();
+
+    /**
+     * The channel of the file.
+     */
+    private FileChannel channel;
+
+    /**
+     * The encoded records not written yet.
+     */
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * The time of the last write in nanoseconds.
+     */
+    private long lastFlush = System.nanoTime();
+
+    /**
+     * Class constructor. Opens the file, creating it if it doesn't exist.
+     *
+     * @param path the path of the file
+     * @throws IOException If the file can't be opened
+     */
+    protected ResultSink(Path path) throws IOException {
+        if(path == null) {
+            throw new IllegalArgumentException();
+        }
+        this.path = path;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * A static method which opens a result file in the format given by its
+     * extension: {@link CSVSink} for <code>.csv</code>, {@link ColumnarSink}
+     * for <code>.col</code> and {@link JSONLinesSink} otherwise.
+     *
+     * @param path the path of the file
+     * @return a sink appending to the file
+     * @throws IOException If the file can't be opened or read
+     */
+    public static ResultSink open(Path path) throws IOException {
+        if(path == null) {
+            throw new IllegalArgumentException();
+        }
+        String name = path.getFileName().toString().toLowerCase();
+        if(name.endsWith(".csv")) {
+            return new CSVSink(path);
+        }
+        if(name.endsWith(".col")) {
+            return new ColumnarSink(path);
+        }
+        return new JSONLinesSink(path);
+    }
+
+    /**
+     * Returns the keys of the records present in the file when it was opened.
+     *
+     * @return the keys of the runs already finished
+     */
+    public Set<String> getCompletedKeys() {
+        return Collections.unmodifiableSet(completedKeys);
+    }
+
+    /**
+     * Appends a record. May be called by several threads at the same time.
+     *
+     * @param record the fields of the record in their order
+     * @throws IOException If the file can't be written
+     * @throws IllegalArgumentException If the fields differ from the ones of
+     *                                  the file or a value can't be encoded
+     */
+    public synchronized void write(Map<String, ?> record) throws IOException {
+        if(record == null || record.isEmpty()) {
+            throw new IllegalArgumentException();
+        }
+        if(channel == null) {
+            throw new IllegalStateException("The result file is closed");
+        }
+        append(record);
+        if(System.nanoTime() - lastFlush >= FLUSH_INTERVAL_NANOS) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the buffered records to the file.
+     *
+     * @throws IOException If the file can't be written
+     */
+    public synchronized void flush() throws IOException {
+        if(channel == null) {
+            return;
+        }
+        flushRecords();
+        writeBuffer();
+        lastFlush = System.nanoTime();
+    }
+
+    /**
+     * Writes the buffered records and closes the file.
+     *
+     * @throws IOException If the file can't be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if(channel == null) {
+            return;
+        }
+        try {
+            flush();
+        }
+        finally {
+            channel.close();
+            channel = null;
+            buffer = null;
+        }
+    }
+
+    /**
+     * Encodes a record into the buffer.
+     *
+     * @param record the fields of the record in their order, not empty
+     * @throws IOException If the file can't be written
+     */
+    protected abstract void append(Map<String, ?> record) throws IOException;
+
+    /**
+     * Encodes the records held by the sink itself into the buffer, before
+     * the buffer is written.
+     * <p>By default the method does nothing.
+     *
+     * @throws IOException If the file can't be written
+     */
+    protected void flushRecords() throws IOException {
+    }
+
+    /**
+     * Reads the complete lines of a text result file and cuts off the last
+     * line if it has no line break, which means an interrupted write left it
+     * incomplete. If a line can't be handled, the file is closed and left as
+     * it is.
+     *
+     * @param handler the handler of the complete lines
+     * @throws IOException If the file can't be read or a line doesn't belong
+     *                     to a result file
+     */
+    protected void resumeLines(LineHandler handler) throws IOException {
+        long validLength = 0;
+        try(InputStream input = Files.newInputStream(path)) {
+            byte[] bytes = new byte[BUFFER_SIZE];
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            long position = 0;
+            int count;
+            while((count = input.read(bytes)) >= 0) {
+                int start = 0;
+                for(int i = 0; i < count; i++) {
+                    if(bytes[i] != '\n') {
+                        continue;
+                    }
+                    line.write(bytes, start, i - start);
+                    start = i + 1;
+                    String text = new String(line.toByteArray(), StandardCharsets.UTF_8);
+                    line.reset();
+                    handler.handle(text.endsWith("\r") ? text.substring(0, text.length() - 1) : text);
+                    validLength = position + start;
+                }
+                line.write(bytes, start, count - start);
+                position += count;
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+        truncate(validLength);
+    }
+
+    /**
+     * Creates the exception of a file which isn't a result file.
+     *
+     * @return the exception to be thrown
+     */
+    protected IOException notAResultFile() {
+        return new IOException(path + " is not a result file");
+    }
+
+    /**
+     * Cuts off the end of the file which doesn't hold complete records and
+     * moves to the new end.
+     *
+     * @param validLength the length of the complete records in bytes
+     * @throws IOException If the file can't be truncated
+     */
+    protected void truncate(long validLength) throws IOException {
+        if(channel.size() > validLength) {
+            channel.truncate(validLength);
+        }
+        channel.position(channel.size());
+    }
+
+    /**
+     * Appends bytes to the buffer, writing it first if they don't fit.
+     *
+     * @param bytes the bytes to be appended
+     * @throws IOException If the file can't be written
+     */
+    protected void put(byte[] bytes) throws IOException {
+        if(bytes.length > buffer.remaining()) {
+            writeBuffer();
+        }
+        if(bytes.length > buffer.capacity()) {
+            writeFully(ByteBuffer.wrap(bytes));
+        }
+        else {
+            buffer.put(bytes);
+        }
+    }
+
+    /**
+     * Makes room in the buffer, writing it first if there isn't enough.
+     *
+     * @param size the amount of bytes to be put, at most {@link #BUFFER_SIZE}
+     * @return the buffer with at least the specified amount of bytes
+     *         remaining
+     * @throws IOException If the file can't be written
+     */
+    protected ByteBuffer reserve(int size) throws IOException {
+        if(size > buffer.remaining()) {
+            writeBuffer();
+        }
+        return buffer;
+    }
+
+    /**
+     * A static method which converts a number to its shortest text
+     * representation, the same as in JSON.
+     *
+     * @param number the number to be converted
+     * @return the text, or <code>null</code> if the number isn't finite
+     */
+    protected static String formatNumber(Number number) {
+        if((number instanceof Double || number instanceof Float)
+                && (Double.isNaN(number.doubleValue()) || Double.isInfinite(number.doubleValue()))) {
+            return null;
+        }
+        try {
+            return JSONObject.numberToString(number);
+        } catch (JSONException e) {
+            throw new IllegalArgumentException(e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the buffer to the file and clears it.
+     *
+     * @throws IOException If the file can't be written
+     */
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Writes the whole buffer at the current position.
+     *
+     * @param buffer the buffer to be written
+     * @throws IOException If the file can't be written
+     */
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+import java.util.Iterator;
+
+/**
+ * A cursor reading a single queue of {@link Schedule}s field by field,
+ * so the schedules don't have to exist as objects.
+ * <p>A new cursor is positioned before the first schedule.
+ */
+public interface ScheduleCursor {
+    /**
+     * Moves to the next schedule.
+     *
+     * @return <code>true</code> if there is a next schedule;
+     *         <code>false</code> if the queue is exhausted.
+     */
+    boolean next();
+
+    /**
+     * Returns the delay of the current schedule.
+     *
+     * @return the delay in CPU cycles
+     */
+    int getDelay();
+
+    /**
+     * Returns the identifier of the process of the current schedule.
+     *
+     * @return the identifier of the process
+     */
+    int getPID();
+
+    /**
+     * Returns the usage of the process of the current schedule.
+     *
+     * @return the usage of the process
+     */
+    double getUsage();
+
+    /**
+     * Returns the burst time of the process of the current schedule.
+     *
+     * @return the burst time of the process
+     */
+    int getBurstTime();
+
+    /**
+     * A static method which reads a queue of schedule objects through
+     * a cursor.
+     *
+     * @param schedules a queue of schedules
+     * @return a cursor reading the queue
+     */
+    static ScheduleCursor of(Iterator<Schedule> schedules) {
+        if(schedules == null) {
+            throw new IllegalArgumentException();
+        }
+        return new ScheduleCursor() {
+            private Schedule schedule;
+
+            @Override
+            public boolean next() {
+                schedule = schedules.hasNext() ? schedules.next() : null;
+                return schedule != null;
+            }
+
+            @Override
+            public int getDelay() {
+                return schedule.getDelay();
+            }
+
+            @Override
+            public int getPID() {
+                return schedule.getProcess().getPID();
+            }
+
+            @Override
+            public double getUsage() {
+                return schedule.getProcess().getUsage();
+            }
+
+            @Override
+            public int getBurstTime() {
+                return schedule.getProcess().getBurstTime();
+            }
+        };
+    }
+}
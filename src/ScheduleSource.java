@@ -0,0 +1,23 @@
+/**
+ * A source of {@link Schedule} queues, one for every {@link CPU}, which can be
+ * read any amount of times through independent cursors.
+ *
+ * @see Workload
+ * @see TraceReader
+ */
+public interface ScheduleSource {
+    /**
+     * Returns the amount of schedule queues.
+     *
+     * @return the amount of schedule queues
+     */
+    Integer getQueueCount();
+
+    /**
+     * Creates a new cursor reading a schedule queue from its start.
+     *
+     * @param queue the index of the queue
+     * @return the cursor
+     */
+    ScheduleCursor cursor(int queue);
+}
@@ -0,0 +1,101 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * A lazily generated queue of {@link Schedule}s for a single {@link CPU}.
+ * <p>Schedules are produced one by one when they're requested, so the memory
+ * used doesn't depend on the length of the stream.
+ *
+ * @see Generator#stream
+ */
+public final class ScheduleStream implements Iterator<Schedule> {
+    /**
+     * A random number generator of this stream.
+     */
+    private final Random random;
+
+    /**
+     * The model of the arrivals on the CPU.
+     */
+    private final ArrivalProcess arrivals;
+
+    /**
+     * The distribution of the usages of the processes.
+     */
+    private final Distribution usage;
+
+    /**
+     * The distribution of the burst times of the processes.
+     */
+    private final Distribution burstTime;
+
+    /**
+     * The identifier of the next process.
+     */
+    private int nextPID;
+
+    /**
+     * The difference between consecutive process identifiers.
+     */
+    private final int PIDStride;
+
+    /**
+     * The amount of schedules left.
+     */
+    private long remaining;
+
+    /**
+     * Class constructor. Streams of different CPUs should use the same stride
+     * and different first identifiers lower than the stride, so their
+     * processes' identifiers don't collide. Identifiers wrap around after
+     * {@link Integer#MAX_VALUE}, by then the early processes are long gone.
+     *
+     * @param random a random number generator of this stream
+     * @param arrivals the model of the arrivals on the CPU
+     * @param usage the distribution of the usages of the processes, clamped
+     *              between 0 and 1
+     * @param burstTime the distribution of the burst times of the processes,
+     *                  rounded and at least 1
+     * @param firstPID the identifier of the first process
+     * @param PIDStride the difference between consecutive process identifiers
+     * @param length the amount of schedules in this stream
+     */
+    public ScheduleStream(Random random, ArrivalProcess arrivals, Distribution usage, Distribution burstTime,
+                          Integer firstPID, Integer PIDStride, Long length) {
+        if(random == null || arrivals == null || usage == null || burstTime == null || firstPID == null
+                || PIDStride == null || PIDStride <= 0 || length == null || length < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.random = random;
+        this.arrivals = arrivals;
+        this.usage = usage.clamp(0, 1);
+        this.burstTime = burstTime.clamp(1, Integer.MAX_VALUE);
+        this.nextPID = firstPID;
+        this.PIDStride = PIDStride;
+        this.remaining = length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasNext() {
+        return remaining > 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Schedule next() {
+        if(remaining <= 0) {
+            throw new NoSuchElementException();
+        }
+        remaining--;
+        Process process = new Process(nextPID & Integer.MAX_VALUE, usage.sample(random),
+                (int) Math.round(burstTime.sample(random)));
+        nextPID += PIDStride;
+        return new Schedule(process, arrivals.nextDelay(random));
+    }
+}
@@ -3,6 +3,8 @@ import java.util.*;
 /**
  * Class representing a part of an operating system which assigns processes
  * to {@link CPU}s at certain points in time.
+ * <p>The scheduler keeps the absolute cycle of the next arrival of every
+ * queue in a heap, so it only visits the queues with arrivals.
  */
 public class Scheduler {
     /**
@@ -11,64 +13,157 @@ public class Scheduler {
     Machine master;
 
     /**
-     * Schedule queues mapped to CPUs, ready to be assigned.
+     * Cursors of the schedule queues indexed by CPUs' identifiers, each
+     * positioned at the next schedule of its queue.
      */
-    Map<CPU, Queue<Schedule>> assignedSchedules;
+    ScheduleCursor[] cursors;
 
     /**
-     * An internal timer measured in cycles.
+     * The cycle in which the next schedule of every queue is assigned.
      */
-    Integer timer;
+    long[] arrivals;
 
     /**
-     * Class constructor.
+     * A binary min-heap of the indices of the queues which aren't exhausted
+     * yet, ordered by their next arrival and then by their index.
+     */
+    int[] heap;
+
+    /**
+     * The amount of queues which aren't exhausted yet.
+     */
+    int pendingQueueCount;
+
+    /**
+     * The current cycle.
+     */
+    long cycle;
+
+    /**
+     * Class constructor. Schedules are immutable, so the queues are read
+     * without being copied or modified and may be shared by many schedulers.
      *
      * @param master machine which uses this scheduler
      * @param schedules schedule queues mapped to CPUs
      */
     public Scheduler(Machine master, Set<Queue<Schedule>> schedules) {
-        if(master == null || schedules == null) {
+        this(master, cursorSchedules(schedules));
+    }
+
+    /**
+     * Class constructor. The queues are read lazily, one schedule ahead.
+     *
+     * @param master machine which uses this scheduler
+     * @param schedules schedule queues indexed by CPUs' identifiers, for
+     *                  example the ones of {@link Generator#stream}
+     */
+    public Scheduler(Machine master, List<? extends Iterator<Schedule>> schedules) {
+        this(master, cursorSchedules(schedules));
+    }
+
+    /**
+     * Class constructor. The schedules are read field by field, so no objects
+     * are created for them.
+     *
+     * @param master machine which uses this scheduler
+     * @param schedules a source of schedule queues indexed by CPUs'
+     *                  identifiers, for example a {@link Workload} or a
+     *                  {@link TraceReader}
+     */
+    public Scheduler(Machine master, ScheduleSource schedules) {
+        this(master, cursorSchedules(schedules));
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param master machine which uses this scheduler
+     * @param cursors cursors of the schedule queues indexed by CPUs'
+     *                identifiers, positioned before their first schedules
+     */
+    private Scheduler(Machine master, ScheduleCursor[] cursors) {
+        if(master == null || cursors.length < master.getCPUCount()) {
             throw new IllegalArgumentException();
         }
         this.master = master;
-        assignedSchedules = new HashMap<>();
-        timer = 0;
-        Iterator<Queue<Schedule>> iter = copySchedules(schedules).iterator();
-        for(CPU cpu : master.getCPUSet()) {
-            if(iter.hasNext()) {
-                assignedSchedules.put(cpu, iter.next());
+        this.cursors = Arrays.copyOf(cursors, master.getCPUCount());
+        arrivals = new long[this.cursors.length];
+        heap = new int[this.cursors.length];
+        pendingQueueCount = 0;
+        cycle = 0;
+        for(int i = 0; i < this.cursors.length; i++) {
+            if(this.cursors[i].next()) {
+                arrivals[i] = this.cursors[i].getDelay();
+                heap[pendingQueueCount] = i;
+                siftUp(pendingQueueCount++);
+            }
+        }
+    }
+
+    /**
+     * Assigns the processes arriving in the current cycle and moves on to the
+     * next cycle. Every schedule is assigned the amount of cycles specified by
+     * its delay after the previous schedule of its queue, independently of
+     * the other queues.
+     * <p>The processes are passed to the handler ordered by the identifiers
+     * of their CPUs. Only the queues with arrivals are visited, so a cycle
+     * without arrivals takes constant time and nothing is allocated except
+     * for the arriving processes.
+     *
+     * @param handler a receiver of the arriving processes
+     * @return the amount of arriving processes
+     */
+    public int dispatchArrivals(ArrivalHandler handler) {
+        int count = 0;
+        while(pendingQueueCount > 0 && arrivals[heap[0]] <= cycle) {
+            int i = heap[0];
+            ScheduleCursor cursor = cursors[i];
+            boolean pending;
+            do {
+                Process process = new Process(cursor.getPID(), cursor.getUsage(), cursor.getBurstTime());
+                process.setArrivalCycle(cycle);
+                handler.handleArrival(i, process);
+                count++;
+            } while((pending = cursor.next()) && cursor.getDelay() <= 0);
+
+            if(pending) {
+                arrivals[i] = cycle + cursor.getDelay();
             }
             else {
-                throw new IllegalArgumentException();
+                heap[0] = heap[--pendingQueueCount];
             }
+            siftDown(0);
         }
+        cycle++;
+        return count;
     }
 
     /**
-     * Recieve all processes assigned to a CPU in this cycle.
+     * Returns the amount of cycles until the next schedule is assigned. If it's
+     * zero, the next call of {@link #dispatchArrivals(ArrivalHandler)} assigns
+     * a process.
      *
-     * @return all processes assigned to a CPU in this cycle
-     */
-    public Map<CPU, Queue<Process>> getProcesses() {
-        Map<CPU, Queue<Process>> map = new HashMap<>();
-
-        boolean resetTimer = false;
-        Schedule currentSchedule;
-        for(CPU cpu : assignedSchedules.keySet()) {
-            Queue<Process> queue = new LinkedList<>();
-
-            if((currentSchedule = assignedSchedules.get(cpu).peek()) != null && currentSchedule.getDelay().equals(timer)) {
-                resetTimer = true;
-                queue.add(assignedSchedules.get(cpu).poll().getProcess());
-                while((currentSchedule = assignedSchedules.get(cpu).peek()) != null && currentSchedule.getDelay().equals(0)) {
-                    queue.add(assignedSchedules.get(cpu).poll().getProcess());
-                }
-            }
-            map.put(cpu, queue);
+     * @return the amount of cycles until the next schedule is assigned, or
+     *         {@link Integer#MAX_VALUE} if there are no more schedules
+     */
+    public Integer getCyclesUntilArrival() {
+        if(pendingQueueCount == 0) {
+            return Integer.MAX_VALUE;
         }
-        timer = resetTimer ? 0 : timer + 1;
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, arrivals[heap[0]] - cycle));
+    }
 
-        return map;
+    /**
+     * Skips the specified amount of cycles in which no schedule is assigned.
+     *
+     * @param cycles the amount of cycles to skip
+     * @see #getCyclesUntilArrival()
+     */
+    public void skipCycles(Integer cycles) {
+        if(cycles < 0 || cycles > getCyclesUntilArrival()) {
+            throw new IllegalArgumentException();
+        }
+        cycle += cycles;
     }
 
     /**
@@ -78,29 +173,113 @@ public class Scheduler {
      *         <code>false</code> otherwise.
      */
     public boolean isDone() {
-        for(CPU cpu : assignedSchedules.keySet()) {
-            if(!assignedSchedules.get(cpu).isEmpty()) {
-                return false;
+        return pendingQueueCount == 0;
+    }
+
+    /**
+     * Checks whether a queue precedes another one in the heap.
+     *
+     * @param i the index of a queue
+     * @param j the index of another queue
+     * @return <code>true</code> if the queue <code>i</code> precedes the
+     *         queue <code>j</code>; <code>false</code> otherwise.
+     */
+    private boolean precedes(int i, int j) {
+        return arrivals[i] < arrivals[j] || arrivals[i] == arrivals[j] && i < j;
+    }
+
+    /**
+     * Moves an entry of the heap up until its parent precedes it.
+     *
+     * @param k the position of the entry in the heap
+     */
+    private void siftUp(int k) {
+        int queue = heap[k];
+        while(k > 0) {
+            int parent = (k - 1) >>> 1;
+            if(!precedes(queue, heap[parent])) {
+                break;
             }
+            heap[k] = heap[parent];
+            k = parent;
         }
-        return true;
+        heap[k] = queue;
     }
 
     /**
-     * A static method which copies all schedules in a set.
+     * Moves an entry of the heap down until it precedes its children.
      *
-     * @param set a set to be copied
-     * @return a copied set
+     * @param k the position of the entry in the heap
      */
-    public static Set<Queue<Schedule>> copySchedules(Set<Queue<Schedule>> set) {
-        Set<Queue<Schedule>> retSet = new HashSet<>();
-        for(Queue<Schedule> queue : set) {
-            Queue<Schedule> retQueue = new LinkedList<>();
-            for(Schedule schedule : queue) {
-                retQueue.add(new Schedule(schedule));
+    private void siftDown(int k) {
+        if(k >= pendingQueueCount) {
+            return;
+        }
+        int queue = heap[k];
+        int half = pendingQueueCount >>> 1;
+        while(k < half) {
+            int child = 2 * k + 1;
+            if(child + 1 < pendingQueueCount && precedes(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if(!precedes(heap[child], queue)) {
+                break;
             }
-            retSet.add(retQueue);
+            heap[k] = heap[child];
+            k = child;
+        }
+        heap[k] = queue;
+    }
+
+    /**
+     * A static method which creates cursors of a set of schedule queues.
+     *
+     * @param set a set of schedule queues
+     * @return cursors of the queues
+     */
+    private static ScheduleCursor[] cursorSchedules(Set<Queue<Schedule>> set) {
+        if(set == null) {
+            throw new IllegalArgumentException();
+        }
+        ScheduleCursor[] cursors = new ScheduleCursor[set.size()];
+        int i = 0;
+        for(Queue<Schedule> queue : set) {
+            cursors[i++] = ScheduleCursor.of(queue.iterator());
+        }
+        return cursors;
+    }
+
+    /**
+     * A static method which creates cursors of a list of schedule queues.
+     *
+     * @param list schedule queues
+     * @return cursors of the queues
+     */
+    private static ScheduleCursor[] cursorSchedules(List<? extends Iterator<Schedule>> list) {
+        if(list == null) {
+            throw new IllegalArgumentException();
+        }
+        ScheduleCursor[] cursors = new ScheduleCursor[list.size()];
+        for(int i = 0; i < cursors.length; i++) {
+            cursors[i] = ScheduleCursor.of(list.get(i));
+        }
+        return cursors;
+    }
+
+    /**
+     * A static method which creates a cursor of every queue of a source.
+     *
+     * @param source a source of schedule queues
+     * @return cursors of the queues
+     */
+    private static ScheduleCursor[] cursorSchedules(ScheduleSource source) {
+        if(source == null) {
+            throw new IllegalArgumentException();
+        }
+        ScheduleCursor[] cursors = new ScheduleCursor[source.getQueueCount()];
+        for(int i = 0; i < cursors.length; i++) {
+            cursors[i] = source.cursor(i);
         }
-        return retSet;
+        return cursors;
     }
 }
\ No newline at end of file
@@ -1,5 +1,4 @@
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Collection;
 
 /**
  * A {@link Process} appears on {@link CPU} <i>x</i>, which requests the usage of
@@ -7,6 +6,9 @@ import java.util.Set;
  * the process is added there. Otherwise, it chooses again, attempting this
  * up to <i>z</i> times. If every chosen CPU has a usage above <i>p</i>,
  * the process is added to <i>x</i>.
+ * <p>Processes arriving together share their probes: a CPU found below
+ * <i>p</i> keeps receiving them as long as its usage plus the usage sent to
+ * it stays below <i>p</i>, and a CPU found above <i>p</i> isn't asked again.
  */
 public final class Second extends Algorithm {
     /**
@@ -14,6 +16,12 @@ public final class Second extends Algorithm {
      */
     private Double threshold;
 
+    /**
+     * The highest usage in fixed-point units which is lower than the
+     * threshold, with which the algorithm accepts a CPU.
+     */
+    private long limit;
+
     /**
      * Class constructor.
      *
@@ -21,28 +29,26 @@ public final class Second extends Algorithm {
      *                  chooses a CPU
      */
     public Second(Double threshold) {
+        if(threshold == null) {
+            throw new IllegalArgumentException();
+        }
         this.threshold = threshold;
+        limit = LoadIndex.usageLimit(threshold, false);
     }
 
     @Override
     public boolean handleProcess(CPU master, Process process) {
         Machine machine = master.getMaster();
-        Set<CPU> CPUSet = new HashSet<>(machine.getCPUSet());
-        CPUSet.remove(master);
+        CPUSampler sampler = machine.sampleCPUs(master);
 
-        while(!CPUSet.isEmpty()) {
+        while(sampler.hasNext()) {
             // randomly chosen CPU
-            CPU randomCPU = CPU.randomCPU(CPUSet);
-            if(randomCPU != null) {
-                CPUSet.remove(randomCPU);
-                machine.increaseUsageRequestCount();
-                // ask for usage
-                if(randomCPU.getUsage() < threshold) {
-                    machine.increaseRelocationCount();
-                    // send to that random CPU if usage is below the specified threshold
-                    randomCPU.addProcess(process);
-                    return true;
-                }
+            CPU randomCPU = sampler.next();
+            // ask for usage
+            if(machine.requestUsage(randomCPU) < threshold) {
+                // send to that random CPU if usage is below the specified threshold
+                machine.relocateProcess(randomCPU, process, limit);
+                return true;
             }
         }
         /* all the chosen CPUs have usage above the threshold, so the
@@ -52,6 +58,55 @@ public final class Second extends Algorithm {
         return true;
     }
 
+    /**
+     * Sends the processes to CPUs found below the threshold, asking every CPU
+     * at most once for the whole batch. The usage of the chosen CPU is
+     * tracked by adding the usage sent to it, so it's filled up to the
+     * threshold before another CPU is asked.
+     *
+     * @param master CPU on which the processes arrived
+     * @param processes processes to handle
+     * @return the amount of processes, every one is handled
+     */
+    @Override
+    public int handleProcesses(CPU master, Collection<Process> processes) {
+        Machine machine = master.getMaster();
+        CPUSampler sampler = machine.sampleCPUs(master);
+        CPU target = null;
+        double targetUsage = 0;
+
+        for(Process process : processes) {
+            while(target == null && sampler.hasNext()) {
+                CPU randomCPU = sampler.next();
+                targetUsage = machine.requestUsage(randomCPU);
+                if(targetUsage < threshold) {
+                    target = randomCPU;
+                }
+            }
+            if(target == null) {
+                // every CPU is above the threshold, so are the ones asked before
+                master.addProcess(process);
+                continue;
+            }
+            machine.relocateProcess(target, process, limit);
+            targetUsage += process.getUsage();
+            if(targetUsage >= threshold) {
+                target = null;
+            }
+        }
+        return processes.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return <code>true</code>, the algorithm keeps no state of its own
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     /**
      * {@inheritDoc}
      */
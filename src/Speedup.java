@@ -0,0 +1,65 @@
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares the sequential and the parallel simulation engines of
+ * {@link Machine} for CPU counts from 100 to 100,000.
+ */
+public class Speedup {
+    /**
+     * The main method, which prints the speedup curve of the parallel engine.
+     * <p>For every CPU count and algorithm both engines run the same
+     * schedules with the same seed, so the results are checked to match.
+     *
+     * @param args optionally the parallelism of the pool, all available
+     *             processors are used by default
+     */
+    public static void main(String[] args) {
+        int parallelism = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        Double upperThreshold = 0.6;
+
+        Integer minLength = 20;
+        Integer maxLength = 40;
+        // a light load, so the probing algorithms don't saturate the machine
+        Double minUsage = 0.01;
+        Double maxUsage = 0.04;
+        Integer minDelay = 0;
+        Integer maxDelay = 2;
+        Integer minBurstTime = 10;
+        Integer maxBurstTime = 20;
+
+        Long seed = 2018L;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+        System.out.println("Parallelism: " + parallelism);
+        for(Integer CPUCount = 100; CPUCount <= 100000; CPUCount *= 10) {
+            Set<Queue<Schedule>> schedules = Generator.generate(CPUCount, minLength, maxLength, minUsage, maxUsage,
+                    minDelay, maxDelay, minBurstTime, maxBurstTime, new Random(seed));
+
+            Algorithm[] algorithms = { new First(),
+                    new Second(upperThreshold),
+                    new Third(upperThreshold)};
+
+            for(Algorithm algorithm : algorithms) {
+                Machine sequential = new Machine(CPUCount, algorithm, schedules, seed);
+                sequential.run();
+                Machine parallel = new Machine(CPUCount, algorithm, schedules, seed);
+                parallel.runParallel(pool);
+
+                boolean match = sequential.getAverageUsage().equals(parallel.getAverageUsage())
+                        && sequential.getAverageUsageDeviation().equals(parallel.getAverageUsageDeviation())
+                        && sequential.getUsageRequestCount().equals(parallel.getUsageRequestCount())
+                        && sequential.getRelocationCount().equals(parallel.getRelocationCount());
+
+                System.out.println("N = " + CPUCount + ", " + algorithm + ":");
+                System.out.println("\tSequential (millis): " + sequential.getDuration());
+                System.out.println("\tParallel (millis): " + parallel.getDuration());
+                System.out.println("\tSpeedup: " + (double) sequential.getDuration() / Math.max(parallel.getDuration(), 1));
+                System.out.println("\tResults match: " + match);
+            }
+        }
+        pool.shutdown();
+    }
+}
@@ -1,16 +1,27 @@
-import netscape.javascript.JSObject;
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.text.DecimalFormat;
-import java.util.Queue;
-import java.util.Scanner;
-import java.util.Set;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 public class Statistic {
 
+    /**
+     * The main method, which runs a parameter sweep of every algorithm for CPU
+     * counts from 10 to 100 and appends the results to a file, one record per
+     * run, see {@link ResultSink#open(Path)}. Running it again resumes an
+     * interrupted sweep. Exits with a non-zero status if any run failed.
+     *
+     * @param args optionally the output file, <code>statistic.jsonl</code> by
+     *             default, <code>.csv</code> or <code>.col</code> for CSV or
+     *             columnar output, and the amount of simulations run at the
+     *             same time, all available processors by default
+     */
     public static void main(String[] args) {
-        Integer CPUCount = 50;
+        Path output = Paths.get(args.length > 0 ? args[0] : "statistic.jsonl");
+        Integer threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
         Double upperThreshold = 0.6;
 
         Integer minLength = 500;
@@ -26,61 +37,36 @@ public class Statistic {
         int endN = 100;
         int interval = 10;
 
-        JSONArray averageUsages = new JSONArray();
-        JSONArray averageUsageDeviations = new JSONArray();
-        JSONArray usageRequestCounts = new JSONArray();
-        JSONArray relocationCounts = new JSONArray();
-        JSONArray durations = new JSONArray();
-
-        try {
-            for (CPUCount = startN; CPUCount <= endN; CPUCount += interval) {
-                System.out.println("Time " + CPUCount/interval);
-                Set<Queue<Schedule>> schedules = Generator.generate(CPUCount, minLength, maxLength, minUsage, maxUsage,
-                        minDelay, maxDelay, minBurstTime, maxBurstTime);
-
-                Algorithm[] algorithms = {new First(),
-                        new Second(upperThreshold),
-                        new Third(upperThreshold)};
-
-                JSONObject averageUsage = new JSONObject();
-                JSONObject averageUsageDeviation = new JSONObject();
-                JSONObject usageRequestCount = new JSONObject();
-                JSONObject relocationCount = new JSONObject();
-                JSONObject duration = new JSONObject();
-
-                averageUsage.put("category", CPUCount);
-                averageUsageDeviation.put("category", CPUCount);
-                usageRequestCount.put("category", CPUCount);
-                relocationCount.put("category", CPUCount);
-                duration.put("category", CPUCount);
-
-                for (Algorithm algorithm : algorithms) {
-                    Machine machine = new Machine(CPUCount, algorithm, schedules);
-                    machine.run();
-
-
-                    averageUsage.put(algorithm.toString(), formatPercent(machine.getAverageUsage()));
-                    averageUsageDeviation.put(algorithm.toString(), formatPercent(machine.getAverageUsageDeviation()));
-                    usageRequestCount.put(algorithm.toString(), machine.getUsageRequestCount());
-                    relocationCount.put(algorithm.toString(), machine.getRelocationCount());
-                    duration.put(algorithm.toString(), machine.getDuration());
+        Long seed = 2018L;
+        Integer repetitions = 1;
 
+        List<Integer> CPUCounts = new ArrayList<>();
+        for(int CPUCount = startN; CPUCount <= endN; CPUCount += interval) {
+            CPUCounts.add(CPUCount);
+        }
 
-                }
+        List<SweepPoint> points = Sweep.grid(CPUCounts,
+                Collections.singletonList(upperThreshold),
+                Collections.singletonList(new Integer[]{minLength, maxLength}),
+                Collections.singletonList(new Double[]{minUsage, maxUsage}),
+                Collections.singletonList(new Integer[]{minDelay, maxDelay}),
+                Collections.singletonList(new Integer[]{minBurstTime, maxBurstTime}),
+                Arrays.asList("First", "Second", "Third", "IndexedThird",
+                        "PowerOfD:2", "JSQWithMemory:2", "JoinIdleQueue"),
+                Collections.singletonList(seed),
+                repetitions);
 
-                averageUsages.put(averageUsage);
-                averageUsageDeviations.put(averageUsageDeviation);
-                usageRequestCounts.put(usageRequestCount);
-                relocationCounts.put(relocationCount);
-                durations.put(duration);
+        try {
+            Sweep sweep = new Sweep(points, threads);
+            Integer count = sweep.run(output);
+            System.out.println(count + " of " + points.size() + " runs written to " + output);
+            if(sweep.getFailedCount() > 0) {
+                System.err.println(sweep.getFailedCount() + " runs failed, run again to retry them");
+                System.exit(1);
             }
         } catch (Exception e) {
             System.err.println(e.getMessage());
+            System.exit(1);
         }
-        System.out.println("");
-    }
-
-    public static double formatPercent(Double d) {
-        return  (((int) (d*10000)) / (double)100);
     }
 }
@@ -0,0 +1,328 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A parameter sweep running independent {@link Machine} simulations for every
+ * {@link SweepPoint} of a grid at the same time.
+ * <p>The runs are executed on a bounded pool of threads. Points sharing a
+ * workload are run by the same task, which generates the {@link Workload}
+ * once. Every result is appended to the output file as a single record of a
+ * {@link ResultSink} as soon as its run finishes, so an interrupted sweep
+ * resumes by skipping the points already present in the file.
+ */
+public class Sweep {
+    /**
+     * The percentiles of the latencies written for every point.
+     */
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+    /**
+     * The suffixes of the result fields of the percentiles.
+     */
+    private static final String[] PERCENTILE_NAMES = {"P50", "P99", "P999"};
+
+    /**
+     * The points of the sweep.
+     */
+    private List<SweepPoint> points;
+
+    /**
+     * The amount of simulations run at the same time.
+     */
+    private Integer threads;
+
+    /**
+     * The amount of results written by the last run.
+     */
+    private AtomicInteger writtenCount = new AtomicInteger();
+
+    /**
+     * The amount of points of the last run whose workload or simulation
+     * failed or whose result couldn't be written.
+     */
+    private AtomicInteger failedCount = new AtomicInteger();
+
+    /**
+     * Class constructor.
+     *
+     * @param points the points of the sweep
+     * @param threads the amount of simulations run at the same time
+     */
+    public Sweep(List<SweepPoint> points, Integer threads) {
+        if(points == null || threads == null || threads <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.points = points;
+        this.threads = threads;
+    }
+
+    /**
+     * A static method which builds every combination of the specified
+     * parameters. Every range is an array of its minimum and maximum.
+     *
+     * @param CPUCounts amounts of CPUs
+     * @param thresholds usage thresholds of the algorithms
+     * @param lengths ranges of the length of a schedule queue
+     * @param usages ranges of the usage of a process
+     * @param delays ranges of the delay of a schedule
+     * @param burstTimes ranges of the burst time of a process
+     * @param algorithms names of the algorithms
+     * @param seeds seeds of the workloads and of the machines
+     * @param repetitions amount of repetitions of every combination
+     * @return the points of the grid
+     * @see #createAlgorithm(String, Double)
+     */
+    public static List<SweepPoint> grid(List<Integer> CPUCounts, List<Double> thresholds,
+                                        List<Integer[]> lengths, List<Double[]> usages,
+                                        List<Integer[]> delays, List<Integer[]> burstTimes,
+                                        List<String> algorithms, List<Long> seeds, Integer repetitions) {
+        List<SweepPoint> points = new ArrayList<>();
+        for(Integer CPUCount : CPUCounts) {
+            for(Double threshold : thresholds) {
+                for(Integer[] length : lengths) {
+                    for(Double[] usage : usages) {
+                        for(Integer[] delay : delays) {
+                            for(Integer[] burstTime : burstTimes) {
+                                for(Long seed : seeds) {
+                                    for(int repetition = 0; repetition < repetitions; repetition++) {
+                                        for(String algorithm : algorithms) {
+                                            points.add(new SweepPoint(CPUCount, threshold, length[0], length[1],
+                                                    usage[0], usage[1], delay[0], delay[1],
+                                                    burstTime[0], burstTime[1], algorithm, seed, repetition));
+                                        }
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return points;
+    }
+
+    /**
+     * A static method which creates an algorithm by its name. Further
+     * parameters of the algorithm are appended to the name, each after
+     * a colon:
+     * <ul>
+     *     <li>the amount of choices of {@link PowerOfD} and
+     *     {@link JSQWithMemory}, two by default, for example
+     *     <code>PowerOfD:2</code>
+     *     <li>the lower threshold, the portion and the attempt count of
+     *     {@link Third} taking processes of other CPUs, for example
+     *     <code>Third:0.3:0.5:10</code>
+     *     <li>the local and the remote attempt count of {@link LocalFirst},
+     *     ten and two by default, for example <code>LocalFirst:10:2</code>
+     * </ul>
+     *
+     * @param name the name of the algorithm, its class name
+     * @param threshold the usage threshold of the algorithm
+     * @return a new algorithm
+     * @throws IllegalArgumentException If there's no algorithm with the name
+     */
+    public static Algorithm createAlgorithm(String name, Double threshold) {
+        String[] parts = name.split(":");
+        try {
+            switch(parts[0]) {
+                case "First":
+                    return new First();
+                case "Second":
+                    return new Second(threshold);
+                case "Third":
+                    if(parts.length == 4) {
+                        return new Third(threshold, Double.valueOf(parts[1]), Double.valueOf(parts[2]),
+                                Integer.valueOf(parts[3]));
+                    }
+                    return new Third(threshold);
+                case "IndexedThird":
+                    return new IndexedThird(threshold);
+                case "PowerOfD":
+                    return new PowerOfD(parts.length > 1 ? Integer.valueOf(parts[1]) : 2);
+                case "JSQWithMemory":
+                    return new JSQWithMemory(parts.length > 1 ? Integer.valueOf(parts[1]) : 2);
+                case "JoinIdleQueue":
+                    return new JoinIdleQueue(threshold);
+                case "LocalFirst":
+                    return new LocalFirst(threshold, parts.length > 1 ? Integer.valueOf(parts[1]) : 10,
+                            parts.length > 2 ? Integer.valueOf(parts[2]) : 2);
+                default:
+                    throw new IllegalArgumentException("Unknown algorithm " + name);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid parameters of " + name);
+        }
+    }
+
+    /**
+     * A static method which creates a ready queue policy by its name.
+     * Further parameters are appended to the name after a colon:
+     * <ul>
+     *     <li><code>FIFO</code>, see {@link ReadyQueuePolicy#FIFO}
+     *     <li><code>BestFit</code>, see {@link ReadyQueuePolicy#BEST_FIT}
+     *     <li><code>FirstFit</code> with the lookahead, four by default, for
+     *     example <code>FirstFit:4</code>
+     *     <li><code>Aging</code> with the age after which the head is no
+     *     longer overtaken, a hundred cycles by default, for example
+     *     <code>Aging:100</code>
+     * </ul>
+     *
+     * @param name the name of the policy
+     * @return a ready queue policy
+     * @throws IllegalArgumentException If there's no policy with the name
+     */
+    public static ReadyQueuePolicy createReadyQueuePolicy(String name) {
+        String[] parts = name.split(":");
+        try {
+            switch(parts[0]) {
+                case "FIFO":
+                    return ReadyQueuePolicy.FIFO;
+                case "BestFit":
+                    return ReadyQueuePolicy.BEST_FIT;
+                case "FirstFit":
+                    return ReadyQueuePolicy.firstFit(parts.length > 1 ? Integer.parseInt(parts[1]) : 4);
+                case "Aging":
+                    return ReadyQueuePolicy.agingBackfill(parts.length > 1 ? Integer.parseInt(parts[1]) : 100);
+                default:
+                    throw new IllegalArgumentException("Unknown ready queue policy " + name);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid parameters of " + name);
+        }
+    }
+
+    /**
+     * Runs every point of the sweep which isn't present in the output file
+     * yet and appends its result to the file. A point which fails is
+     * reported and counted, see {@link #getFailedCount()}, and is run again
+     * when the sweep is resumed.
+     *
+     * @param output the file the results are appended to, in the format
+     *               given by its extension, see {@link ResultSink#open(Path)}
+     * @return the amount of results written
+     * @throws IOException If the output file can't be read or written
+     * @throws InterruptedException If the thread is interrupted while waiting
+     *                              for the runs to finish
+     */
+    public Integer run(Path output) throws IOException, InterruptedException {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        writtenCount.set(0);
+        failedCount.set(0);
+
+        try(ResultSink sink = ResultSink.open(output)) {
+            Set<String> completedKeys = sink.getCompletedKeys();
+            Map<String, List<SweepPoint>> groups = new LinkedHashMap<>();
+            for(SweepPoint point : points) {
+                if(!completedKeys.contains(point.getKey())) {
+                    groups.computeIfAbsent(point.getWorkloadKey(), key -> new ArrayList<>()).add(point);
+                }
+            }
+
+            for(List<SweepPoint> group : groups.values()) {
+                executor.execute(() -> runGroup(group, sink));
+            }
+            executor.shutdown();
+            while(!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                System.out.println("Waiting for " + executor.getActiveCount() + " runs");
+                sink.flush();
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        return writtenCount.get();
+    }
+
+    /**
+     * Returns the amount of points of the last run which failed, so their
+     * results are missing.
+     *
+     * @return the amount of failed points
+     */
+    public Integer getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * Generates the workload shared by a group of points and runs the
+     * simulation of every point.
+     *
+     * @param group points with the same workload
+     * @param sink the sink of the results
+     */
+    private void runGroup(List<SweepPoint> group, ResultSink sink) {
+        SweepPoint first = group.get(0);
+        Workload workload;
+        try {
+            workload = Workload.of(Generator.generate(first.getCPUCount(),
+                    first.getMinLength(), first.getMaxLength(), first.getMinUsage(), first.getMaxUsage(),
+                    first.getMinDelay(), first.getMaxDelay(), first.getMinBurstTime(), first.getMaxBurstTime(),
+                    new Random(first.getRepetitionSeed())));
+        } catch (RuntimeException e) {
+            System.err.println(first.getWorkloadKey() + ": " + e.getMessage());
+            failedCount.addAndGet(group.size());
+            return;
+        }
+        for(SweepPoint point : group) {
+            runPoint(point, workload, sink);
+        }
+    }
+
+    /**
+     * Runs the simulation of a single point and appends its result.
+     *
+     * @param point the point to be run
+     * @param workload the workload of the point
+     * @param sink the sink of the results
+     */
+    private void runPoint(SweepPoint point, Workload workload, ResultSink sink) {
+        try {
+            Algorithm algorithm = createAlgorithm(point.getAlgorithm(), point.getThreshold());
+            Machine machine = new Machine(point.getCPUCount(), algorithm, workload,
+                    point.getRepetitionSeed());
+            machine.run();
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put(ResultSink.KEY, point.getKey());
+            result.put("N", point.getCPUCount());
+            result.put("p", point.getThreshold());
+            result.put("minLength", point.getMinLength());
+            result.put("maxLength", point.getMaxLength());
+            result.put("minUsage", point.getMinUsage());
+            result.put("maxUsage", point.getMaxUsage());
+            result.put("minDelay", point.getMinDelay());
+            result.put("maxDelay", point.getMaxDelay());
+            result.put("minBurstTime", point.getMinBurstTime());
+            result.put("maxBurstTime", point.getMaxBurstTime());
+            result.put("algorithm", algorithm.toString());
+            result.put("seed", point.getSeed());
+            result.put("repetition", point.getRepetition());
+            result.put("averageUsage", machine.getAverageUsage());
+            result.put("averageUsageDeviation", machine.getAverageUsageDeviation());
+            result.put("usageRequestCount", machine.getUsageRequestCount());
+            result.put("requestsPerPlacement", machine.getRequestsPerPlacement());
+            result.put("relocationCount", machine.getRelocationCount());
+            result.put("duration", machine.getDuration());
+            LatencyRecorder latencies = machine.getLatencies();
+            for(int i = 0; i < PERCENTILES.length; i++) {
+                result.put("waitTime" + PERCENTILE_NAMES[i],
+                        latencies.getWaitTimes().getPercentile(PERCENTILES[i]));
+                result.put("responseTime" + PERCENTILE_NAMES[i],
+                        latencies.getResponseTimes().getPercentile(PERCENTILES[i]));
+                result.put("slowdown" + PERCENTILE_NAMES[i], latencies.getSlowdownPercentile(PERCENTILES[i]));
+            }
+
+            sink.write(result);
+            writtenCount.incrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            System.err.println(point + ": " + e.getMessage());
+            failedCount.incrementAndGet();
+        }
+    }
+}
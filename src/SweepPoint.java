@@ -0,0 +1,253 @@
+/**
+ * A single point of a parameter {@link Sweep}, that is every parameter of one
+ * simulation run.
+ */
+public final class SweepPoint {
+    /**
+     * Amount of CPUs.
+     */
+    private final Integer CPUCount;
+
+    /**
+     * The usage threshold of the algorithm.
+     */
+    private final Double threshold;
+
+    /**
+     * The minimum and maximum length of a schedule queue.
+     */
+    private final Integer minLength, maxLength;
+
+    /**
+     * The minimum and maximum usage of a process.
+     */
+    private final Double minUsage, maxUsage;
+
+    /**
+     * The minimum and maximum delay of a schedule.
+     */
+    private final Integer minDelay, maxDelay;
+
+    /**
+     * The minimum and maximum burst time of a process.
+     */
+    private final Integer minBurstTime, maxBurstTime;
+
+    /**
+     * The name of the algorithm.
+     *
+     * @see Sweep#createAlgorithm(String, Double)
+     */
+    private final String algorithm;
+
+    /**
+     * The seed of the workload and of the machine.
+     */
+    private final Long seed;
+
+    /**
+     * The number of the repetition of this run.
+     */
+    private final Integer repetition;
+
+    /**
+     * Class constructor.
+     *
+     * @param CPUCount amount of CPUs
+     * @param threshold the usage threshold of the algorithm
+     * @param minLength the minimum length of a schedule queue
+     * @param maxLength the maximum length of a schedule queue
+     * @param minUsage the minimum usage of a process
+     * @param maxUsage the maximum usage of a process
+     * @param minDelay the minimum delay of a schedule
+     * @param maxDelay the maximum delay of a schedule
+     * @param minBurstTime the minimum burst time of a process
+     * @param maxBurstTime the maximum burst time of a process
+     * @param algorithm the name of the algorithm
+     * @param seed the seed of the workload and of the machine
+     * @param repetition the number of the repetition of this run
+     */
+    public SweepPoint(Integer CPUCount, Double threshold,
+                      Integer minLength, Integer maxLength,
+                      Double minUsage, Double maxUsage,
+                      Integer minDelay, Integer maxDelay,
+                      Integer minBurstTime, Integer maxBurstTime,
+                      String algorithm, Long seed, Integer repetition) {
+        if(CPUCount == null || threshold == null || minLength == null || maxLength == null
+                || minUsage == null || maxUsage == null || minDelay == null || maxDelay == null
+                || minBurstTime == null || maxBurstTime == null || algorithm == null || seed == null
+                || repetition == null) {
+            throw new IllegalArgumentException();
+        }
+        this.CPUCount = CPUCount;
+        this.threshold = threshold;
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.minUsage = minUsage;
+        this.maxUsage = maxUsage;
+        this.minDelay = minDelay;
+        this.maxDelay = maxDelay;
+        this.minBurstTime = minBurstTime;
+        this.maxBurstTime = maxBurstTime;
+        this.algorithm = algorithm;
+        this.seed = seed;
+        this.repetition = repetition;
+    }
+
+    /**
+     * Returns a key identifying this point, used to find the points which
+     * have already been run.
+     *
+     * @return a key identifying this point
+     */
+    public String getKey() {
+        return CPUCount + "/" + threshold + "/" + minLength + "-" + maxLength + "/" + minUsage + "-" + maxUsage
+                + "/" + minDelay + "-" + maxDelay + "/" + minBurstTime + "-" + maxBurstTime + "/" + algorithm
+                + "/" + seed + "/" + repetition;
+    }
+
+    /**
+     * Returns a key identifying the workload of this point. Points with the
+     * same workload key only differ in the algorithm and its threshold.
+     *
+     * @return a key identifying the workload of this point
+     */
+    public String getWorkloadKey() {
+        return CPUCount + "/" + minLength + "-" + maxLength + "/" + minUsage + "-" + maxUsage + "/" + minDelay
+                + "-" + maxDelay + "/" + minBurstTime + "-" + maxBurstTime + "/" + seed + "/" + repetition;
+    }
+
+    /**
+     * Returns the seed of the workload and the machine of this repetition.
+     *
+     * @return the seed of this repetition
+     */
+    public Long getRepetitionSeed() {
+        return seed * 31 + repetition;
+    }
+
+    /**
+     * Returns the amount of CPUs.
+     *
+     * @return the amount of CPUs
+     */
+    public Integer getCPUCount() {
+        return CPUCount;
+    }
+
+    /**
+     * Returns the usage threshold of the algorithm.
+     *
+     * @return the usage threshold of the algorithm
+     */
+    public Double getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Returns the minimum length of a schedule queue.
+     *
+     * @return the minimum length of a schedule queue
+     */
+    public Integer getMinLength() {
+        return minLength;
+    }
+
+    /**
+     * Returns the maximum length of a schedule queue.
+     *
+     * @return the maximum length of a schedule queue
+     */
+    public Integer getMaxLength() {
+        return maxLength;
+    }
+
+    /**
+     * Returns the minimum usage of a process.
+     *
+     * @return the minimum usage of a process
+     */
+    public Double getMinUsage() {
+        return minUsage;
+    }
+
+    /**
+     * Returns the maximum usage of a process.
+     *
+     * @return the maximum usage of a process
+     */
+    public Double getMaxUsage() {
+        return maxUsage;
+    }
+
+    /**
+     * Returns the minimum delay of a schedule.
+     *
+     * @return the minimum delay of a schedule
+     */
+    public Integer getMinDelay() {
+        return minDelay;
+    }
+
+    /**
+     * Returns the maximum delay of a schedule.
+     *
+     * @return the maximum delay of a schedule
+     */
+    public Integer getMaxDelay() {
+        return maxDelay;
+    }
+
+    /**
+     * Returns the minimum burst time of a process.
+     *
+     * @return the minimum burst time of a process
+     */
+    public Integer getMinBurstTime() {
+        return minBurstTime;
+    }
+
+    /**
+     * Returns the maximum burst time of a process.
+     *
+     * @return the maximum burst time of a process
+     */
+    public Integer getMaxBurstTime() {
+        return maxBurstTime;
+    }
+
+    /**
+     * Returns the name of the algorithm.
+     *
+     * @return the name of the algorithm
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Returns the seed of the workload and of the machine.
+     *
+     * @return the seed of the workload and of the machine
+     */
+    public Long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the number of the repetition of this run.
+     *
+     * @return the number of the repetition of this run
+     */
+    public Integer getRepetition() {
+        return repetition;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return getKey();
+    }
+}
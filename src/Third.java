@@ -1,5 +1,4 @@
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Collection;
 
 /**
  * A {@link Process} appears on {@link CPU} <i>x</i>. If the usage of <i>x</i>
@@ -7,35 +6,106 @@ import java.util.Set;
  * <i>y</i> with usage lower than <i>p</i> (if <i>y</i>'s usage is greater than
  * <i>p</i>, a CPU is chosen again). If the usage doesn't exceed said threshold,
  * the process is sent to <i>x</i>.
+ * <p>Optionally, at the end of every cycle CPUs with usage lower than some
+ * minimal threshold <i>r</i> ask randomly chosen CPUs for usage and if it
+ * exceeds <i>p</i>, the asking CPU takes a portion of its processes. The
+ * asking CPUs are drawn from the machine's {@link LoadIndex}, so the CPUs
+ * above <i>r</i> aren't visited, and at most <i>z</i> CPUs are asked in
+ * a cycle.
+ * <p>Processes arriving together share their probes: a CPU found at or below
+ * <i>p</i> keeps receiving them as long as its usage plus the usage sent to
+ * it doesn't exceed <i>p</i>, and a CPU found above <i>p</i> isn't asked
+ * again.
  */
 public final class Third extends Algorithm {
+    /**
+     * The usage threshold according to which the algorithm chooses a CPU.
+     */
     private Double threshold;
 
+    /**
+     * The highest usage in fixed-point units not higher than the
+     * threshold, with which the algorithm accepts a CPU.
+     */
+    private long limit;
+
+    /**
+     * The usage threshold below which a CPU takes processes of other CPUs, or
+     * <code>null</code> if processes aren't taken.
+     */
+    private Double lowerThreshold;
+
+    /**
+     * The portion of the processes of a CPU which is taken.
+     */
+    private Double portion;
+
+    /**
+     * The maximum amount of CPUs asked for usage by the taking CPUs in
+     * a cycle.
+     */
+    private Integer attemptCount;
+
+    /**
+     * The highest usage in fixed-point units which is lower than the lower
+     * threshold.
+     */
+    private long lowerLimit;
+
+    /**
+     * Class constructor. Processes aren't taken from other CPUs.
+     *
+     * @param threshold usage threshold according to which the algorithm
+     *                  chooses a CPU
+     */
     public Third(Double threshold) {
+        if(threshold == null) {
+            throw new IllegalArgumentException();
+        }
+        this.threshold = threshold;
+        limit = LoadIndex.usageLimit(threshold, true);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param threshold usage threshold according to which the algorithm
+     *                  chooses a CPU
+     * @param lowerThreshold usage threshold below which a CPU takes processes
+     *                       of other CPUs
+     * @param portion a number between 0 and 1 specifying the portion of the
+     *                processes of a CPU which is taken
+     * @param attemptCount the maximum amount of CPUs asked for usage by the
+     *                     taking CPUs in a cycle
+     */
+    public Third(Double threshold, Double lowerThreshold, Double portion, Integer attemptCount) {
+        if(threshold == null || lowerThreshold == null || portion == null || portion < 0 || portion > 1
+                || attemptCount == null || attemptCount < 0) {
+            throw new IllegalArgumentException();
+        }
         this.threshold = threshold;
+        limit = LoadIndex.usageLimit(threshold, true);
+        this.lowerThreshold = lowerThreshold;
+        this.portion = portion;
+        this.attemptCount = attemptCount;
+        lowerLimit = LoadIndex.usageLimit(lowerThreshold, false);
     }
 
     @Override
     public boolean handleProcess(CPU master, Process process) {
         Machine machine = master.getMaster();
-        Set<CPU> CPUSet = new HashSet<>(machine.getCPUSet());
-        CPUSet.remove(master);
 
         if(master.getUsage() > threshold) {
+            CPUSampler sampler = machine.sampleCPUs(master);
             // try every cpu
-            while(!CPUSet.isEmpty()) {
+            while(sampler.hasNext()) {
                 // randomly chosen CPU
-                CPU randomCPU = CPU.randomCPU(CPUSet);
-                if(randomCPU != null) {
-                    CPUSet.remove(randomCPU);
-                    machine.increaseUsageRequestCount();
-                    // ask for usage
-                    if(randomCPU.getUsage() <= threshold) {
-                        machine.increaseRelocationCount();
-                        // send to that random CPU if usage is below the specified threshold
-                        randomCPU.addProcess(process);
-                        return true;
-                    }
+                CPU randomCPU = sampler.next();
+                // ask for usage
+                if(machine.requestUsage(randomCPU) <= threshold) {
+                    // send to that random CPU if usage is below the specified threshold
+                    machine.relocateProcess(randomCPU, process, limit);
+                    return true;
                 }
             }
             // all the chosen CPUs have usage above the threshold, so the process isn't relocated
@@ -47,6 +117,112 @@ public final class Third extends Algorithm {
         }
     }
 
+    /**
+     * Adds the processes to the CPU while its usage doesn't exceed the
+     * threshold, then sends the rest to CPUs found at or below the threshold,
+     * asking every CPU at most once for the whole batch. The usage of the
+     * chosen CPU is tracked by adding the usage sent to it, so it's filled up
+     * to the threshold before another CPU is asked.
+     *
+     * @param master CPU on which the processes arrived
+     * @param processes processes to handle
+     * @return the amount of leading processes which have been handled, the
+     *         others wait because every CPU is above the threshold
+     */
+    @Override
+    public int handleProcesses(CPU master, Collection<Process> processes) {
+        Machine machine = master.getMaster();
+        CPUSampler sampler = null;
+        CPU target = null;
+        double targetUsage = 0;
+
+        int handled = 0;
+        for(Process process : processes) {
+            if(sampler == null) {
+                if(master.getUsage() <= threshold) {
+                    master.addProcess(process);
+                    handled++;
+                    continue;
+                }
+                sampler = machine.sampleCPUs(master);
+            }
+            while(target == null && sampler.hasNext()) {
+                CPU randomCPU = sampler.next();
+                targetUsage = machine.requestUsage(randomCPU);
+                if(targetUsage <= threshold) {
+                    target = randomCPU;
+                }
+            }
+            if(target == null) {
+                // every CPU is above the threshold, so are the ones asked before
+                return handled;
+            }
+            machine.relocateProcess(target, process, limit);
+            handled++;
+            targetUsage += process.getUsage();
+            if(targetUsage > threshold) {
+                target = null;
+            }
+        }
+        return handled;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return <code>true</code> if processes are taken from other CPUs;
+     *         <code>false</code> otherwise.
+     */
+    @Override
+    public boolean handlesCycles() {
+        return lowerThreshold != null && portion > 0 && attemptCount > 0;
+    }
+
+    /**
+     * Lets randomly drawn CPUs with usage lower than <i>r</i> ask a random
+     * CPU each for usage and take a portion of its processes if it exceeds
+     * <i>p</i>, until <i>z</i> CPUs have been asked. Every taken process is
+     * relocated through {@link Machine#relocateProcess(CPU, Process, long)}.
+     *
+     * @param machine machine in which the cycle has been made
+     */
+    @Override
+    public void handleCycle(Machine machine) {
+        LoadIndex index = machine.getLoadIndex();
+        int receivers = index.registerLimit(lowerLimit);
+
+        for(int attempt = 0; attempt < attemptCount; attempt++) {
+            int receiverID = index.randomWithin(receivers, -1);
+            if(receiverID < 0) {
+                // no CPU is below the lower threshold
+                return;
+            }
+            CPU receiver = machine.getCPU(receiverID);
+            CPUSampler sampler = machine.sampleCPUs(receiver);
+            if(!sampler.hasNext()) {
+                return;
+            }
+            CPU randomCPU = sampler.next();
+            if(machine.requestUsage(randomCPU) > threshold) {
+                // relocated one by one, so the load cache sees every stolen process
+                for(Process process : randomCPU.getProcessPortion(portion)) {
+                    machine.relocateProcess(receiver, process, lowerLimit);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return <code>true</code> if processes aren't taken from other CPUs;
+     *         <code>false</code> otherwise.
+     */
+    @Override
+    public boolean isThreadSafe() {
+        return !handlesCycles();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -54,4 +230,4 @@ public final class Third extends Algorithm {
     public String toString() {
         return "Algorithm #3";
     }
-}
\ No newline at end of file
+}
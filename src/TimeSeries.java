@@ -0,0 +1,446 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A time series of the state of a {@link Machine}, sampled every
+ * {@link #getInterval()} cycles. A sample holds the cycle, the amount of
+ * relocations since the previous sample and the usage and the ready queue
+ * length of every {@link CPU}.
+ * <p>The samples are kept in ring buffers of primitive arrays allocated when
+ * the series is attached to a machine, so sampling allocates nothing. Without
+ * an output file the oldest samples are overwritten once the buffers are
+ * full, and the rest is written with {@link #writeCSV(Writer)} or
+ * {@link #writeBinary(WritableByteChannel)}. With an output file the buffers
+ * are written to it whenever they're full and when the series is closed.
+ * <p>The CSV format has a header line followed by a line per sample: the
+ * cycle, the relocations, the usage of every CPU with four decimal places and
+ * the ready queue length of every CPU. The binary format starts with
+ * {@link #MAGIC}, {@link #VERSION}, the amount of CPUs and the interval, each
+ * a big-endian int, followed by {@link #getSampleSize()} bytes per sample in
+ * the same order: a long, an int, a float per CPU and an int per CPU.
+ *
+ * @see Machine#setTimeSeries(TimeSeries)
+ */
+public final class TimeSeries implements Closeable {
+    /**
+     * The first four bytes of a binary time series.
+     */
+    static final int MAGIC = 0x4C425453;
+
+    /**
+     * The version of the binary format.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The size of the header of the binary format in bytes.
+     */
+    static final int HEADER_SIZE = 16;
+
+    /**
+     * The amount of cycles between samples.
+     */
+    private final Integer interval;
+
+    /**
+     * The amount of samples held by the buffers.
+     */
+    private final Integer capacity;
+
+    /**
+     * The output file, or <code>null</code> if the samples are kept in
+     * memory.
+     */
+    private final Path output;
+
+    /**
+     * Whether the output file is binary.
+     */
+    private final boolean binary;
+
+    /**
+     * The sampled machine.
+     */
+    private Machine machine;
+
+    /**
+     * The amount of CPUs of the sampled machine.
+     */
+    private int CPUCount;
+
+    /**
+     * The cycle of every sample, a ring buffer.
+     */
+    private long[] cycles;
+
+    /**
+     * The relocations since the previous sample of every sample, a ring
+     * buffer.
+     */
+    private int[] relocations;
+
+    /**
+     * The usages of all CPUs of every sample, a ring buffer of
+     * {@link #CPUCount} entries per sample.
+     */
+    private float[] usages;
+
+    /**
+     * The ready queue lengths of all CPUs of every sample, a ring buffer of
+     * {@link #CPUCount} entries per sample.
+     */
+    private int[] queueLengths;
+
+    /**
+     * The index of the oldest sample.
+     */
+    private int head;
+
+    /**
+     * The amount of samples in the buffers.
+     */
+    private int size;
+
+    /**
+     * The relocation count of the machine at the previous sample.
+     */
+    private long lastRelocationCount;
+
+    /**
+     * The channel of the binary output file.
+     */
+    private FileChannel channel;
+
+    /**
+     * The writer of the CSV output file.
+     */
+    private Writer writer;
+
+    /**
+     * Class constructor. The samples are kept in memory and the oldest ones
+     * are overwritten once the buffers are full.
+     *
+     * @param interval the amount of cycles between samples
+     * @param capacity the amount of samples held in memory
+     */
+    public TimeSeries(Integer interval, Integer capacity) {
+        this(interval, capacity, null, false);
+    }
+
+    /**
+     * Class constructor. The samples are streamed to a file, which is created
+     * or overwritten when the series is attached to a machine.
+     *
+     * @param interval the amount of cycles between samples
+     * @param capacity the amount of samples held in memory before they're
+     *                 written
+     * @param output the output file, or <code>null</code> to keep the samples
+     *               in memory
+     * @param binary whether the file is written in the binary format instead
+     *               of CSV
+     */
+    public TimeSeries(Integer interval, Integer capacity, Path output, Boolean binary) {
+        if(interval == null || interval <= 0 || capacity == null || capacity <= 0 || binary == null) {
+            throw new IllegalArgumentException();
+        }
+        this.interval = interval;
+        this.capacity = capacity;
+        this.output = output;
+        this.binary = binary;
+    }
+
+    /**
+     * Attaches the series to a machine and allocates the buffers.
+     *
+     * @param machine the sampled machine
+     * @throws IllegalArgumentException If the series is already attached
+     * @throws UncheckedIOException If the output file can't be created
+     */
+    void attach(Machine machine) {
+        if(this.machine != null) {
+            throw new IllegalArgumentException("The time series is already attached to a machine");
+        }
+        this.machine = machine;
+        CPUCount = machine.getCPUCount();
+        cycles = new long[capacity];
+        relocations = new int[capacity];
+        usages = new float[capacity * CPUCount];
+        queueLengths = new int[capacity * CPUCount];
+        lastRelocationCount = machine.getCurrentRelocationCount();
+
+        if(output != null) {
+            try {
+                if(binary) {
+                    channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                            StandardOpenOption.TRUNCATE_EXISTING);
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                    header.putInt(MAGIC).putInt(VERSION).putInt(CPUCount).putInt(interval).flip();
+                    writeFully(channel, header);
+                }
+                else {
+                    writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8);
+                    writeCSVHeader(writer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Takes a sample if the cycle which has just been made is on the
+     * interval. Called by the machine at the end of every cycle.
+     *
+     * @param cycle the cycle which has just been made
+     * @param CPUs the CPUs of the machine
+     */
+    void handleCycle(long cycle, CPU[] CPUs) {
+        if(cycle % interval == 0) {
+            sample(cycle, CPUs);
+        }
+    }
+
+    /**
+     * Takes the samples of cycles skipped by the event driven simulation. The
+     * state of the machine doesn't change in a skipped cycle, so every sample
+     * is the same as the one the cycle would have produced.
+     *
+     * @param from the first skipped cycle, inclusive
+     * @param to the last skipped cycle, exclusive
+     * @param CPUs the CPUs of the machine
+     * @see Machine#runEventDriven()
+     */
+    void handleSkippedCycles(long from, long to, CPU[] CPUs) {
+        long first = (from + interval - 1) / interval * interval;
+        for(long cycle = first; cycle < to; cycle += interval) {
+            sample(cycle, CPUs);
+        }
+    }
+
+    /**
+     * Stores a sample, writing the buffers to the output file first if
+     * they're full.
+     *
+     * @param cycle the sampled cycle
+     * @param CPUs the CPUs of the machine
+     */
+    private void sample(long cycle, CPU[] CPUs) {
+        if(size == capacity) {
+            if(output != null) {
+                flush();
+            }
+            else {
+                head = (head + 1) % capacity;
+                size--;
+            }
+        }
+        int slot = (head + size) % capacity;
+        long relocationCount = machine.getCurrentRelocationCount();
+        cycles[slot] = cycle;
+        relocations[slot] = (int) (relocationCount - lastRelocationCount);
+        lastRelocationCount = relocationCount;
+        int offset = slot * CPUCount;
+        for(int i = 0; i < CPUCount; i++) {
+            usages[offset + i] = (float) CPUs[i].getUsageUnits() / CPU.USAGE_UNIT;
+            queueLengths[offset + i] = CPUs[i].getAwaitingCount();
+        }
+        size++;
+    }
+
+    /**
+     * Writes the buffered samples to the output file and empties the buffers.
+     *
+     * @throws UncheckedIOException If the samples can't be written
+     */
+    private void flush() {
+        try {
+            if(channel != null) {
+                writeBinary(channel);
+            }
+            else if(writer != null) {
+                writeCSV(writer, false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the buffered samples as CSV with a header line, oldest first,
+     * and empties the buffers.
+     *
+     * @param writer the writer
+     * @throws IOException If the samples can't be written
+     */
+    public void writeCSV(Writer writer) throws IOException {
+        writeCSV(writer, true);
+    }
+
+    /**
+     * Writes the buffered samples as CSV, oldest first, and empties the
+     * buffers.
+     *
+     * @param writer the writer
+     * @param header whether the header line is written first
+     * @throws IOException If the samples can't be written
+     */
+    private void writeCSV(Writer writer, boolean header) throws IOException {
+        if(header) {
+            writeCSVHeader(writer);
+        }
+        StringBuilder line = new StringBuilder();
+        for(int i = 0; i < size; i++) {
+            int slot = (head + i) % capacity;
+            int offset = slot * CPUCount;
+            line.setLength(0);
+            line.append(cycles[slot]).append(',').append(relocations[slot]);
+            for(int j = 0; j < CPUCount; j++) {
+                int units = Math.round(usages[offset + j] * 10000);
+                line.append(',').append(units / 10000).append('.');
+                int fraction = units % 10000;
+                for(int digits = 1000; digits > 1 && fraction < digits; digits /= 10) {
+                    line.append('0');
+                }
+                line.append(fraction);
+            }
+            for(int j = 0; j < CPUCount; j++) {
+                line.append(',').append(queueLengths[offset + j]);
+            }
+            line.append('\n');
+            writer.append(line);
+        }
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * Writes the header line of the CSV format.
+     *
+     * @param writer the writer
+     * @throws IOException If the header can't be written
+     */
+    private void writeCSVHeader(Writer writer) throws IOException {
+        StringBuilder line = new StringBuilder("cycle,relocations");
+        for(int i = 0; i < CPUCount; i++) {
+            line.append(",usage").append(i);
+        }
+        for(int i = 0; i < CPUCount; i++) {
+            line.append(",ready").append(i);
+        }
+        writer.append(line).append('\n');
+    }
+
+    /**
+     * Writes the buffered samples in the binary format without the header,
+     * oldest first, and empties the buffers.
+     *
+     * @param channel the channel
+     * @throws IOException If the samples can't be written
+     */
+    public void writeBinary(WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.max(1, Math.min(size, (1 << 20) / getSampleSize()))
+                * getSampleSize());
+        for(int i = 0; i < size; i++) {
+            if(buffer.remaining() < getSampleSize()) {
+                buffer.flip();
+                writeFully(channel, buffer);
+                buffer.clear();
+            }
+            int slot = (head + i) % capacity;
+            int offset = slot * CPUCount;
+            buffer.putLong(cycles[slot]).putInt(relocations[slot]);
+            for(int j = 0; j < CPUCount; j++) {
+                buffer.putFloat(usages[offset + j]);
+            }
+            for(int j = 0; j < CPUCount; j++) {
+                buffer.putInt(queueLengths[offset + j]);
+            }
+        }
+        buffer.flip();
+        writeFully(channel, buffer);
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * A static method which writes the whole buffer to the channel.
+     *
+     * @param channel the channel
+     * @param buffer the buffer to be written
+     * @throws IOException If the buffer can't be written
+     */
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Writes the remaining samples to the output file and closes it. Does
+     * nothing if the samples are kept in memory.
+     *
+     * @throws IOException If the samples can't be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            if(channel != null) {
+                channel.close();
+                channel = null;
+            }
+            if(writer != null) {
+                writer.close();
+                writer = null;
+            }
+        }
+    }
+
+    /**
+     * Returns the amount of cycles between samples.
+     *
+     * @return the sampling interval
+     */
+    public Integer getInterval() {
+        return interval;
+    }
+
+    /**
+     * Returns the amount of samples held in memory.
+     *
+     * @return the capacity of the buffers
+     */
+    public Integer getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the amount of samples in the buffers.
+     *
+     * @return the amount of buffered samples
+     */
+    public Integer getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the size of a sample in the binary format.
+     *
+     * @return the size of a sample in bytes
+     */
+    public Integer getSampleSize() {
+        return 12 + 8 * CPUCount;
+    }
+}
@@ -0,0 +1,123 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+/**
+ * Times whole simulations of a {@link Machine} for comparable durations.
+ * <p>A few warm-up runs come first, so the simulator is compiled and its
+ * classes are loaded by the time the measured runs start. Every run gets
+ * a fresh machine, which is created before the clock starts. Before every run
+ * the garbage of the previous ones is collected explicitly, followed by
+ * a pause, so a collection triggered by an earlier run doesn't land in the
+ * measured one. The runs are timed with {@link System#nanoTime()}.
+ *
+ * @see TimingResult
+ */
+public class TimingHarness {
+    /**
+     * The amount of runs before the measured ones.
+     */
+    private Integer warmupIterations;
+
+    /**
+     * The amount of measured runs.
+     */
+    private Integer measuredIterations;
+
+    /**
+     * The pause after the explicit garbage collection before every run.
+     */
+    private Long pauseMillis;
+
+    /**
+     * Class constructor.
+     *
+     * @param warmupIterations the amount of runs before the measured ones
+     * @param measuredIterations the amount of measured runs
+     * @param pauseMillis the pause after the garbage collection before every
+     *                    run in milliseconds
+     */
+    public TimingHarness(Integer warmupIterations, Integer measuredIterations, Long pauseMillis) {
+        if(warmupIterations == null || warmupIterations < 0 || measuredIterations == null || measuredIterations <= 0
+                || pauseMillis == null || pauseMillis < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.warmupIterations = warmupIterations;
+        this.measuredIterations = measuredIterations;
+        this.pauseMillis = pauseMillis;
+    }
+
+    /**
+     * Runs the warm-up and the measured simulations.
+     *
+     * @param machines a factory of the machines to be run, which should
+     *                 return equal machines, for example of the same workload
+     *                 and seed
+     * @return the timings of the measured runs
+     * @throws InterruptedException If the thread is interrupted while pausing
+     */
+    public TimingResult measure(Supplier<Machine> machines) throws InterruptedException {
+        long[] nanos = new long[measuredIterations];
+        long cycleCount = 0;
+        long placementCount = 0;
+        long collectionCount = 0;
+
+        for(int i = -warmupIterations; i < measuredIterations; i++) {
+            Machine machine = machines.get();
+            System.gc();
+            Thread.sleep(pauseMillis);
+            long collections = getCollectionCount();
+            long start = System.nanoTime();
+            machine.run();
+            long duration = System.nanoTime() - start;
+            if(i >= 0) {
+                nanos[i] = duration;
+                cycleCount += machine.getCycleCount();
+                placementCount += machine.getPlacementCount();
+                collectionCount += getCollectionCount() - collections;
+            }
+        }
+        return new TimingResult(nanos, cycleCount, placementCount, collectionCount);
+    }
+
+    /**
+     * A static method which returns the amount of garbage collections since
+     * the start of the virtual machine.
+     *
+     * @return the amount of collections of all collectors
+     */
+    private static long getCollectionCount() {
+        long count = 0;
+        for(GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(collector.getCollectionCount(), 0);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the amount of runs before the measured ones.
+     *
+     * @return the amount of warm-up runs
+     */
+    public Integer getWarmupIterations() {
+        return warmupIterations;
+    }
+
+    /**
+     * Returns the amount of measured runs.
+     *
+     * @return the amount of measured runs
+     */
+    public Integer getMeasuredIterations() {
+        return measuredIterations;
+    }
+
+    /**
+     * Returns the pause after the garbage collection before every run.
+     *
+     * @return the pause in milliseconds
+     */
+    public Long getPauseMillis() {
+        return pauseMillis;
+    }
+}
@@ -0,0 +1,144 @@
+import java.util.Arrays;
+
+/**
+ * The timings of the measured runs of a {@link TimingHarness}.
+ * <p>The durations are summarized by their median, which ignores the odd run
+ * disturbed by the operating system, and a distribution-free confidence
+ * interval of the median taken from the order statistics of the runs. The
+ * throughputs relate the average work of a run to the median duration.
+ */
+public class TimingResult {
+    /**
+     * The quantile of the standard normal distribution of a 95% confidence
+     * interval.
+     */
+    private static final double Z_95 = 1.959964;
+
+    /**
+     * The durations of the measured runs in nanoseconds, sorted.
+     */
+    private long[] nanos;
+
+    /**
+     * The amount of cycles made by all measured runs.
+     */
+    private Long cycleCount;
+
+    /**
+     * The amount of processes placed by all measured runs.
+     */
+    private Long placementCount;
+
+    /**
+     * The amount of garbage collections during the measured runs.
+     */
+    private Long collectionCount;
+
+    /**
+     * Class constructor.
+     *
+     * @param nanos the durations of the measured runs in nanoseconds
+     * @param cycleCount the amount of cycles made by all measured runs
+     * @param placementCount the amount of processes placed by all measured
+     *                       runs
+     * @param collectionCount the amount of garbage collections during the
+     *                        measured runs
+     */
+    TimingResult(long[] nanos, Long cycleCount, Long placementCount, Long collectionCount) {
+        this.nanos = nanos.clone();
+        Arrays.sort(this.nanos);
+        this.cycleCount = cycleCount;
+        this.placementCount = placementCount;
+        this.collectionCount = collectionCount;
+    }
+
+    /**
+     * Returns the amount of measured runs.
+     *
+     * @return the amount of measured runs
+     */
+    public Integer getIterationCount() {
+        return nanos.length;
+    }
+
+    /**
+     * Returns the median duration of a run.
+     *
+     * @return the median duration in milliseconds
+     */
+    public Double getMedian() {
+        int middle = nanos.length / 2;
+        double median = nanos.length % 2 == 1 ? nanos[middle] : (nanos[middle - 1] + nanos[middle]) / 2d;
+        return median / 1e6;
+    }
+
+    /**
+     * Returns the lower bound of the 95% confidence interval of the median
+     * duration. With fewer than six runs it's the shortest run.
+     *
+     * @return the lower bound in milliseconds
+     */
+    public Double getMedianLowerBound() {
+        int rank = (int) Math.floor(nanos.length / 2d - Z_95 * Math.sqrt(nanos.length) / 2);
+        return nanos[Math.max(rank, 1) - 1] / 1e6;
+    }
+
+    /**
+     * Returns the upper bound of the 95% confidence interval of the median
+     * duration. With fewer than six runs it's the longest run.
+     *
+     * @return the upper bound in milliseconds
+     */
+    public Double getMedianUpperBound() {
+        int rank = (int) Math.ceil(nanos.length / 2d + 1 + Z_95 * Math.sqrt(nanos.length) / 2);
+        return nanos[Math.min(rank, nanos.length) - 1] / 1e6;
+    }
+
+    /**
+     * Returns the shortest duration of a run.
+     *
+     * @return the shortest duration in milliseconds
+     */
+    public Double getMin() {
+        return nanos[0] / 1e6;
+    }
+
+    /**
+     * Returns the longest duration of a run.
+     *
+     * @return the longest duration in milliseconds
+     */
+    public Double getMax() {
+        return nanos[nanos.length - 1] / 1e6;
+    }
+
+    /**
+     * Returns the amount of cycles simulated per second of a run of the
+     * median duration.
+     *
+     * @return the cycle throughput
+     */
+    public Double getCyclesPerSecond() {
+        return (double) cycleCount / nanos.length / (getMedian() / 1e3);
+    }
+
+    /**
+     * Returns the amount of processes placed per second of a run of the
+     * median duration.
+     *
+     * @return the placement throughput
+     */
+    public Double getPlacementsPerSecond() {
+        return (double) placementCount / nanos.length / (getMedian() / 1e3);
+    }
+
+    /**
+     * Returns the amount of garbage collections during the measured runs.
+     * Collections in the middle of the runs widen the confidence interval.
+     *
+     * @return the amount of collections
+     */
+    public Long getCollectionCount() {
+        return collectionCount;
+    }
+}
@@ -0,0 +1,221 @@
+import java.util.*;
+
+/**
+ * A hashed timing wheel holding the running {@link Process}es of a
+ * {@link CPU}, each filed under the cycle in which it completes.
+ * <p>A process completing in cycle <i>c</i> is kept in the slot
+ * <i>c</i> mod the slot count, so expiring a cycle only touches the processes
+ * filed in its slot. The wheel grows with the longest burst time it has seen
+ * up to {@link #MAX_SLOT_COUNT} slots. Processes completing further in the
+ * future stay in their slot for more than one turn of the wheel.
+ */
+public final class TimingWheel implements Iterable<Process> {
+    /**
+     * The initial amount of slots, a power of two.
+     */
+    private static final int INITIAL_SLOT_COUNT = 32;
+
+    /**
+     * The maximum amount of slots, a power of two.
+     */
+    private static final int MAX_SLOT_COUNT = 1 << 16;
+
+    /**
+     * The initial capacity of a slot.
+     */
+    private static final int INITIAL_SLOT_CAPACITY = 4;
+
+    /**
+     * The processes filed in every slot.
+     */
+    private Process[][] processes;
+
+    /**
+     * The completion cycles of the processes filed in every slot.
+     */
+    private long[][] deadlines;
+
+    /**
+     * The amount of processes filed in every slot.
+     */
+    private int[] sizes;
+
+    /**
+     * The amount of processes in the wheel.
+     */
+    private int size;
+
+    /**
+     * Class constructor.
+     */
+    public TimingWheel() {
+        allocate(INITIAL_SLOT_COUNT);
+    }
+
+    /**
+     * Files the process under the cycle in which it completes.
+     *
+     * @param process the process to be added
+     * @param deadline the cycle in which the process completes
+     * @param burstTime the amount of cycles from now until the process completes
+     */
+    public void add(Process process, long deadline, int burstTime) {
+        if(burstTime > sizes.length && sizes.length < MAX_SLOT_COUNT) {
+            resize(Math.min(Integer.highestOneBit(burstTime - 1) << 1, MAX_SLOT_COUNT));
+        }
+        file(process, deadline);
+        size++;
+    }
+
+    /**
+     * Removes all processes completing in the specified cycle.
+     *
+     * @param cycle the cycle which is expired
+     * @param expired a list to which the removed processes are added
+     */
+    public void expire(long cycle, List<Process> expired) {
+        int slot = (int) (cycle & (sizes.length - 1));
+        Process[] slotProcesses = processes[slot];
+        long[] slotDeadlines = deadlines[slot];
+        int i = 0;
+        while(i < sizes[slot]) {
+            if(slotDeadlines[i] == cycle) {
+                expired.add(slotProcesses[i]);
+                removeAt(slot, i);
+            }
+            else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Removes the processes with the specified identifiers from the wheel.
+     *
+     * @param PIDs the identifiers of the processes to be removed in
+     *             ascending order
+     * @param count the amount of identifiers
+     * @param cycle the last expired cycle
+     * @param removed a list to which the processes actually removed are added,
+     *                with the amount of cycles left until they complete as
+     *                their burst times
+     */
+    public void removeAll(int[] PIDs, int count, long cycle, List<Process> removed) {
+        // the identifiers aren't modified, so count down the processes still to be found
+        int left = count;
+        for(int slot = 0; slot < sizes.length && left > 0; slot++) {
+            int i = 0;
+            while(i < sizes[slot] && left > 0) {
+                Process process = processes[slot][i];
+                if(Arrays.binarySearch(PIDs, 0, count, process.getPID()) >= 0) {
+                    removed.add(process.withBurstTime((int) (deadlines[slot][i] - cycle)));
+                    removeAt(slot, i);
+                    left--;
+                }
+                else {
+                    i++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the amount of processes in the wheel.
+     *
+     * @return the amount of processes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterator<Process> iterator() {
+        return new Iterator<Process>() {
+            private int slot = 0;
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                while(slot < sizes.length && i >= sizes[slot]) {
+                    slot++;
+                    i = 0;
+                }
+                return slot < sizes.length;
+            }
+
+            @Override
+            public Process next() {
+                if(!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return processes[slot][i++];
+            }
+        };
+    }
+
+    /**
+     * Adds the process to the slot of its completion cycle.
+     *
+     * @param process the process to be added
+     * @param deadline the cycle in which the process completes
+     */
+    private void file(Process process, long deadline) {
+        int slot = (int) (deadline & (sizes.length - 1));
+        if(processes[slot] == null) {
+            processes[slot] = new Process[INITIAL_SLOT_CAPACITY];
+            deadlines[slot] = new long[INITIAL_SLOT_CAPACITY];
+        }
+        else if(sizes[slot] == processes[slot].length) {
+            processes[slot] = Arrays.copyOf(processes[slot], sizes[slot] * 2);
+            deadlines[slot] = Arrays.copyOf(deadlines[slot], sizes[slot] * 2);
+        }
+        processes[slot][sizes[slot]] = process;
+        deadlines[slot][sizes[slot]] = deadline;
+        sizes[slot]++;
+    }
+
+    /**
+     * Removes an entry of a slot by moving the last entry in its place.
+     *
+     * @param slot the slot of the entry
+     * @param i the index of the entry in the slot
+     */
+    private void removeAt(int slot, int i) {
+        int last = --sizes[slot];
+        processes[slot][i] = processes[slot][last];
+        deadlines[slot][i] = deadlines[slot][last];
+        processes[slot][last] = null;
+        size--;
+    }
+
+    /**
+     * Allocates empty slots.
+     *
+     * @param slotCount the amount of slots, a power of two
+     */
+    private void allocate(int slotCount) {
+        processes = new Process[slotCount][];
+        deadlines = new long[slotCount][];
+        sizes = new int[slotCount];
+    }
+
+    /**
+     * Changes the amount of slots and files all processes again.
+     *
+     * @param slotCount the new amount of slots, a power of two
+     */
+    private void resize(int slotCount) {
+        Process[][] oldProcesses = processes;
+        long[][] oldDeadlines = deadlines;
+        int[] oldSizes = sizes;
+        allocate(slotCount);
+        for(int slot = 0; slot < oldSizes.length; slot++) {
+            for(int i = 0; i < oldSizes[slot]; i++) {
+                file(oldProcesses[slot][i], oldDeadlines[slot][i]);
+            }
+        }
+    }
+}
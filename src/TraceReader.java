@@ -0,0 +1,206 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A reader of binary workload traces written by a {@link TraceWriter}.
+ * <p>The blocks of the trace are memory-mapped in segments of
+ * {@link #SEGMENT_SIZE} bytes, which overlap by the size of a block, so every
+ * block lies within a single segment and traces larger than 2 GB are read
+ * the same way as small ones. The cursors read the schedules straight from
+ * the mapped memory without creating any objects, so replaying a trace takes
+ * a constant amount of heap and the operating system pages the file in and
+ * out as needed. The reader may be shared by any amount of simulations, also
+ * running at the same time.
+ */
+public class TraceReader implements ScheduleSource, Closeable {
+    /**
+     * The binary logarithm of the size of a segment.
+     */
+    private static final int SEGMENT_SHIFT = 30;
+
+    /**
+     * The size of a segment in bytes, not counting the overlap.
+     */
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+
+    /**
+     * The channel of the trace file.
+     */
+    private FileChannel channel;
+
+    /**
+     * The mapped segments of the trace file.
+     */
+    private MappedByteBuffer[] segments;
+
+    /**
+     * The positions of the blocks of every queue.
+     */
+    private long[][] blockPositions;
+
+    /**
+     * The amount of schedules in the trace.
+     */
+    private long scheduleCount;
+
+    /**
+     * Class constructor. Opens the trace file and maps it to memory.
+     *
+     * @param path the path of the trace file
+     * @throws IOException If the file can't be read or isn't a valid trace
+     */
+    public TraceReader(Path path) throws IOException {
+        if(path == null) {
+            throw new IllegalArgumentException();
+        }
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if(size < TraceWriter.HEADER_SIZE + TraceWriter.TRAILER_SIZE) {
+                throw new IOException("Not a trace: " + path);
+            }
+            ByteBuffer header = read(0, TraceWriter.HEADER_SIZE);
+            ByteBuffer trailer = read(size - TraceWriter.TRAILER_SIZE, TraceWriter.TRAILER_SIZE);
+            if(header.getInt(0) != TraceWriter.MAGIC || trailer.getInt(16) != TraceWriter.MAGIC) {
+                throw new IOException("Not a trace or an incomplete one: " + path);
+            }
+            if(header.getInt(4) != TraceWriter.VERSION) {
+                throw new IOException("Unsupported trace version " + header.getInt(4) + ": " + path);
+            }
+            int queueCount = header.getInt(8);
+            int blockSize = TraceWriter.BLOCK_HEADER_SIZE + header.getInt(12) * TraceWriter.RECORD_SIZE;
+            long footerPosition = trailer.getLong(0);
+            scheduleCount = trailer.getLong(8);
+
+            ByteBuffer footer = read(footerPosition, (int) (size - TraceWriter.TRAILER_SIZE - footerPosition));
+            blockPositions = new long[queueCount][];
+            for(int i = 0; i < queueCount; i++) {
+                blockPositions[i] = new long[footer.getInt()];
+                for(int j = 0; j < blockPositions[i].length; j++) {
+                    blockPositions[i][j] = footer.getLong();
+                }
+            }
+
+            segments = new MappedByteBuffer[(int) ((footerPosition + SEGMENT_SIZE - 1) >> SEGMENT_SHIFT)];
+            for(int i = 0; i < segments.length; i++) {
+                long start = (long) i << SEGMENT_SHIFT;
+                long end = Math.min(footerPosition, start + SEGMENT_SIZE + blockSize);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Integer getQueueCount() {
+        return blockPositions.length;
+    }
+
+    /**
+     * Returns the total amount of schedules.
+     *
+     * @return the amount of schedules
+     */
+    public Long getScheduleCount() {
+        return scheduleCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ScheduleCursor cursor(int queue) {
+        long[] positions = blockPositions[queue];
+        return new ScheduleCursor() {
+            private int block = -1;
+            private ByteBuffer segment;
+            private int offset;
+            private int remaining;
+            private int delay;
+            private int PID;
+            private double usage;
+            private int burstTime;
+
+            @Override
+            public boolean next() {
+                if(remaining == 0) {
+                    if(block + 1 >= positions.length) {
+                        return false;
+                    }
+                    long position = positions[++block];
+                    segment = segments[(int) (position >> SEGMENT_SHIFT)];
+                    offset = (int) (position & (SEGMENT_SIZE - 1));
+                    remaining = segment.getInt(offset + 4);
+                    offset += TraceWriter.BLOCK_HEADER_SIZE;
+                }
+                delay = segment.getInt(offset);
+                PID = segment.getInt(offset + 4);
+                usage = segment.getDouble(offset + 8);
+                burstTime = segment.getInt(offset + 16);
+                offset += TraceWriter.RECORD_SIZE;
+                remaining--;
+                return true;
+            }
+
+            @Override
+            public int getDelay() {
+                return delay;
+            }
+
+            @Override
+            public int getPID() {
+                return PID;
+            }
+
+            @Override
+            public double getUsage() {
+                return usage;
+            }
+
+            @Override
+            public int getBurstTime() {
+                return burstTime;
+            }
+        };
+    }
+
+    /**
+     * Closes the trace file. The mapped segments are released once they're
+     * no longer referenced, so the cursors must not be used afterwards.
+     *
+     * @throws IOException If the file can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reads a part of the trace file into a new buffer.
+     *
+     * @param position the position of the part
+     * @param length the length of the part in bytes
+     * @return the buffer holding the part
+     * @throws IOException If the part can't be read
+     */
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while(buffer.hasRemaining()) {
+            if(channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the trace");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,326 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A writer of binary workload traces, which are replayed by a
+ * {@link TraceReader}.
+ * <p>A trace consists of a header, blocks of schedules and a footer. Every
+ * block holds up to {@link #getBlockLength()} consecutive schedules of a single
+ * queue, so schedules may be written in any order of the queues while only
+ * the unfinished block of every queue is kept in memory. The buffer of a
+ * finished block is released, and up to {@link #SPARE_BLOCK_COUNT} of them
+ * are reused for the next blocks. A schedule is stored in
+ * {@link #RECORD_SIZE} bytes as its delay, the identifier, the usage and the
+ * burst time of its process. The footer lists the positions of the blocks of
+ * every queue and is followed by the position of the footer, the amount of
+ * schedules and {@link #MAGIC}.
+ */
+public class TraceWriter implements Closeable {
+    /**
+     * The first and the last four bytes of every trace.
+     */
+    static final int MAGIC = 0x4C425452;
+
+    /**
+     * The version of the format.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The size of the header in bytes: the magic number, the version, the
+     * amount of queues and the block length.
+     */
+    static final int HEADER_SIZE = 16;
+
+    /**
+     * The size of the header of a block in bytes: the index of its queue and
+     * the amount of its schedules.
+     */
+    static final int BLOCK_HEADER_SIZE = 8;
+
+    /**
+     * The size of a single schedule in bytes.
+     */
+    static final int RECORD_SIZE = 20;
+
+    /**
+     * The size of the trailer in bytes: the position of the footer, the
+     * amount of schedules and the magic number.
+     */
+    static final int TRAILER_SIZE = 20;
+
+    /**
+     * The maximum block length.
+     */
+    private static final int MAX_BLOCK_LENGTH = 4096;
+
+    /**
+     * The minimum block length.
+     */
+    private static final int MIN_BLOCK_LENGTH = 16;
+
+    /**
+     * The total size of the unfinished blocks aimed for, which determines the
+     * block length when there are many queues.
+     */
+    private static final int BUFFER_SIZE = 1 << 26;
+
+    /**
+     * The maximum amount of buffers of finished blocks kept for reuse.
+     */
+    private static final int SPARE_BLOCK_COUNT = 4;
+
+    /**
+     * The channel of the trace file.
+     */
+    private FileChannel channel;
+
+    /**
+     * The maximum amount of schedules in a block.
+     */
+    private int blockLength;
+
+    /**
+     * The unfinished block of every queue, taken on its first schedule and
+     * <code>null</code> while the queue has none.
+     */
+    private ByteBuffer[] blocks;
+
+    /**
+     * The buffers of finished blocks kept for reuse.
+     */
+    private Deque<ByteBuffer> spareBlocks;
+
+    /**
+     * The positions of the finished blocks of every queue.
+     */
+    private long[][] blockPositions;
+
+    /**
+     * The amount of finished blocks of every queue.
+     */
+    private int[] blockCounts;
+
+    /**
+     * The position in the file at which the next block is written.
+     */
+    private long position;
+
+    /**
+     * The amount of schedules written.
+     */
+    private long scheduleCount;
+
+    /**
+     * Class constructor. Creates the trace file, replacing an existing one.
+     *
+     * @param path the path of the trace file
+     * @param queueCount the amount of schedule queues
+     * @throws IOException If the file can't be created
+     */
+    public TraceWriter(Path path, Integer queueCount) throws IOException {
+        if(path == null || queueCount == null || queueCount <= 0) {
+            throw new IllegalArgumentException();
+        }
+        blockLength = Math.max(MIN_BLOCK_LENGTH, Math.min(MAX_BLOCK_LENGTH, BUFFER_SIZE / RECORD_SIZE / queueCount));
+        blocks = new ByteBuffer[queueCount];
+        spareBlocks = new ArrayDeque<>(SPARE_BLOCK_COUNT);
+        blockPositions = new long[queueCount][];
+        blockCounts = new int[queueCount];
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(queueCount).putInt(blockLength);
+        header.flip();
+        writeFully(header);
+    }
+
+    /**
+     * A static method which writes schedule queues to a trace file. The queues
+     * are ordered the same way as {@link Scheduler} assigns them to CPUs.
+     *
+     * @param path the path of the trace file
+     * @param schedules a set of schedule queues, for example the one of
+     *                  {@link Generator#generate}
+     * @throws IOException If the file can't be written
+     */
+    public static void record(Path path, Set<Queue<Schedule>> schedules) throws IOException {
+        if(schedules == null) {
+            throw new IllegalArgumentException();
+        }
+        List<Iterator<Schedule>> queues = new ArrayList<>(schedules.size());
+        for(Queue<Schedule> queue : schedules) {
+            queues.add(queue.iterator());
+        }
+        record(path, queues);
+    }
+
+    /**
+     * A static method which reads schedule queues to the end and writes them
+     * to a trace file one after another, so lazily generated queues are
+     * never held in memory as a whole.
+     *
+     * @param path the path of the trace file
+     * @param schedules schedule queues indexed by CPUs' identifiers, for
+     *                  example the ones of {@link Generator#stream}
+     * @throws IOException If the file can't be written
+     */
+    public static void record(Path path, List<? extends Iterator<Schedule>> schedules) throws IOException {
+        if(schedules == null) {
+            throw new IllegalArgumentException();
+        }
+        try(TraceWriter writer = new TraceWriter(path, schedules.size())) {
+            for(int i = 0; i < schedules.size(); i++) {
+                Iterator<Schedule> iter = schedules.get(i);
+                while(iter.hasNext()) {
+                    writer.write(i, iter.next());
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends a schedule to a queue.
+     *
+     * @param queue the index of the queue
+     * @param schedule the schedule to be appended
+     * @throws IOException If the file can't be written
+     */
+    public void write(int queue, Schedule schedule) throws IOException {
+        if(schedule == null) {
+            throw new IllegalArgumentException();
+        }
+        Process process = schedule.getProcess();
+        write(queue, schedule.getDelay(), process.getPID(), process.getUsage(), process.getBurstTime());
+    }
+
+    /**
+     * Appends a schedule to a queue.
+     *
+     * @param queue the index of the queue
+     * @param delay the delay of the schedule
+     * @param PID the identifier of the process
+     * @param usage the usage of the process
+     * @param burstTime the burst time of the process
+     * @throws IOException If the file can't be written
+     */
+    public void write(int queue, int delay, int PID, double usage, int burstTime) throws IOException {
+        if(queue < 0 || queue >= blocks.length) {
+            throw new IllegalArgumentException();
+        }
+        if(channel == null) {
+            throw new IllegalStateException("The trace is closed");
+        }
+        ByteBuffer block = blocks[queue];
+        if(block == null) {
+            block = spareBlocks.poll();
+            if(block == null) {
+                block = ByteBuffer.allocate(BLOCK_HEADER_SIZE + blockLength * RECORD_SIZE);
+            }
+            block.position(BLOCK_HEADER_SIZE);
+            blocks[queue] = block;
+        }
+        block.putInt(delay).putInt(PID).putDouble(usage).putInt(burstTime);
+        scheduleCount++;
+        if(!block.hasRemaining()) {
+            flushBlock(queue);
+        }
+    }
+
+    /**
+     * Returns the maximum amount of schedules in a block.
+     *
+     * @return the block length
+     */
+    public int getBlockLength() {
+        return blockLength;
+    }
+
+    /**
+     * Writes the unfinished blocks and the footer and closes the file.
+     *
+     * @throws IOException If the file can't be written
+     */
+    @Override
+    public void close() throws IOException {
+        if(channel == null) {
+            return;
+        }
+        try {
+            for(int i = 0; i < blocks.length; i++) {
+                flushBlock(i);
+            }
+
+            long footerPosition = position;
+            int footerSize = 0;
+            for(int count : blockCounts) {
+                footerSize += 4 + count * 8;
+            }
+            ByteBuffer footer = ByteBuffer.allocate(footerSize + TRAILER_SIZE);
+            for(int i = 0; i < blockCounts.length; i++) {
+                footer.putInt(blockCounts[i]);
+                for(int j = 0; j < blockCounts[i]; j++) {
+                    footer.putLong(blockPositions[i][j]);
+                }
+            }
+            footer.putLong(footerPosition).putLong(scheduleCount).putInt(MAGIC);
+            footer.flip();
+            writeFully(footer);
+        }
+        finally {
+            channel.close();
+            channel = null;
+            blocks = null;
+            spareBlocks = null;
+        }
+    }
+
+    /**
+     * Writes the unfinished block of a queue, if it holds any schedules, and
+     * releases its buffer.
+     *
+     * @param queue the index of the queue
+     * @throws IOException If the file can't be written
+     */
+    private void flushBlock(int queue) throws IOException {
+        ByteBuffer block = blocks[queue];
+        if(block == null || block.position() == BLOCK_HEADER_SIZE) {
+            return;
+        }
+        block.putInt(0, queue).putInt(4, (block.position() - BLOCK_HEADER_SIZE) / RECORD_SIZE);
+        block.flip();
+
+        if(blockPositions[queue] == null) {
+            blockPositions[queue] = new long[4];
+        }
+        else if(blockCounts[queue] == blockPositions[queue].length) {
+            blockPositions[queue] = Arrays.copyOf(blockPositions[queue], blockCounts[queue] * 2);
+        }
+        blockPositions[queue][blockCounts[queue]++] = position;
+        writeFully(block);
+
+        blocks[queue] = null;
+        if(spareBlocks.size() < SPARE_BLOCK_COUNT) {
+            block.clear();
+            spareBlocks.push(block);
+        }
+    }
+
+    /**
+     * Writes the whole buffer at the current position.
+     *
+     * @param buffer the buffer to be written
+     * @throws IOException If the file can't be written
+     */
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while(buffer.hasRemaining()) {
+            position += channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+import java.util.Arrays;
+
+/**
+ * Statistics of the usage of a {@link Machine}'s CPUs, updated by the machine
+ * while the simulation runs and readable at any time from any thread.
+ * <p>Every cycle contributes the average usage of all CPUs, weighted by the
+ * amount of cycles the usages lasted. The Gini coefficient of the CPUs'
+ * usages is recorded the same way if it's enabled, which costs a sort of
+ * the usages every cycle, see {@link Machine#setGiniRecorded(Boolean)}. The
+ * mean and the variance of the average usage are kept
+ * with Welford's algorithm, so they're numerically stable for long runs and
+ * every getter costs O(1). The mean equals {@link Machine#getAverageUsage()}
+ * of the cycles made so far.
+ *
+ * @see Machine#getUsageStatistics()
+ */
+public final class UsageStatistics {
+    /**
+     * The usages of the CPUs of the last sample, sorted, or
+     * <code>null</code> if the Gini coefficient isn't recorded.
+     */
+    private long[] usages;
+
+    /**
+     * The amount of cycles recorded.
+     */
+    private long cycleCount;
+
+    /**
+     * The mean of the average usage.
+     */
+    private double mean;
+
+    /**
+     * The sum of the squared differences of the average usage from its mean.
+     */
+    private double squaredDeviationSum;
+
+    /**
+     * The lowest average usage.
+     */
+    private double min;
+
+    /**
+     * The highest average usage.
+     */
+    private double max;
+
+    /**
+     * The sum of the Gini coefficients weighted by their amount of cycles.
+     */
+    private double giniSum;
+
+    /**
+     * Class constructor.
+     *
+     * @param CPUCount the amount of CPUs of the machine
+     */
+    UsageStatistics(int CPUCount) {
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Sets whether the Gini coefficient is recorded. Has to be called before
+     * any cycle is recorded.
+     *
+     * @param CPUCount the amount of CPUs of the machine
+     * @param giniRecorded whether the Gini coefficient is recorded
+     */
+    synchronized void setGiniRecorded(int CPUCount, boolean giniRecorded) {
+        usages = giniRecorded ? new long[CPUCount] : null;
+    }
+
+    /**
+     * Records the usages with which the CPUs have executed their last cycles.
+     * Must be called by a single thread at a time.
+     *
+     * @param CPUs the CPUs of the machine
+     * @param cycles the amount of cycles the usages lasted
+     * @see CPU#getExecutedUsageUnits()
+     */
+    void record(CPU[] CPUs, long cycles) {
+        long totalUsage = 0;
+        if(usages == null) {
+            for(CPU cpu : CPUs) {
+                totalUsage += cpu.getExecutedUsageUnits();
+            }
+            add((double) totalUsage / CPU.USAGE_UNIT / CPUs.length, 0, cycles);
+            return;
+        }
+        for(int i = 0; i < CPUs.length; i++) {
+            usages[i] = CPUs[i].getExecutedUsageUnits();
+            totalUsage += usages[i];
+        }
+        double gini = 0;
+        if(totalUsage > 0) {
+            // the sum of the differences of all pairs, from the sorted usages
+            Arrays.sort(usages);
+            double differenceSum = 0;
+            for(int i = 0; i < usages.length; i++) {
+                differenceSum += (double) (2 * i + 1 - usages.length) * usages[i];
+            }
+            gini = differenceSum / ((double) usages.length * totalUsage);
+        }
+        add((double) totalUsage / CPU.USAGE_UNIT / CPUs.length, gini, cycles);
+    }
+
+    /**
+     * Adds the average usage and the Gini coefficient of a sample.
+     *
+     * @param usage the average usage of the CPUs
+     * @param gini the Gini coefficient of the CPUs' usages
+     * @param cycles the weight of the sample
+     */
+    private synchronized void add(double usage, double gini, long cycles) {
+        cycleCount += cycles;
+        double delta = usage - mean;
+        mean += delta * cycles / cycleCount;
+        squaredDeviationSum += cycles * delta * (usage - mean);
+        min = Math.min(min, usage);
+        max = Math.max(max, usage);
+        giniSum += gini * cycles;
+    }
+
+    /**
+     * Returns the amount of cycles recorded so far.
+     *
+     * @return the amount of cycles
+     */
+    public synchronized Long getCycleCount() {
+        return cycleCount;
+    }
+
+    /**
+     * Returns the average usage of all CPUs over the cycles so far.
+     *
+     * @return the mean usage, zero if no cycle has been recorded
+     */
+    public synchronized Double getMean() {
+        return mean;
+    }
+
+    /**
+     * Returns the variance of the average usage of all CPUs over the cycles
+     * so far.
+     *
+     * @return the variance, zero if no cycle has been recorded
+     */
+    public synchronized Double getVariance() {
+        return cycleCount == 0 ? 0d : squaredDeviationSum / cycleCount;
+    }
+
+    /**
+     * Returns the standard deviation of the average usage of all CPUs over
+     * the cycles so far.
+     *
+     * @return the standard deviation, zero if no cycle has been recorded
+     */
+    public Double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * Returns the lowest average usage of all CPUs in a cycle.
+     *
+     * @return the lowest usage, zero if no cycle has been recorded
+     */
+    public synchronized Double getMin() {
+        return cycleCount == 0 ? 0d : min;
+    }
+
+    /**
+     * Returns the highest average usage of all CPUs in a cycle.
+     *
+     * @return the highest usage, zero if no cycle has been recorded
+     */
+    public synchronized Double getMax() {
+        return cycleCount == 0 ? 0d : max;
+    }
+
+    /**
+     * Returns the Gini coefficient of the CPUs' usages averaged over the
+     * cycles so far, zero if every CPU has always had the same usage and
+     * approaching one if a single CPU carries the whole load.
+     *
+     * @return the time-weighted Gini coefficient, zero if no cycle has been
+     *         recorded
+     * @throws IllegalStateException If the Gini coefficient isn't recorded
+     * @see Machine#setGiniRecorded(Boolean)
+     */
+    public synchronized Double getGini() {
+        if(usages == null) {
+            throw new IllegalStateException("The Gini coefficient isn't recorded");
+        }
+        return cycleCount == 0 ? 0d : giniSum / cycleCount;
+    }
+}
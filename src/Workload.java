@@ -0,0 +1,172 @@
+import java.util.*;
+
+/**
+ * An immutable workload, that is a queue of {@link Schedule}s for every
+ * {@link CPU}, stored compactly in flat primitive arrays.
+ * <p>A workload is shared by any amount of simulations without copying. Every
+ * {@link Scheduler} reads it through its own cursors, which read the arrays
+ * directly.
+ */
+public final class Workload implements ScheduleSource {
+    /**
+     * The index of the first schedule of every queue, followed by the total
+     * amount of schedules.
+     */
+    private final int[] offsets;
+
+    /**
+     * The identifiers of the processes of all schedules.
+     */
+    private final int[] PIDs;
+
+    /**
+     * The usages of the processes of all schedules.
+     */
+    private final double[] usages;
+
+    /**
+     * The burst times of the processes of all schedules.
+     */
+    private final int[] burstTimes;
+
+    /**
+     * The delays of all schedules.
+     */
+    private final int[] delays;
+
+    /**
+     * Class constructor.
+     *
+     * @param offsets the index of the first schedule of every queue, followed
+     *                by the total amount of schedules
+     * @param PIDs the identifiers of the processes of all schedules
+     * @param usages the usages of the processes of all schedules
+     * @param burstTimes the burst times of the processes of all schedules
+     * @param delays the delays of all schedules
+     */
+    private Workload(int[] offsets, int[] PIDs, double[] usages, int[] burstTimes, int[] delays) {
+        this.offsets = offsets;
+        this.PIDs = PIDs;
+        this.usages = usages;
+        this.burstTimes = burstTimes;
+        this.delays = delays;
+    }
+
+    /**
+     * A static method which stores schedule queues as a workload. The queues
+     * are ordered the same way as {@link Scheduler} assigns them to CPUs.
+     *
+     * @param schedules a set of schedule queues, for example the one of
+     *                  {@link Generator#generate}
+     * @return the workload
+     */
+    public static Workload of(Set<Queue<Schedule>> schedules) {
+        if(schedules == null) {
+            throw new IllegalArgumentException();
+        }
+        List<Iterator<Schedule>> queues = new ArrayList<>(schedules.size());
+        for(Queue<Schedule> queue : schedules) {
+            queues.add(queue.iterator());
+        }
+        return of(queues);
+    }
+
+    /**
+     * A static method which reads schedule queues to the end and stores them
+     * as a workload.
+     *
+     * @param schedules schedule queues indexed by CPUs' identifiers
+     * @return the workload
+     */
+    public static Workload of(List<? extends Iterator<Schedule>> schedules) {
+        if(schedules == null) {
+            throw new IllegalArgumentException();
+        }
+        int[] offsets = new int[schedules.size() + 1];
+        int capacity = 1024;
+        int[] PIDs = new int[capacity];
+        double[] usages = new double[capacity];
+        int[] burstTimes = new int[capacity];
+        int[] delays = new int[capacity];
+        int size = 0;
+
+        for(int i = 0; i < schedules.size(); i++) {
+            offsets[i] = size;
+            Iterator<Schedule> iter = schedules.get(i);
+            while(iter.hasNext()) {
+                Schedule schedule = iter.next();
+                if(size == capacity) {
+                    capacity *= 2;
+                    PIDs = Arrays.copyOf(PIDs, capacity);
+                    usages = Arrays.copyOf(usages, capacity);
+                    burstTimes = Arrays.copyOf(burstTimes, capacity);
+                    delays = Arrays.copyOf(delays, capacity);
+                }
+                PIDs[size] = schedule.getProcess().getPID();
+                usages[size] = schedule.getProcess().getUsage();
+                burstTimes[size] = schedule.getProcess().getBurstTime();
+                delays[size] = schedule.getDelay();
+                size++;
+            }
+        }
+        offsets[schedules.size()] = size;
+
+        return new Workload(offsets, Arrays.copyOf(PIDs, size), Arrays.copyOf(usages, size),
+                Arrays.copyOf(burstTimes, size), Arrays.copyOf(delays, size));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Integer getQueueCount() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Returns the total amount of schedules.
+     *
+     * @return the amount of schedules
+     */
+    public Integer getScheduleCount() {
+        return offsets[offsets.length - 1];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ScheduleCursor cursor(int queue) {
+        return new ScheduleCursor() {
+            private int current = offsets[queue] - 1;
+
+            @Override
+            public boolean next() {
+                if(current < offsets[queue + 1]) {
+                    current++;
+                }
+                return current < offsets[queue + 1];
+            }
+
+            @Override
+            public int getDelay() {
+                return delays[current];
+            }
+
+            @Override
+            public int getPID() {
+                return PIDs[current];
+            }
+
+            @Override
+            public double getUsage() {
+                return usages[current];
+            }
+
+            @Override
+            public int getBurstTime() {
+                return burstTimes[current];
+            }
+        };
+    }
+}
@@ -0,0 +1,114 @@
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the process storages and the engines of {@link Machine} are
+ * interchangeable: on a fixed seed the object storage and the primitive
+ * storage, run by {@link Machine#run()}, {@link Machine#runParallel} and
+ * {@link Machine#runEventDriven()}, must give identical results for every
+ * algorithm and every ready queue policy.
+ */
+public class EquivalenceTest {
+    /**
+     * The algorithms compared, in the format of {@link Sweep#createAlgorithm}.
+     */
+    private static final String[] ALGORITHMS = { "First", "Second", "Third", "Third:0.3:0.5:10",
+            "IndexedThird", "PowerOfD:2", "JSQWithMemory:2", "JoinIdleQueue", "LocalFirst:10:2" };
+
+    /**
+     * The ready queue policies compared, in the format of
+     * {@link Sweep#createReadyQueuePolicy}.
+     */
+    private static final String[] POLICIES = { "FIFO", "BestFit", "FirstFit:4", "Aging:100" };
+
+    /**
+     * The amount of CPUs, the usage threshold of the algorithms and the seed
+     * of every machine.
+     */
+    private static final int CPU_COUNT = 20;
+    private static final double THRESHOLD = 0.6;
+    private static final long SEED = 5L;
+
+    /**
+     * The workload shared by every run, generated once.
+     */
+    private static final Set<Queue<Schedule>> SCHEDULES =
+            Generator.generate(CPU_COUNT, 20, 40, 0.03, 0.3, 0, 2, 10, 200, new Random(1));
+
+    /**
+     * Every pair of an algorithm and a ready queue policy.
+     */
+    static Stream<Arguments> cases() {
+        return Arrays.stream(ALGORITHMS).flatMap(algorithm -> Arrays.stream(POLICIES)
+                .map(policy -> Arguments.of(algorithm, policy)));
+    }
+
+    /**
+     * Runs the object storage sequentially as the reference and compares
+     * the other five combinations of a storage and an engine against it.
+     */
+    @ParameterizedTest(name = "{0} {1}")
+    @MethodSource("cases")
+    public void storagesAndEnginesAreEquivalent(String algorithm, String policyName) {
+        ReadyQueuePolicy policy = Sweep.createReadyQueuePolicy(policyName);
+        Machine expected = machine(algorithm, () -> new ObjectProcessStorage(policy));
+        expected.run();
+
+        Machine primitive = machine(algorithm, () -> new PrimitiveProcessStorage(policy));
+        primitive.run();
+        assertSameResults(expected, primitive, "primitive storage, run");
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Machine objectParallel = machine(algorithm, () -> new ObjectProcessStorage(policy));
+            objectParallel.runParallel(pool);
+            assertSameResults(expected, objectParallel, "object storage, runParallel");
+
+            Machine primitiveParallel = machine(algorithm, () -> new PrimitiveProcessStorage(policy));
+            primitiveParallel.runParallel(pool);
+            assertSameResults(expected, primitiveParallel, "primitive storage, runParallel");
+        } finally {
+            pool.shutdown();
+        }
+
+        Machine objectEventDriven = machine(algorithm, () -> new ObjectProcessStorage(policy));
+        objectEventDriven.runEventDriven();
+        assertSameResults(expected, objectEventDriven, "object storage, runEventDriven");
+
+        Machine primitiveEventDriven = machine(algorithm, () -> new PrimitiveProcessStorage(policy));
+        primitiveEventDriven.runEventDriven();
+        assertSameResults(expected, primitiveEventDriven, "primitive storage, runEventDriven");
+    }
+
+    /**
+     * Creates a machine running a new instance of the algorithm, so that no
+     * state of the algorithm is shared between the runs.
+     */
+    private static Machine machine(String algorithm, Supplier<ProcessStorage> storage) {
+        return new Machine(CPU_COUNT, Sweep.createAlgorithm(algorithm, THRESHOLD), SCHEDULES, SEED, storage);
+    }
+
+    /**
+     * Asserts that both machines gave exactly the same results, the usages
+     * compared bit for bit.
+     */
+    private static void assertSameResults(Machine expected, Machine actual, String variant) {
+        assertEquals(expected.getCycleCount(), actual.getCycleCount(), variant + ": cycle count");
+        assertEquals(expected.getAverageUsage(), actual.getAverageUsage(), variant + ": average usage");
+        assertEquals(expected.getAverageUsageDeviation(), actual.getAverageUsageDeviation(),
+                variant + ": average usage deviation");
+        assertEquals(expected.getUsageRequestCount(), actual.getUsageRequestCount(),
+                variant + ": usage request count");
+        assertEquals(expected.getRelocationCount(), actual.getRelocationCount(), variant + ": relocation count");
+        assertEquals(expected.getPlacementCount(), actual.getPlacementCount(), variant + ": placement count");
+        assertEquals(expected.getAdmissionCount(), actual.getAdmissionCount(), variant + ": admission count");
+    }
+}